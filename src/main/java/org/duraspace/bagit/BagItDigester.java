@@ -0,0 +1,465 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compute the checksums for a set of {@link BagItDigest} algorithms while reading the content being digested only
+ * once. Content is read into a reusable buffer which is then given to every algorithm. When more than one algorithm is
+ * used for a single file, each algorithm is updated on a separate thread while the next buffer is being read. When
+ * digesting a {@link Collection} of files, the files are digested concurrently by a bounded pool of workers.
+ *
+ * Files can be read through streams, through direct {@link ByteBuffer}s, or by mapping them into memory (see
+ * {@link ReadMode}). The buffers used by the channel based modes are given directly to each {@link MessageDigest} so
+ * the bytes are never copied onto the heap.
+ *
+ * The worker pool is only created once it is needed, and a {@link BagItDigester} with a parallelism of 1 never
+ * creates any threads.
+ *
+ * @since 2026-10-17
+ */
+public class BagItDigester implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BagItDigester.class);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long MAP_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * How files are read when they are digested
+     */
+    public enum ReadMode {
+        /**
+         * Read files through an {@link InputStream} into a heap buffer
+         */
+        STREAM,
+
+        /**
+         * Read files through a {@link FileChannel} into direct {@link ByteBuffer}s
+         */
+        CHANNEL,
+
+        /**
+         * Map files into memory in large windows, falling back to {@link ReadMode#CHANNEL} for files which can not be
+         * mapped
+         */
+        MAPPED
+    }
+
+    private final Set<BagItDigest> algorithms;
+    private final int parallelism;
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private final ThreadLocal<ByteBuffer> directBuffers =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private volatile ReadMode readMode = ReadMode.STREAM;
+    private ExecutorService executor;
+
+    /**
+     * Create a {@link BagItDigester} which uses one worker per available processor
+     *
+     * @param algorithms the algorithms to compute checksums for
+     */
+    public BagItDigester(final Set<BagItDigest> algorithms) {
+        this(algorithms, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a {@link BagItDigester} with a bounded number of workers
+     *
+     * @param algorithms the algorithms to compute checksums for
+     * @param parallelism the maximum number of threads to use when digesting
+     * @throws IllegalArgumentException if the {@code parallelism} is less than 1
+     */
+    public BagItDigester(final Set<BagItDigest> algorithms, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0: " + parallelism);
+        }
+
+        this.algorithms = algorithms.isEmpty() ? Collections.emptySet()
+                                               : Collections.unmodifiableSet(EnumSet.copyOf(algorithms));
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Get the algorithms which this {@link BagItDigester} computes
+     *
+     * @return the set of algorithms
+     */
+    public Set<BagItDigest> getAlgorithms() {
+        return algorithms;
+    }
+
+    /**
+     * Get the maximum number of threads used by this {@link BagItDigester}
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Get the {@link ReadMode} used when digesting files
+     *
+     * @return the {@link ReadMode}
+     */
+    public ReadMode getReadMode() {
+        return readMode;
+    }
+
+    /**
+     * Set the {@link ReadMode} used when digesting files. This has no effect on digesting {@link InputStream}s. The
+     * default is {@link ReadMode#STREAM}.
+     *
+     * @param readMode the {@link ReadMode} to use
+     */
+    public void setReadMode(final ReadMode readMode) {
+        this.readMode = Objects.requireNonNull(readMode);
+    }
+
+    /**
+     * Compute the checksums of a file. The file is read according to the {@link ReadMode} of this
+     * {@link BagItDigester}.
+     *
+     * @param file the file to digest
+     * @return the hex encoded checksum for each algorithm
+     * @throws IOException if there is an error reading the {@code file}
+     */
+    public Map<BagItDigest, String> digest(final Path file) throws IOException {
+        return digestFile(file, parallelism > 1 && algorithms.size() > 1);
+    }
+
+    /**
+     * Compute the checksums of an {@link InputStream}. The stream is read until it is exhausted but is not closed.
+     *
+     * @param source the {@link InputStream} to digest
+     * @return the hex encoded checksum for each algorithm
+     * @throws IOException if there is an error reading the {@code source}
+     */
+    public Map<BagItDigest, String> digest(final InputStream source) throws IOException {
+        return copy(source, null);
+    }
+
+    /**
+     * Copy the bytes of an {@link InputStream} to an {@link OutputStream}, computing the checksums of the bytes as they
+     * are copied. Neither stream is closed.
+     *
+     * @param source the {@link InputStream} to read from
+     * @param target the {@link OutputStream} to write to, or null if the bytes only need to be digested
+     * @return the hex encoded checksum for each algorithm
+     * @throws IOException if there is an error reading from the {@code source} or writing to the {@code target}
+     */
+    public Map<BagItDigest, String> copy(final InputStream source, final OutputStream target) throws IOException {
+        if (parallelism == 1 || algorithms.size() < 2) {
+            return sequentialCopy(source, target);
+        }
+
+        final Map<BagItDigest, MessageDigest> digests = messageDigests();
+        final byte[][] buffers = {new byte[BUFFER_SIZE], new byte[BUFFER_SIZE]};
+        final List<Future<?>> pending = new ArrayList<>(digests.size());
+
+        // double buffer so that the next read happens while the digests are being updated with the previous one
+        int idx = 0;
+        int read;
+        while ((read = fill(source, buffers[idx])) > 0) {
+            await(pending);
+            pending.clear();
+
+            final byte[] buffer = buffers[idx];
+            final int length = read;
+            for (MessageDigest digest : digests.values()) {
+                pending.add(executor().submit(() -> digest.update(buffer, 0, length)));
+            }
+            if (target != null) {
+                target.write(buffer, 0, length);
+            }
+            idx ^= 1;
+        }
+        await(pending);
+
+        return encode(digests);
+    }
+
+    /**
+     * Compute the checksums for a {@link Collection} of files. Up to {@code parallelism} files are digested at the same
+     * time, with each file being read once for all algorithms.
+     *
+     * @param files the files to digest
+     * @return a mapping of each file to its hex encoded checksums, in the iteration order of {@code files}
+     * @throws IOException if there is an error reading any of the {@code files}
+     */
+    public Map<Path, Map<BagItDigest, String>> digest(final Collection<Path> files) throws IOException {
+        final Map<Path, Map<BagItDigest, String>> results = new LinkedHashMap<>();
+        if (parallelism == 1) {
+            for (Path file : files) {
+                results.put(file, digestFile(file, false));
+            }
+            return results;
+        }
+
+        // bound the number of queued files so that large collections do not create a future per file up front
+        final int window = parallelism * 2;
+        final Deque<Map.Entry<Path, Future<Map<BagItDigest, String>>>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (Path file : files) {
+                if (inFlight.size() >= window) {
+                    final Map.Entry<Path, Future<Map<BagItDigest, String>>> next = inFlight.removeFirst();
+                    results.put(next.getKey(), get(next.getValue()));
+                }
+                inFlight.addLast(Map.entry(file, executor().submit(() -> digestFile(file, false))));
+            }
+
+            while (!inFlight.isEmpty()) {
+                final Map.Entry<Path, Future<Map<BagItDigest, String>>> next = inFlight.removeFirst();
+                results.put(next.getKey(), get(next.getValue()));
+            }
+        } finally {
+            inFlight.forEach(entry -> entry.getValue().cancel(true));
+        }
+
+        return results;
+    }
+
+    /**
+     * Shutdown the worker pool, if one was created
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private Map<BagItDigest, String> digestFile(final Path file, final boolean fanOut) throws IOException {
+        final ReadMode mode = readMode;
+        if (mode == ReadMode.STREAM) {
+            try (InputStream is = Files.newInputStream(file)) {
+                return fanOut ? copy(is, null) : sequentialCopy(is, null);
+            }
+        }
+
+        final Map<BagItDigest, MessageDigest> digests = messageDigests();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            if (mode == ReadMode.MAPPED && Files.isRegularFile(file)) {
+                position = mappedDigest(channel, digests, fanOut);
+            }
+
+            // read anything which could not be mapped through direct buffers
+            channelDigest(channel, position, digests, fanOut);
+        }
+        return encode(digests);
+    }
+
+    /**
+     * Update the {@code digests} with windows of a {@link FileChannel} mapped into memory
+     *
+     * @param channel the {@link FileChannel} to map
+     * @param digests the digests to update
+     * @param fanOut if each digest should be updated on a separate thread
+     * @return the position in the {@code channel} which has been digested, which will be the size of the channel
+     *         unless a window could not be mapped
+     * @throws IOException if there is an error reading the {@code channel}
+     */
+    private long mappedDigest(final FileChannel channel, final Map<BagItDigest, MessageDigest> digests,
+                              final boolean fanOut) throws IOException {
+        final long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            final long length = Math.min(MAP_WINDOW_SIZE, size - position);
+            final MappedByteBuffer window;
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.debug("Unable to map window at {}, falling back to channel reads: {}", position, e.getMessage());
+                return position;
+            }
+
+            await(update(digests, window, fanOut));
+            position += length;
+        }
+        return position;
+    }
+
+    /**
+     * Update the {@code digests} by reading a {@link FileChannel} into direct {@link ByteBuffer}s
+     *
+     * @param channel the {@link FileChannel} to read
+     * @param position the position to start reading from
+     * @param digests the digests to update
+     * @param fanOut if each digest should be updated on a separate thread
+     * @throws IOException if there is an error reading the {@code channel}
+     */
+    private void channelDigest(final FileChannel channel, final long position,
+                               final Map<BagItDigest, MessageDigest> digests, final boolean fanOut)
+        throws IOException {
+        channel.position(position);
+        final ByteBuffer[] buffers = fanOut ? new ByteBuffer[] {ByteBuffer.allocateDirect(BUFFER_SIZE),
+                                                                ByteBuffer.allocateDirect(BUFFER_SIZE)}
+                                            : new ByteBuffer[] {directBuffers.get()};
+
+        // when fanning out, the next buffer is read while the previous one is being digested
+        int idx = 0;
+        List<Future<?>> pending = Collections.emptyList();
+        while (true) {
+            final ByteBuffer buffer = buffers[idx];
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read != -1 && buffer.hasRemaining());
+            buffer.flip();
+            await(pending);
+            if (!buffer.hasRemaining()) {
+                break;
+            }
+
+            pending = update(digests, buffer, fanOut);
+            idx = (idx + 1) % buffers.length;
+        }
+    }
+
+    /**
+     * Update each digest with the remaining bytes of a {@link ByteBuffer}. Each digest is given its own view of the
+     * {@code buffer} so that the bytes are never copied onto the heap.
+     *
+     * @param digests the digests to update
+     * @param buffer the bytes to digest
+     * @param fanOut if each digest should be updated on a separate thread
+     * @return the pending updates, which must complete before the {@code buffer} is reused
+     */
+    private List<Future<?>> update(final Map<BagItDigest, MessageDigest> digests, final ByteBuffer buffer,
+                                   final boolean fanOut) {
+        if (!fanOut) {
+            digests.values().forEach(digest -> digest.update(buffer.duplicate()));
+            return Collections.emptyList();
+        }
+
+        final List<Future<?>> pending = new ArrayList<>(digests.size());
+        for (MessageDigest digest : digests.values()) {
+            final ByteBuffer view = buffer.duplicate();
+            pending.add(executor().submit(() -> digest.update(view)));
+        }
+        return pending;
+    }
+
+    private Map<BagItDigest, String> sequentialCopy(final InputStream source, final OutputStream target)
+        throws IOException {
+        final Map<BagItDigest, MessageDigest> digests = messageDigests();
+        final byte[] buffer = buffers.get();
+
+        int read;
+        while ((read = source.read(buffer)) != -1) {
+            for (MessageDigest digest : digests.values()) {
+                digest.update(buffer, 0, read);
+            }
+            if (target != null) {
+                target.write(buffer, 0, read);
+            }
+        }
+
+        return encode(digests);
+    }
+
+    private Map<BagItDigest, MessageDigest> messageDigests() {
+        final Map<BagItDigest, MessageDigest> digests = new EnumMap<>(BagItDigest.class);
+        algorithms.forEach(algorithm -> digests.put(algorithm, algorithm.messageDigest()));
+        return digests;
+    }
+
+    private static Map<BagItDigest, String> encode(final Map<BagItDigest, MessageDigest> digests) {
+        final Map<BagItDigest, String> checksums = new EnumMap<>(BagItDigest.class);
+        digests.forEach((algorithm, digest) -> checksums.put(algorithm, HexEncoder.toString(digest.digest())));
+        return checksums;
+    }
+
+    /**
+     * Read from an {@link InputStream} until the {@code buffer} is full or the stream is exhausted
+     *
+     * @param source the {@link InputStream} to read from
+     * @param buffer the buffer to fill
+     * @return the number of bytes read
+     * @throws IOException if there is an error reading from the {@code source}
+     */
+    private static int fill(final InputStream source, final byte[] buffer) throws IOException {
+        int total = 0;
+        int read;
+        while (total < buffer.length && (read = source.read(buffer, total, buffer.length - total)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+
+    private static void await(final List<Future<?>> futures) throws IOException {
+        for (Future<?> future : futures) {
+            get(future);
+        }
+    }
+
+    private static <T> T get(final Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing checksums");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            final ThreadFactory factory = runnable -> {
+                final Thread thread = new Thread(runnable, "bagit-digester-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            executor = Executors.newFixedThreadPool(parallelism, factory);
+        }
+        return executor;
+    }
+
+}
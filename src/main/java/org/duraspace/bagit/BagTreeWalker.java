@@ -0,0 +1,194 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walk the files of a bag, reading the attributes of each file once. Directories are listed and their entries are
+ * read on a pool of threads, which hides the latency of metadata calls on network file systems. The result is in a
+ * stable order: each directory is followed by its entries, sorted by name, and the entries of its subdirectories.
+ *
+ * On file systems which support posix attributes, the owner, group, and permissions are read with the other
+ * attributes so that archive entries can be created without reading them again. Symbolic links are not followed into
+ * directories, but the attributes of the file they point to are used.
+ *
+ * @since 2026-10-17
+ */
+public class BagTreeWalker {
+
+    /**
+     * The default number of threads, which is more than the number of processors because walking is bound by the
+     * latency of the file system rather than the cpu
+     */
+    public static final int DEFAULT_PARALLELISM = Math.max(8, Runtime.getRuntime().availableProcessors());
+
+    // the number of entries of a directory to read on a single thread
+    private static final int CHUNK_SIZE = 256;
+
+    private static final Comparator<Path> BY_NAME = Comparator.comparing(path -> path.getFileName().toString());
+
+    private final int parallelism;
+
+    /**
+     * A file which has been walked along with its attributes
+     */
+    public static class WalkedFile {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+
+        WalkedFile(final Path path, final BasicFileAttributes attributes) {
+            this.path = path;
+            this.attributes = attributes;
+        }
+
+        /**
+         * @return the path of the file
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * @return the attributes of the file, which are {@link PosixFileAttributes} when they are supported
+         */
+        public BasicFileAttributes getAttributes() {
+            return attributes;
+        }
+    }
+
+    /**
+     * Create a {@link BagTreeWalker} with the {@link BagTreeWalker#DEFAULT_PARALLELISM}
+     */
+    public BagTreeWalker() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Create a {@link BagTreeWalker}
+     *
+     * @param parallelism the number of threads to walk with
+     * @throws IllegalArgumentException if the {@code parallelism} is less than 1
+     */
+    public BagTreeWalker(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Walk a directory
+     *
+     * @param root the directory to walk
+     * @return every file and directory under the {@code root}, starting with the {@code root} itself
+     * @throws IOException if a directory can not be listed or the attributes of a file can not be read
+     */
+    public List<WalkedFile> walk(final Path root) throws IOException {
+        final boolean posix = root.getFileSystem().supportedFileAttributeViews().contains("posix");
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new WalkTask(List.of(root), posix));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A task which reads the attributes of a list of sibling paths and walks the directories among them
+     */
+    private static class WalkTask extends RecursiveTask<List<WalkedFile>> {
+        private final List<Path> paths;
+        private final boolean posix;
+
+        WalkTask(final List<Path> paths, final boolean posix) {
+            this.paths = paths;
+            this.posix = posix;
+        }
+
+        @Override
+        protected List<WalkedFile> compute() {
+            if (paths.size() > CHUNK_SIZE) {
+                final int mid = paths.size() / 2;
+                final WalkTask tail = new WalkTask(paths.subList(mid, paths.size()), posix);
+                tail.fork();
+                final List<WalkedFile> walked = new WalkTask(paths.subList(0, mid), posix).compute();
+                walked.addAll(tail.join());
+                return walked;
+            }
+
+            try {
+                final List<WalkedFile> files = new ArrayList<>(paths.size());
+                final List<WalkTask> subdirectories = new ArrayList<>(paths.size());
+                for (Path path : paths) {
+                    final BasicFileAttributes attributes = readAttributes(path, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isSymbolicLink()) {
+                        files.add(new WalkedFile(path, readLink(path, attributes)));
+                        subdirectories.add(null);
+                    } else if (attributes.isDirectory()) {
+                        files.add(new WalkedFile(path, attributes));
+                        final WalkTask subdirectory = new WalkTask(list(path), posix);
+                        subdirectory.fork();
+                        subdirectories.add(subdirectory);
+                    } else {
+                        files.add(new WalkedFile(path, attributes));
+                        subdirectories.add(null);
+                    }
+                }
+
+                final List<WalkedFile> walked = new ArrayList<>(files.size());
+                for (int i = 0; i < files.size(); i++) {
+                    walked.add(files.get(i));
+                    if (subdirectories.get(i) != null) {
+                        walked.addAll(subdirectories.get(i).join());
+                    }
+                }
+                return walked;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private BasicFileAttributes readAttributes(final Path path, final LinkOption... options) throws IOException {
+            return posix ? Files.readAttributes(path, PosixFileAttributes.class, options)
+                         : Files.readAttributes(path, BasicFileAttributes.class, options);
+        }
+
+        /**
+         * Read the attributes of the file a link points to, or of the link itself if the link is broken
+         */
+        private BasicFileAttributes readLink(final Path path, final BasicFileAttributes link) {
+            try {
+                return readAttributes(path);
+            } catch (IOException e) {
+                return link;
+            }
+        }
+
+        private static List<Path> list(final Path directory) throws IOException {
+            final List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                stream.forEach(children::add);
+            }
+            children.sort(BY_NAME);
+            return children;
+        }
+    }
+
+}
@@ -8,37 +8,69 @@ import static org.duraspace.bagit.profile.BagProfileConstants.UTF_8;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.security.DigestOutputStream;
-import java.security.MessageDigest;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.output.CountingOutputStream;
 
 /**
  * Utility to write BagIt bags.
  *
+ * Payload files may be added, registered, and removed from multiple threads. The payload is digested on the calling
+ * thread (or by the {@link BagItDigester}) and only the registration of its checksums is serialized.
+ *
  * @author escowles
  * @since 2016-12-15
  */
 public class BagWriter {
 
     private final File bagDir;
+    private final File dataDir;
     private final Set<BagItDigest> tagAlgorithms;
     private final Set<BagItDigest> payloadAlgorithms;
 
-    private final Map<BagItDigest, Map<File, String>> payloadRegistry;
-    private final Map<BagItDigest, Map<File, String>> tagFileRegistry;
-    private final Map<String, Map<String, String>> tagRegistry;
+    private final Map<BagItDigest, ManifestAccumulator> payloadRegistry;
+    private final Map<BagItDigest, ManifestAccumulator> tagFileRegistry;
+    private final Map<String, Map<String, List<String>>> tagRegistry;
+
+    private BagItDigester digester;
+    private PayloadJournal journal;
+    private final Map<String, Map<BagItDigest, String>> recovered = new ConcurrentHashMap<>();
+    private long manifestMemoryLimit = ManifestAccumulator.UNBOUNDED;
+    private Path spillDirectory;
 
     /**
-     * This map provides a way to retrieve all ongoing MessageDigests so that multiple checksums
-     * can easily be run and retrieved
+     * The size of the payload, counted as payload files are added and removed. Once checksums are registered for
+     * files which were not counted, the size of the payload is no longer known.
      */
-    private final Map<BagItDigest, DigestOutputStream> activeStreams;
+    private long payloadBytes;
+    private long payloadFiles;
+    private boolean payloadCounted = true;
+
+    private static final String BAGIT_TXT = "bagit.txt";
+    private static final String PAYLOAD_MANIFEST = "manifest";
+    private static final String TAG_MANIFEST = "tagmanifest";
+    private static final Pattern PAYLOAD_OXUM = Pattern.compile("(\\d+)\\.(\\d+)");
 
     /**
      * Version of the BagIt specification implemented
@@ -65,7 +97,7 @@ public class BagWriter {
     public BagWriter(final File bagDir, final Set<BagItDigest> payloadAlgorithms,
                      final Set<BagItDigest> tagAlgorithms) {
         this.bagDir = bagDir;
-        final File dataDir = new File(bagDir, "data");
+        this.dataDir = new File(bagDir, "data");
         if (!dataDir.exists()) {
             dataDir.mkdirs();
         }
@@ -76,12 +108,150 @@ public class BagWriter {
         tagFileRegistry = new HashMap<>();
         tagRegistry = new HashMap<>();
 
-        final Map<String, String> bagitValues = new TreeMap<>();
-        bagitValues.put("BagIt-Version", BAGIT_VERSION);
-        bagitValues.put("Tag-File-Character-Encoding", "UTF-8");
-        tagRegistry.put("bagit.txt", bagitValues);
+        final Map<String, List<String>> bagitValues = new LinkedHashMap<>();
+        bagitValues.put("BagIt-Version", new ArrayList<>(List.of(BAGIT_VERSION)));
+        bagitValues.put("Tag-File-Character-Encoding", new ArrayList<>(List.of("UTF-8")));
+        tagRegistry.put(BAGIT_TXT, bagitValues);
+
+        digester = new BagItDigester(payloadAlgorithms, 1);
+    }
+
+    /**
+     * Open an existing Bag so that its payload can be updated without digesting the payload files which have not
+     * changed. The payload and tag algorithms are read from the names of the existing manifests, and the checksums of
+     * the existing manifests and tag manifests are registered with the {@link BagWriter}. The existing bagit.txt and
+     * bag-info.txt are registered as tags so that they can be updated and rewritten.
+     *
+     * After payload files have been added, replaced, or removed, {@link BagWriter#write()} regenerates the manifests,
+     * bagit.txt, bag-info.txt, and tag manifests. Other tag files are only rewritten if tags are added for them,
+     * otherwise their existing checksums are used in the tag manifests.
+     *
+     * @param bagDir the root directory of the existing Bag
+     * @return the {@link BagWriter} for the Bag
+     * @throws IllegalArgumentException if the {@code bagDir} does not contain any payload manifests
+     * @throws IOException if there is an error reading the existing Bag
+     */
+    public static BagWriter open(final File bagDir) throws IOException {
+        return open(bagDir, ManifestAccumulator.UNBOUNDED, null);
+    }
+
+    /**
+     * Open an existing Bag, holding the entries of the payload manifests within a memory budget
+     *
+     * @param bagDir the root directory of the existing Bag
+     * @param manifestMemoryLimit the memory budget shared by the payload manifests, in bytes
+     * @param spillDirectory the directory to spill manifest entries to, or null to use the system temporary directory
+     * @return the {@link BagWriter} for the Bag
+     * @throws IllegalArgumentException if the {@code bagDir} does not contain any payload manifests
+     * @throws IOException if there is an error reading the existing Bag
+     * @see BagWriter#open(File)
+     * @see BagWriter#setManifestMemoryLimit(long)
+     */
+    public static BagWriter open(final File bagDir, final long manifestMemoryLimit, final Path spillDirectory)
+        throws IOException {
+        final Path bag = bagDir.toPath();
+        final Map<BagItDigest, Path> manifests = findManifests(bag, PAYLOAD_MANIFEST);
+        final Map<BagItDigest, Path> tagManifests = findManifests(bag, TAG_MANIFEST);
+        if (manifests.isEmpty()) {
+            throw new IllegalArgumentException("No payload manifests found in " + bagDir);
+        }
+
+        final BagWriter writer = new BagWriter(bagDir, manifests.keySet(), tagManifests.keySet());
+        writer.setManifestMemoryLimit(manifestMemoryLimit);
+        writer.setSpillDirectory(spillDirectory);
+
+        for (Map.Entry<BagItDigest, Path> manifest : manifests.entrySet()) {
+            final ManifestAccumulator accumulator = new ManifestAccumulator(writer.payloadManifestLimit(),
+                                                                            spillDirectory);
+            writer.payloadRegistry.put(manifest.getKey(), accumulator);
+            readManifest(manifest.getValue(), accumulator);
+        }
+        for (Map.Entry<BagItDigest, Path> tagManifest : tagManifests.entrySet()) {
+            final ManifestAccumulator accumulator = new ManifestAccumulator();
+            writer.tagFileRegistry.put(tagManifest.getKey(), accumulator);
+            readManifest(tagManifest.getValue(), accumulator);
+        }
+
+        for (String tagFile : new String[] {BAGIT_TXT, BagConfig.BAG_INFO_KEY}) {
+            final Path tags = bag.resolve(tagFile);
+            if (Files.exists(tags)) {
+                writer.tagRegistry.put(tagFile, readTags(tags));
+            }
+        }
+
+        // continue counting the payload from the existing Payload-Oxum
+        final Map<String, String> bagInfo = Objects.requireNonNullElse(writer.getTags(BagConfig.BAG_INFO_KEY),
+                                                                       Map.of());
+        final Matcher oxum = PAYLOAD_OXUM.matcher(bagInfo.getOrDefault(BagConfig.PAYLOAD_OXUM_KEY, ""));
+        if (oxum.matches()) {
+            writer.payloadBytes = Long.parseLong(oxum.group(1));
+            writer.payloadFiles = Long.parseLong(oxum.group(2));
+        } else {
+            writer.payloadCounted = false;
+        }
+
+        return writer;
+    }
+
+    /**
+     * Find the manifests of a Bag
+     *
+     * @param bag the root directory of the Bag
+     * @param prefix the prefix of the manifests to find
+     * @return a mapping of each algorithm to its manifest
+     * @throws IOException if the {@code bag} can not be listed
+     */
+    private static Map<BagItDigest, Path> findManifests(final Path bag, final String prefix) throws IOException {
+        final Pattern manifest = Pattern.compile(Pattern.quote(prefix) + "-(\\w+)\\.txt");
+        final Map<BagItDigest, Path> manifests = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(bag)) {
+            for (Path file : files) {
+                final Matcher matcher = manifest.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    manifests.put(BagItDigest.from(matcher.group(1)), file);
+                }
+            }
+        }
+        return manifests;
+    }
 
-        activeStreams = new HashMap<>();
+    /**
+     * Read the entries of a manifest into a {@link ManifestAccumulator}
+     *
+     * @param manifest the manifest to read
+     * @param accumulator the {@link ManifestAccumulator} to add entries to
+     * @throws IOException if the {@code manifest} can not be read
+     */
+    private static void readManifest(final Path manifest, final ManifestAccumulator accumulator) throws IOException {
+        try (InputStream is = Files.newInputStream(manifest)) {
+            ManifestDecoder.read(is, accumulator::put);
+        }
+    }
+
+    /**
+     * Read the fields of a tag file. Lines which are indented continue the value of the previous field. A label may be
+     * repeated, so each label maps to all of its values, and the labels are kept in the order they first appear.
+     *
+     * @param tagFile the tag file to read
+     * @return the fields of the tag file
+     * @throws IOException if the {@code tagFile} can not be read
+     */
+    private static Map<String, List<String>> readTags(final Path tagFile) throws IOException {
+        final Map<String, List<String>> tags = new LinkedHashMap<>();
+        List<String> previous = null;
+        for (String line : Files.readAllLines(tagFile, UTF_8)) {
+            if (!line.isEmpty() && Character.isWhitespace(line.charAt(0)) && previous != null) {
+                final int last = previous.size() - 1;
+                previous.set(last, previous.get(last) + " " + line.trim());
+            } else {
+                final int idx = line.indexOf(':');
+                if (idx > 0) {
+                    previous = tags.computeIfAbsent(line.substring(0, idx).trim(), label -> new ArrayList<>());
+                    previous.add(line.substring(idx + 1).trim());
+                }
+            }
+        }
+        return tags;
     }
 
     /**
@@ -93,139 +263,629 @@ public class BagWriter {
     }
 
     /**
-     * Register checksums of payload (data) files
+     * Set the {@link BagItDigester} used to compute the checksums of payload files added to the Bag. By default payload
+     * files are digested on the calling thread. A {@link BagItDigester} can be shared by multiple {@link BagWriter}s,
+     * and it is up to the caller to close it once it is no longer in use.
+     *
+     * @param digester the {@link BagItDigester} to use
+     * @throws IllegalArgumentException if the {@code digester} does not compute all the payload algorithms
+     */
+    public void setDigester(final BagItDigester digester) {
+        if (!digester.getAlgorithms().containsAll(payloadAlgorithms)) {
+            throw new IllegalArgumentException("BagItDigester does not support all payload algorithms: " +
+                                               payloadAlgorithms);
+        }
+        this.digester = digester;
+    }
+
+    /**
+     * Set the estimated amount of memory, in bytes, which the payload manifests may use to hold their entries before
+     * they are written to sorted runs on disk. The budget is split evenly between the payload algorithms, so a bag
+     * with three payload algorithms holds a third of it for each manifest. Tag manifests only list the tag files and
+     * are not counted. The runs are merged when the manifests are written, which allows bags with any number of
+     * payload files to be written with the same heap size. By default payload manifests are held entirely in memory.
+     *
+     * Once a payload manifest has been spilled to disk and written, its runs are removed and it can not be written
+     * again.
+     *
+     * @param memoryLimit the memory budget shared by the payload manifests, in bytes
+     * @throws IllegalArgumentException if the {@code memoryLimit} is not positive
+     */
+    public synchronized void setManifestMemoryLimit(final long memoryLimit) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("Memory limit must be greater than 0: " + memoryLimit);
+        }
+        this.manifestMemoryLimit = memoryLimit;
+        payloadRegistry.values().forEach(accumulator -> accumulator.setMemoryLimit(payloadManifestLimit()));
+    }
+
+    /**
+     * @return the memory limit of each payload manifest, an even share of the manifest memory limit
+     */
+    private long payloadManifestLimit() {
+        return ManifestAccumulator.split(manifestMemoryLimit, payloadAlgorithms.size());
+    }
+
+    /**
+     * Set the directory which payload manifest entries are spilled to. Defaults to the system temporary directory.
+     *
+     * @param spillDirectory the directory to write sorted runs to
+     * @see BagWriter#setManifestMemoryLimit(long)
+     */
+    public void setSpillDirectory(final Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Register checksums of payload (data) files. The checksums are copied from the {@code filemap} and replace any
+     * which were previously registered for the {@code algorithm}.
+     *
      * @param algorithm Checksum digest algorithm name (e.g., "SHA-1")
      * @param filemap Map of Files to checksum values
+     * @throws UncheckedIOException if the checksums exceed the manifest memory limit and can not be spilled to disk
      */
-    public void registerChecksums(final BagItDigest algorithm, final Map<File, String> filemap) {
+    public synchronized void registerChecksums(final BagItDigest algorithm, final Map<File, String> filemap) {
         if (!payloadAlgorithms.contains(algorithm)) {
             throw new IllegalArgumentException("Invalid algorithm: " + algorithm);
         }
-        payloadRegistry.put(algorithm, filemap);
+
+        final ManifestAccumulator accumulator = new ManifestAccumulator(payloadManifestLimit(), spillDirectory);
+        try {
+            for (Map.Entry<File, String> entry : filemap.entrySet()) {
+                accumulator.put(relativize(entry.getKey()), entry.getValue());
+            }
+        } catch (IOException e) {
+            accumulator.close();
+            throw new UncheckedIOException(e);
+        }
+
+        final ManifestAccumulator previous = payloadRegistry.put(algorithm, accumulator);
+        if (previous != null) {
+            previous.close();
+        }
+
+        // the size of the payload is unknown for checksums which were computed elsewhere
+        payloadCounted = false;
+    }
+
+    /**
+     * Add a payload file to the Bag by copying the given {@link Path} to {@code relativePath} under the data directory.
+     * If the payload file was recovered from the journal, it is neither copied nor digested again.
+     *
+     * @param source the file to copy into the Bag
+     * @param relativePath the path of the payload file relative to the data directory (e.g., "images/image0.tiff")
+     * @return the checksums computed for each of the payload algorithms
+     * @throws IOException if there is an error reading the {@code source} or writing the payload file
+     * @see BagWriter#addPayload(InputStream, String)
+     * @see BagWriter#enableJournal()
+     */
+    public Map<BagItDigest, String> addPayload(final Path source, final String relativePath) throws IOException {
+        final Map<BagItDigest, String> journaled = recovered.get(relativize(new File(dataDir, relativePath)));
+        if (journaled != null) {
+            return journaled;
+        }
+
+        try (InputStream is = Files.newInputStream(source)) {
+            return addPayload(is, relativePath);
+        }
+    }
+
+    /**
+     * Add a payload file to the Bag by copying the bytes of an {@link InputStream} to {@code relativePath} under the
+     * data directory. The checksums for all payload algorithms are computed while the bytes are being copied, so the
+     * payload is only read once, and are registered so that they will be written to the payload manifests. An
+     * existing payload file at the same location will be replaced.
+     *
+     * @param source the {@link InputStream} to read the payload from, which is not closed by this method
+     * @param relativePath the path of the payload file relative to the data directory (e.g., "images/image0.tiff")
+     * @return the checksums computed for each of the payload algorithms
+     * @throws IllegalArgumentException if the {@code relativePath} resolves to a location outside of the data directory
+     * @throws IOException if there is an error reading the {@code source} or writing the payload file
+     */
+    public Map<BagItDigest, String> addPayload(final InputStream source, final String relativePath)
+        throws IOException {
+        final Path data = dataDir.toPath().toAbsolutePath().normalize();
+        final Path target = data.resolve(relativePath).normalize();
+        if (!target.startsWith(data) || target.equals(data)) {
+            throw new IllegalArgumentException("Payload path is not within the data directory: " + relativePath);
+        }
+        Files.createDirectories(target.getParent());
+        final long replacedSize = sizeOf(target);
+
+        final Map<BagItDigest, String> checksums;
+        final long size;
+        try (CountingOutputStream out = new CountingOutputStream(Files.newOutputStream(target))) {
+            checksums = digester.copy(source, out);
+            size = out.getByteCount();
+        }
+
+        if (replacedSize < 0) {
+            registerPayload(data, target, checksums, size, 1);
+        } else {
+            registerPayload(data, target, checksums, size - replacedSize, 0);
+        }
+        return checksums;
+    }
+
+    /**
+     * Remove a payload file from the Bag. The file is deleted from the data directory and removed from the payload
+     * manifests.
+     *
+     * @param relativePath the path of the payload file relative to the data directory (e.g., "images/image0.tiff")
+     * @return true if the payload file existed and was deleted
+     * @throws IllegalArgumentException if the {@code relativePath} resolves to a location outside of the data directory
+     * @throws IOException if the payload file can not be deleted
+     */
+    public synchronized boolean removePayload(final String relativePath) throws IOException {
+        final Path data = dataDir.toPath().toAbsolutePath().normalize();
+        final Path target = data.resolve(relativePath).normalize();
+        if (!target.startsWith(data) || target.equals(data)) {
+            throw new IllegalArgumentException("Payload path is not within the data directory: " + relativePath);
+        }
+
+        final String relative = relativize(new File(dataDir, data.relativize(target).toString()));
+        for (ManifestAccumulator accumulator : payloadRegistry.values()) {
+            accumulator.remove(relative);
+        }
+        recovered.remove(relative);
+
+        final long size = sizeOf(target);
+        final boolean deleted = Files.deleteIfExists(target);
+        if (deleted && size >= 0) {
+            countPayload(-size, -1);
+        }
+        return deleted;
+    }
+
+    /**
+     * Compute and register the checksums of payload files which already exist in the data directory. The files are
+     * digested concurrently using the {@link BagItDigester} of this {@link BagWriter}. Files which were recovered from
+     * the journal are not digested again. The files are counted as new additions to the payload.
+     *
+     * @param files the payload files to register
+     * @throws IllegalArgumentException if any of the {@code files} are not within the data directory
+     * @throws IOException if there is an error reading any of the {@code files}
+     * @see BagWriter#setDigester(BagItDigester)
+     */
+    public void registerPayloadFiles(final Collection<Path> files) throws IOException {
+        registerPayloadFiles(files, null);
+    }
+
+    /**
+     * Walk the data directory with a {@link BagTreeWalker} and register every payload file in it, as
+     * {@link BagWriter#registerPayloadFiles(Collection)} does. The size of each file is taken from the attributes read
+     * during the walk so that each file is only queried once before it is digested.
+     *
+     * @throws IOException if the data directory can not be walked or a payload file can not be read
+     */
+    public void registerPayloadDirectory() throws IOException {
+        final Map<Path, Long> sizes = new LinkedHashMap<>();
+        for (BagTreeWalker.WalkedFile file : new BagTreeWalker().walk(dataDir.toPath())) {
+            if (file.getAttributes().isRegularFile()) {
+                sizes.put(file.getPath().toAbsolutePath().normalize(), file.getAttributes().size());
+            }
+        }
+        registerPayloadFiles(sizes.keySet(), sizes);
+    }
+
+    private void registerPayloadFiles(final Collection<Path> files, final Map<Path, Long> sizes) throws IOException {
+        final Path data = dataDir.toPath().toAbsolutePath().normalize();
+        final List<Path> pending = new ArrayList<>(files.size());
+        for (Path file : files) {
+            final Path normalized = file.toAbsolutePath().normalize();
+            if (!normalized.startsWith(data)) {
+                throw new IllegalArgumentException("Payload file is not within the data directory: " + file);
+            }
+
+            if (!recovered.containsKey(relativize(new File(dataDir, data.relativize(normalized).toString())))) {
+                pending.add(normalized);
+            }
+        }
+
+        for (Map.Entry<Path, Map<BagItDigest, String>> entry : digester.digest(pending).entrySet()) {
+            final Path file = entry.getKey();
+            final long size = sizes == null ? Files.size(file) : sizes.get(file);
+            registerPayload(data, file, entry.getValue(), size, 1);
+        }
+    }
+
+    /**
+     * Keep a journal of each payload file as it is digested so that a {@link BagWriter} for the same directory can
+     * resume after a failure without digesting the payload again. The journal is written to the root of the Bag and
+     * removed once the Bag has been written.
+     *
+     * If a journal already exists, each payload file it records is recovered if it still exists with the same size and
+     * last modified time. Recovered files are registered with their journaled checksums and are skipped by
+     * {@link BagWriter#addPayload(Path, String)} and {@link BagWriter#registerPayloadFiles(Collection)}.
+     *
+     * @return the number of payload files recovered from an existing journal
+     * @throws IOException if an existing journal can not be read
+     */
+    public synchronized int enableJournal() throws IOException {
+        final Path bag = bagDir.toPath();
+        final PayloadJournal payloadJournal = new PayloadJournal(bag);
+        // a payload file can be journaled more than once if it was replaced, in which case the last entry is used
+        final Map<String, PayloadJournal.Entry> replayed = new LinkedHashMap<>();
+        payloadJournal.replay(entry -> {
+            if (entry.getChecksums().keySet().containsAll(payloadAlgorithms)) {
+                replayed.put(entry.getPath(), entry);
+            }
+        });
+
+        for (PayloadJournal.Entry entry : replayed.values()) {
+            final Path payload = bag.resolve(entry.getPath());
+            if (Files.isRegularFile(payload)) {
+                final BasicFileAttributes attributes = Files.readAttributes(payload, BasicFileAttributes.class);
+                if (attributes.size() == entry.getSize() &&
+                    attributes.lastModifiedTime().toMillis() == entry.getLastModified()) {
+                    putPayload(entry.getPath(), entry.getChecksums());
+                    if (recovered.put(entry.getPath(), entry.getChecksums()) == null) {
+                        countPayload(entry.getSize(), 1);
+                    }
+                }
+            }
+        }
+
+        journal = payloadJournal;
+        return recovered.size();
+    }
+
+    /**
+     * Register the checksums of a payload file and count its size. Payload is digested outside of any lock, so this is
+     * the only point where concurrent additions to the payload need to be serialized.
+     *
+     * @param data the data directory
+     * @param target the payload file
+     * @param checksums the checksums of the payload file
+     * @param bytes the change to the number of payload bytes
+     * @param files the change to the number of payload files
+     * @throws IOException if the checksums can not be registered or journaled
+     */
+    private synchronized void registerPayload(final Path data, final Path target,
+                                              final Map<BagItDigest, String> checksums, final long bytes,
+                                              final long files) throws IOException {
+        final String relative = relativize(new File(dataDir, data.relativize(target).toString()));
+        putPayload(relative, checksums);
+        countPayload(bytes, files);
+
+        if (journal != null) {
+            final BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+            journal.append(new PayloadJournal.Entry(relative, attributes.size(),
+                                                    attributes.lastModifiedTime().toMillis(), checksums));
+        }
+    }
+
+    private void countPayload(final long bytes, final long files) {
+        payloadBytes += bytes;
+        payloadFiles += files;
+    }
+
+    /**
+     * Get the size of a file, if it exists
+     *
+     * @param file the file to get the size of
+     * @return the size of the file, or -1 if it does not exist
+     * @throws IOException if the attributes of the file can not be read
+     */
+    private static long sizeOf(final Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).size();
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    private void putPayload(final String relative, final Map<BagItDigest, String> checksums) throws IOException {
+        for (BagItDigest algorithm : payloadAlgorithms) {
+            payloadRegistry.computeIfAbsent(algorithm,
+                                            key -> new ManifestAccumulator(payloadManifestLimit(), spillDirectory))
+                           .put(relative, checksums.get(algorithm));
+        }
+    }
+
+    /**
+     * Get the path of a file relative to the Bag as it is written in a manifest
+     *
+     * @param file the file to relativize
+     * @return the relative path, using the BagIt separator
+     */
+    private String relativize(final File file) {
+        // replace all occurrences of backslashes, which are not allowed per the bagit spec
+        return bagDir.toPath().relativize(file.toPath()).toString().replace('\\', '/');
     }
 
     /**
      * Add tags (metadata) to the Bag. If the {@code key} already exists, the {@code values} will be appended to the
-     * existing entry.
+     * existing entry. A field which already exists is replaced, including every value of a field which is repeated.
+     *
+     * While the size of the payload is counted, a Payload-Oxum or Bag-Size added to bag-info.txt is replaced by the
+     * counted value when the Bag is written. See {@link BagWriter#write()}.
      *
      * @param key Filename of the tag file (e.g., "bag-info.txt")
      * @param values Map containing field/value pairs
      */
-    public void addTags(final String key, final Map<String, String> values) {
-        final Map<String, String> tagValues = tagRegistry.computeIfAbsent(key, k -> new HashMap<>());
-        tagValues.putAll(values);
+    public synchronized void addTags(final String key, final Map<String, String> values) {
+        final Map<String, List<String>> tagValues = tagRegistry.computeIfAbsent(key, k -> new LinkedHashMap<>());
+        values.forEach((label, value) -> tagValues.put(label, new ArrayList<>(List.of(value))));
+    }
+
+    /**
+     * Get the current tag (metadata) of the Bag. Only the first value of a field which is repeated is included, see
+     * {@link BagWriter#getTagValues(String)} for every value.
+     *
+     * @param key Filename of the tag file (e.g., "bag-info.txt")
+     * @return Map of field/value pairs, or null if there are no tags for the {@code key}
+     */
+    public synchronized Map<String, String> getTags(final String key) {
+        final Map<String, List<String>> tagValues = tagRegistry.get(key);
+        if (tagValues == null) {
+            return null;
+        }
+
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tagValues.forEach((label, values) -> tags.put(label, values.get(0)));
+        return tags;
     }
 
     /**
-     * Get the current tag (metadata) of the Bag
+     * Get every value of the current tags (metadata) of the Bag, in the order they are written
+     *
      * @param key Filename of the tag file (e.g., "bag-info.txt")
-     * @return Map of field/value pairs
+     * @return Map of each field to its values, or null if there are no tags for the {@code key}
      */
-    public Map<String, String> getTags(final String key) {
-        return tagRegistry.get(key);
+    public synchronized Map<String, List<String>> getTagValues(final String key) {
+        final Map<String, List<String>> tagValues = tagRegistry.get(key);
+        if (tagValues == null) {
+            return null;
+        }
+
+        final Map<String, List<String>> tags = new LinkedHashMap<>();
+        tagValues.forEach((label, values) -> tags.put(label, List.copyOf(values)));
+        return tags;
     }
 
     /**
      * Write metadata and finalize Bag
+     *
+     * If every payload file was added, registered, or removed through this writer, the Payload-Oxum and Bag-Size of
+     * bag-info.txt are set from the size of the payload counted while it was being hashed, replacing any values added
+     * with {@link BagWriter#addTags(String, Map)}. Otherwise the values which were added are written unchanged.
+     *
      * @throws IOException when an I/O error occurs
      */
-    public void write() throws IOException {
-        writeManifests("manifest", payloadRegistry, true);
-        for (String tagFile : tagRegistry.keySet()) {
-            writeTagFile(tagFile);
+    public synchronized void write() throws IOException {
+        addGeneratedTags();
+
+        for (Map.Entry<File, WriteTask> manifest : payloadManifestTasks().entrySet()) {
+            addTagChecksums(manifest.getKey(), manifest.getValue().write());
+        }
+        for (Map.Entry<File, WriteTask> tagFile : tagFileTasks().entrySet()) {
+            addTagChecksums(tagFile.getKey(), tagFile.getValue().write());
+        }
+        for (WriteTask tagManifest : tagManifestTasks().values()) {
+            tagManifest.write();
         }
-        writeManifests("tagmanifest", tagFileRegistry, false);
+
+        finish();
     }
 
     /**
-     * Write a manifest to a bag. Can be either a payload or tag manifest, and uses the {@code registry} in order to
-     * determine what BagItDigests to write manifests for.
+     * Write metadata and finalize the Bag without blocking the calling thread. The payload manifests are written in
+     * parallel on the {@code executor}, one task per algorithm. Once they are complete the tag files are written in
+     * parallel, followed by the tag manifests.
      *
-     * @param prefix the name of the manifest to write
-     * @param registry the files to write for a given digest
-     * @param registerToTags flag to check if the hash of the output should be stored in the {@code tagFileRegistry}
-     * @throws IOException if there's an error writing to the OutputStream
+     * The payload and tags of the Bag must not be modified until the returned {@link CompletableFuture} completes. If
+     * writing fails, the {@link CompletableFuture} completes exceptionally with an {@link UncheckedIOException} wrapping
+     * the cause.
+     *
+     * @param executor the {@link Executor} to write the files of the Bag on
+     * @return a {@link CompletableFuture} which completes once the Bag has been written
+     * @see BagWriter#write()
      */
-    private void writeManifests(final String prefix, final Map<BagItDigest, Map<File, String>> registry,
-                                final boolean registerToTags) throws IOException {
-        final String delimiter = "  ";
-        final char backslash = '\\';
-        final char bagitSeparator = '/';
-        final Path bag = bagDir.toPath();
+    public CompletableFuture<Void> writeAsync(final Executor executor) {
+        synchronized (this) {
+            addGeneratedTags();
+        }
 
-        for (final BagItDigest algorithm : registry.keySet()) {
-            final Map<File, String> filemap = registry.get(algorithm);
-            if (filemap != null) {
-                final File manifest = new File(bagDir, prefix + "-" + algorithm.bagitName() + ".txt");
-                try (OutputStream out = streamFor(manifest.toPath())) {
-                    for (final File payload : filemap.keySet()) {
-                        // replace all occurrences of backslashes, which are not allowed per the bagit spec
-                        final String relative = bag.relativize(payload.toPath()).toString()
-                                                   .replace(backslash, bagitSeparator);
-                        final String line = filemap.get(payload) + delimiter + relative;
-                        out.write(line.getBytes(UTF_8));
-                        out.write("\n".getBytes(UTF_8));
-                    }
+        return writeAll(payloadManifestTasks(), executor)
+            .thenCompose(manifests -> {
+                addTagChecksums(manifests);
+                return writeAll(tagFileTasks(), executor);
+            })
+            .thenCompose(tagFiles -> {
+                addTagChecksums(tagFiles);
+                return writeAll(tagManifestTasks(), executor);
+            })
+            .thenRun(() -> {
+                try {
+                    finish();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+            });
+    }
 
-                // now that the stream is finished being written to, register the checksum if required
-                if (registerToTags) {
-                    for (Map.Entry<BagItDigest, DigestOutputStream> entry : activeStreams.entrySet()) {
-                        addTagChecksum(entry.getKey(), manifest, entry.getValue().getMessageDigest());
-                    }
-                }
-                activeStreams.clear();
-            }
+    /**
+     * Write a file of the Bag, returning the checksums of the file for each of the {@code tagAlgorithms}
+     */
+    @FunctionalInterface
+    private interface WriteTask {
+        Map<BagItDigest, String> write() throws IOException;
+    }
+
+    /**
+     * Format a size for the Bag-Size of bag-info.txt, e.g. 1.9 GB, with one decimal place for sizes of a kilobyte or
+     * more
+     *
+     * @param bytes the size in bytes
+     * @return the formatted size
+     */
+    public static String formatBagSize(final long bytes) {
+        if (bytes < 1024) {
+            return bytes + " bytes";
+        }
+
+        final String[] units = {"KB", "MB", "GB", "TB", "PB", "EB"};
+        double size = bytes / 1024.0;
+        int unit = 0;
+        while (size >= 1024 && unit < units.length - 1) {
+            size /= 1024;
+            unit++;
         }
+        return String.format(Locale.ROOT, "%.1f %s", size, units[unit]);
     }
 
-    private void writeTagFile(final String key) throws IOException {
-        final Map<String, String> values = tagRegistry.get(key);
-        if (values != null) {
-            final File f = new File(bagDir, key);
+    private void addGeneratedTags() {
+        if (payloadCounted) {
+            final Map<String, String> generated = new HashMap<>();
+            generated.put(BagConfig.PAYLOAD_OXUM_KEY, payloadBytes + "." + payloadFiles);
+            generated.put(BagConfig.BAG_SIZE_KEY, formatBagSize(payloadBytes));
+            addTags(BagConfig.BAG_INFO_KEY, generated);
+        }
+    }
 
-            try (OutputStream out = streamFor(f.toPath())) {
-                for (final String field : values.keySet()) {
-                    final byte[] bytes = (field + ": " + values.get(field) + "\n").getBytes(UTF_8);
-                    out.write(bytes);
-                }
+    private void finish() throws IOException {
+        // the bag is complete, so the journal is no longer needed
+        if (journal != null) {
+            journal.delete();
+            journal = null;
+            recovered.clear();
+        } else {
+            Files.deleteIfExists(bagDir.toPath().resolve(PayloadJournal.FILENAME));
+        }
+    }
+
+    /**
+     * Run each {@link WriteTask} on an {@link Executor}
+     *
+     * @param tasks the tasks to run, keyed by the file they write
+     * @param executor the {@link Executor} to run the tasks on
+     * @return a {@link CompletableFuture} of the checksums of each file, which completes once every task is complete
+     */
+    private static CompletableFuture<Map<File, Map<BagItDigest, String>>> writeAll(final Map<File, WriteTask> tasks,
+                                                                                  final Executor executor) {
+        final Map<File, CompletableFuture<Map<BagItDigest, String>>> futures = new LinkedHashMap<>();
+        tasks.forEach((file, task) -> futures.put(file, CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor)));
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            final Map<File, Map<BagItDigest, String>> checksums = new LinkedHashMap<>();
+            futures.forEach((file, future) -> checksums.put(file, future.join()));
+            return checksums;
+        });
+    }
+
+    private Map<File, WriteTask> payloadManifestTasks() {
+        return manifestTasks(PAYLOAD_MANIFEST, payloadRegistry);
+    }
+
+    private Map<File, WriteTask> tagManifestTasks() {
+        return manifestTasks(TAG_MANIFEST, tagFileRegistry);
+    }
+
+    /**
+     * Create a task to write each manifest of a registry. Can be either a payload or tag manifest, and uses the
+     * {@code registry} in order to determine what BagItDigests to write manifests for.
+     *
+     * @param prefix the name of the manifests to write
+     * @param registry the files to write for a given digest
+     * @return the tasks, keyed by the manifest they write
+     */
+    private Map<File, WriteTask> manifestTasks(final String prefix,
+                                               final Map<BagItDigest, ManifestAccumulator> registry) {
+        final Map<File, WriteTask> tasks = new LinkedHashMap<>();
+        for (final Map.Entry<BagItDigest, ManifestAccumulator> entry : registry.entrySet()) {
+            final ManifestAccumulator entries = entry.getValue();
+            if (entries != null) {
+                final File manifest = new File(bagDir, prefix + "-" + entry.getKey().bagitName() + ".txt");
+                tasks.put(manifest, () -> writeManifest(manifest, entries));
             }
+        }
+        return tasks;
+    }
 
-            for (Map.Entry<BagItDigest, DigestOutputStream> entry : activeStreams.entrySet()) {
-                addTagChecksum(entry.getKey(), f, entry.getValue().getMessageDigest());
+    private Map<File, WriteTask> tagFileTasks() {
+        final Map<File, WriteTask> tasks = new LinkedHashMap<>();
+        for (final Map.Entry<String, Map<String, List<String>>> entry : tagRegistry.entrySet()) {
+            final Map<String, List<String>> values = entry.getValue();
+            if (values != null) {
+                final File tagFile = new File(bagDir, entry.getKey());
+                tasks.put(tagFile, () -> writeTagFile(tagFile, values));
             }
         }
+        return tasks;
+    }
+
+    /**
+     * Write a manifest to a bag
+     *
+     * @param manifest the manifest to write
+     * @param entries the entries of the manifest
+     * @return the checksums of the manifest for each of the {@code tagAlgorithms}
+     * @throws IOException if there's an error writing to the OutputStream
+     */
+    private Map<BagItDigest, String> writeManifest(final File manifest, final ManifestAccumulator entries)
+        throws IOException {
+        final MultiDigestOutputStream out = streamFor(manifest.toPath());
+        try (ManifestEncoder encoder = new ManifestEncoder(out)) {
+            entries.forEach((relative, checksum) -> encoder.writeManifestLine(checksum, relative));
+        }
 
-        activeStreams.clear();
+        // runs which were spilled to disk are no longer needed once the manifest is written
+        if (entries.isSpilled()) {
+            entries.close();
+        }
+        return out.getDigests();
+    }
+
+    private Map<BagItDigest, String> writeTagFile(final File tagFile, final Map<String, List<String>> values)
+        throws IOException {
+        final MultiDigestOutputStream out = streamFor(tagFile.toPath());
+        try (ManifestEncoder encoder = new ManifestEncoder(out)) {
+            for (final Map.Entry<String, List<String>> field : values.entrySet()) {
+                for (final String value : field.getValue()) {
+                    encoder.writeTagLine(field.getKey(), value);
+                }
+            }
+        }
+        return out.getDigests();
     }
 
     /**
-     * Create an {@link OutputStream} for a given {@link Path} which can be used to write data to the file.
-     * This wraps the returned {@link OutputStream} with {@link DigestOutputStream}s in order to create a checksum
-     * for the file as it is being written. There is one {@link DigestOutputStream} per {@link BagItDigest} in this
-     * classes registered {@code tagAlgorithms}. Each {@link DigestOutputStream} is stored in the {@code activeStreams}
-     * so that it can be retrieved later on.
+     * Create an {@link OutputStream} for a given {@link Path} which can be used to write data to the file. The returned
+     * {@link MultiDigestOutputStream} computes a checksum for each of the {@code tagAlgorithms} as the file is being
+     * written, which are available once it has been closed.
      *
      * @param file the {@link Path} to create an {@link OutputStream} for
-     * @return the {@link OutputStream}
+     * @return the {@link MultiDigestOutputStream}
      * @throws IOException if there is an error creating the {@link OutputStream}
      */
-    private OutputStream streamFor(final Path file) throws IOException {
-        OutputStream lastStream = Files.newOutputStream(file);
+    private MultiDigestOutputStream streamFor(final Path file) throws IOException {
         // All hashing we do here is for tagmanifests, so use the tagAlgorithms to determine what hash algorithms to use
-        for (BagItDigest algorithm : tagAlgorithms) {
-            final DigestOutputStream dos = new DigestOutputStream(lastStream, algorithm.messageDigest());
-            activeStreams.put(algorithm, dos);
-            lastStream = dos;
-        }
+        return new MultiDigestOutputStream(Files.newOutputStream(file), tagAlgorithms);
+    }
 
-        return lastStream;
+    private void addTagChecksums(final Map<File, Map<BagItDigest, String>> checksums) {
+        try {
+            for (Map.Entry<File, Map<BagItDigest, String>> entry : checksums.entrySet()) {
+                addTagChecksums(entry.getKey(), entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private void addTagChecksum(final BagItDigest algorithm, final File f, final MessageDigest digest) {
-        if (digest != null) {
-            final Map<File, String> m = tagFileRegistry.computeIfAbsent(algorithm, key -> new HashMap<>());
-            m.put(f, HexEncoder.toString(digest.digest()));
+    private synchronized void addTagChecksums(final File f, final Map<BagItDigest, String> digests)
+        throws IOException {
+        for (Map.Entry<BagItDigest, String> digest : digests.entrySet()) {
+            final ManifestAccumulator m = tagFileRegistry.computeIfAbsent(digest.getKey(),
+                                                                          key -> new ManifestAccumulator());
+            m.put(relativize(f), digest.getValue());
         }
     }
 }
@@ -0,0 +1,136 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of verifying the payload of a bag against its manifests with a {@link FixityVerifier}. The bag is valid
+ * when every payload file matched each manifest it was checked against and every file listed in a manifest was found.
+ *
+ * @since 2026-10-17
+ */
+public class FixityResult {
+
+    private final List<Failure> failures;
+    private final long files;
+
+    /**
+     * A payload file which did not match a manifest
+     */
+    public static class Failure {
+        private final String path;
+        private final BagItDigest algorithm;
+        private final String expected;
+        private final String actual;
+
+        /**
+         * Create a {@link Failure}
+         *
+         * @param path the path of the payload file relative to the bag
+         * @param algorithm the algorithm of the manifest
+         * @param expected the checksum in the manifest, or null if the file is not listed in the manifest
+         * @param actual the computed checksum, or null if the file was not found
+         */
+        public Failure(final String path, final BagItDigest algorithm, final String expected, final String actual) {
+            this.path = path;
+            this.algorithm = algorithm;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        /**
+         * @return the path of the payload file relative to the bag
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the algorithm of the manifest
+         */
+        public BagItDigest getAlgorithm() {
+            return algorithm;
+        }
+
+        /**
+         * @return the checksum in the manifest, or null if the file is not listed in the manifest
+         */
+        public String getExpected() {
+            return expected;
+        }
+
+        /**
+         * @return the computed checksum, or null if the file was not found
+         */
+        public String getActual() {
+            return actual;
+        }
+
+        /**
+         * @return true if the file is listed in the manifest but was not found
+         */
+        public boolean isMissing() {
+            return actual == null;
+        }
+
+        /**
+         * @return true if the file was found but is not listed in the manifest
+         */
+        public boolean isUnexpected() {
+            return expected == null;
+        }
+
+        @Override
+        public String toString() {
+            if (isMissing()) {
+                return path + " is listed in manifest-" + algorithm.bagitName() + ".txt but was not found";
+            } else if (isUnexpected()) {
+                return path + " is not listed in manifest-" + algorithm.bagitName() + ".txt";
+            }
+            return path + " has " + algorithm.bagitName() + " checksum " + actual + " but " + expected +
+                   " was expected";
+        }
+    }
+
+    /**
+     * Create a {@link FixityResult}
+     *
+     * @param failures the failures found while verifying the payload
+     * @param files the number of payload files which were digested
+     */
+    public FixityResult(final List<Failure> failures, final long files) {
+        this.failures = Collections.unmodifiableList(failures);
+        this.files = files;
+    }
+
+    /**
+     * @return true if no failures were found
+     */
+    public boolean isValid() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * @return the failures found while verifying the payload
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the number of payload files which were digested
+     */
+    public long getFiles() {
+        return files;
+    }
+
+    @Override
+    public String toString() {
+        return "FixityResult{valid=" + isValid() + ", files=" + files + ", failures=" + failures + "}";
+    }
+
+}
@@ -0,0 +1,332 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.duraspace.bagit.exception.FixityException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Verifies payload files against the manifests of a bag as the files are read, so that fixity can be checked while
+ * the payload is copied somewhere else instead of reading it a second time.
+ *
+ * Streams returned by {@link FixityVerifier#verify(String, InputStream)} digest everything read through them and
+ * check the file once the end of the stream is reached. A file is checked against the manifests which have been added
+ * at that point; checksums for algorithms whose manifest has not been added yet are held until it is added with
+ * {@link FixityVerifier#addManifest(BagItDigest, InputStream)}. The failures found are available from
+ * {@link FixityVerifier#getResult()}, which also reports files listed in a manifest which were never read.
+ *
+ * Instances are thread safe, so payload files can be verified concurrently.
+ *
+ * @since 2026-10-17
+ */
+public class FixityVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(FixityVerifier.class);
+
+    private static final Pattern MANIFEST = Pattern.compile("manifest-(\\w+)\\.txt");
+
+    private final Set<BagItDigest> algorithms;
+    private final Map<BagItDigest, Map<String, String>> manifests = new EnumMap<>(BagItDigest.class);
+    private final Map<String, Map<BagItDigest, String>> pending = new HashMap<>();
+    private final List<FixityResult.Failure> failures = new ArrayList<>();
+    private long files;
+    private boolean failFast;
+
+    /**
+     * Create a {@link FixityVerifier}
+     *
+     * @param algorithms the algorithms to digest payload files with
+     * @throws IllegalArgumentException if no {@code algorithms} are given
+     */
+    public FixityVerifier(final Set<BagItDigest> algorithms) {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one algorithm is required to verify fixity");
+        }
+        this.algorithms = Collections.unmodifiableSet(EnumSet.copyOf(algorithms));
+    }
+
+    /**
+     * Create a {@link FixityVerifier} for the payload manifests of a bag on disk. Every payload manifest is added, and
+     * payload files are digested with each of their algorithms.
+     *
+     * @param bag the root directory of the bag
+     * @return the {@link FixityVerifier}
+     * @throws IOException if the manifests can not be read
+     * @throws IllegalArgumentException if the {@code bag} does not contain any payload manifests
+     */
+    public static FixityVerifier forBag(final Path bag) throws IOException {
+        final Map<BagItDigest, Path> manifests = new EnumMap<>(BagItDigest.class);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(bag)) {
+            for (Path file : files) {
+                final BagItDigest algorithm = manifestAlgorithm(file.getFileName().toString());
+                if (algorithm != null) {
+                    manifests.put(algorithm, file);
+                }
+            }
+        }
+
+        if (manifests.isEmpty()) {
+            throw new IllegalArgumentException("No payload manifests found in " + bag);
+        }
+
+        final FixityVerifier verifier = new FixityVerifier(manifests.keySet());
+        for (Map.Entry<BagItDigest, Path> manifest : manifests.entrySet()) {
+            try (InputStream is = Files.newInputStream(manifest.getValue())) {
+                verifier.addManifest(manifest.getKey(), is);
+            }
+        }
+        return verifier;
+    }
+
+    /**
+     * Get the algorithm of a payload manifest from its name
+     *
+     * @param name the name of the file, without any directories
+     * @return the algorithm of the manifest, or null if the {@code name} is not a payload manifest
+     */
+    public static BagItDigest manifestAlgorithm(final String name) {
+        final Matcher matcher = MANIFEST.matcher(name);
+        if (matcher.matches()) {
+            try {
+                return BagItDigest.from(matcher.group(1));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unsupported manifest algorithm: {}", name);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the algorithms payload files are digested with
+     */
+    public Set<BagItDigest> getAlgorithms() {
+        return algorithms;
+    }
+
+    /**
+     * Set if a {@link FixityException} is thrown as soon as a payload file does not match a manifest. Otherwise
+     * failures are only collected into the {@link FixityResult}.
+     *
+     * @param failFast true to throw on the first failure
+     */
+    public synchronized void setFailFast(final boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * Add a payload manifest. Payload files which have already been digested with its algorithm are checked against
+     * it immediately. Manifests for algorithms which payload files are not digested with are skipped.
+     *
+     * @param algorithm the algorithm of the manifest
+     * @param manifest the contents of the manifest
+     * @throws IOException if the manifest can not be read
+     * @throws FixityException if failing fast and a payload file which has been read does not match the manifest
+     */
+    public void addManifest(final BagItDigest algorithm, final InputStream manifest) throws IOException {
+        if (!algorithms.contains(algorithm)) {
+            logger.warn("Skipping manifest-{}.txt which is not being verified", algorithm.bagitName());
+            return;
+        }
+
+        final Map<String, String> entries = new HashMap<>();
+        ManifestDecoder.read(manifest, entries::put);
+
+        final List<FixityResult.Failure> found = new ArrayList<>();
+        synchronized (this) {
+            manifests.computeIfAbsent(algorithm, key -> new HashMap<>()).putAll(entries);
+
+            final Iterator<Map.Entry<String, Map<BagItDigest, String>>> held = pending.entrySet().iterator();
+            while (held.hasNext()) {
+                final Map.Entry<String, Map<BagItDigest, String>> file = held.next();
+                final String actual = file.getValue().remove(algorithm);
+                if (actual != null) {
+                    check(file.getKey(), algorithm, actual, found);
+                }
+                if (file.getValue().isEmpty()) {
+                    held.remove();
+                }
+            }
+        }
+        failed(found);
+    }
+
+    /**
+     * Wrap the {@link InputStream} of a payload file so that it is digested as it is read and verified once the end of
+     * the stream is reached. The stream must be read to the end for the file to be verified.
+     *
+     * @param path the path of the payload file relative to the bag, e.g. data/file.txt
+     * @param in the contents of the payload file
+     * @return the verifying {@link InputStream}
+     */
+    public InputStream verify(final String path, final InputStream in) {
+        return new VerifyingInputStream(path, in);
+    }
+
+    /**
+     * Verify the checksums of a payload file which were computed elsewhere
+     *
+     * @param path the path of the payload file relative to the bag
+     * @param checksums the hex encoded checksums of the file
+     * @throws FixityException if failing fast and the file does not match a manifest
+     */
+    public void verify(final String path, final Map<BagItDigest, String> checksums) throws FixityException {
+        final List<FixityResult.Failure> found = new ArrayList<>();
+        synchronized (this) {
+            files++;
+            for (Map.Entry<BagItDigest, String> checksum : checksums.entrySet()) {
+                if (manifests.containsKey(checksum.getKey())) {
+                    check(path, checksum.getKey(), checksum.getValue(), found);
+                } else {
+                    pending.computeIfAbsent(path, key -> new EnumMap<>(BagItDigest.class))
+                           .put(checksum.getKey(), checksum.getValue());
+                }
+            }
+        }
+        failed(found);
+    }
+
+    /**
+     * Get the result of verifying the payload files which have been read so far. Files listed in a manifest which
+     * have not been read are reported as missing. Checksums held for algorithms without a manifest are skipped, unless
+     * no manifest was added at all, in which case every file which was read is reported as not being in a manifest.
+     *
+     * @return the {@link FixityResult}
+     */
+    public synchronized FixityResult getResult() {
+        final List<FixityResult.Failure> result = new ArrayList<>(failures);
+        manifests.forEach((algorithm, entries) -> entries.forEach(
+            (path, expected) -> result.add(new FixityResult.Failure(path, algorithm, expected, null))));
+
+        if (manifests.isEmpty()) {
+            pending.forEach((path, checksums) -> checksums.forEach(
+                (algorithm, actual) -> result.add(new FixityResult.Failure(path, algorithm, null, actual))));
+        }
+        return new FixityResult(result, files);
+    }
+
+    /**
+     * Check a checksum against a manifest, removing the entry from the manifest so that files which are never read can
+     * be found afterwards
+     */
+    private void check(final String path, final BagItDigest algorithm, final String actual,
+                       final List<FixityResult.Failure> found) {
+        final String expected = manifests.get(algorithm).remove(path);
+        if (expected == null || !expected.equalsIgnoreCase(actual)) {
+            final FixityResult.Failure failure = new FixityResult.Failure(path, algorithm, expected, actual);
+            logger.debug("Fixity failure: {}", failure);
+            failures.add(failure);
+            found.add(failure);
+        }
+    }
+
+    private void failed(final List<FixityResult.Failure> found) throws FixityException {
+        final boolean fail;
+        final long checked;
+        synchronized (this) {
+            fail = failFast;
+            checked = files;
+        }
+        if (fail && !found.isEmpty()) {
+            throw new FixityException(new FixityResult(found, checked));
+        }
+    }
+
+    /**
+     * Digests a payload file as it is read, verifying it at the end of the stream
+     */
+    private class VerifyingInputStream extends FilterInputStream {
+        private final String path;
+        private final MultiDigestOutputStream digests;
+        private boolean finished;
+
+        VerifyingInputStream(final String path, final InputStream in) {
+            super(in);
+            this.path = path;
+            this.digests = new MultiDigestOutputStream(NullOutputStream.INSTANCE, algorithms);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b == -1) {
+                finish();
+            } else {
+                digests.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            final int read = super.read(bytes, offset, length);
+            if (read == -1) {
+                finish();
+            } else {
+                digests.write(bytes, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            // skipped bytes still need to be digested
+            final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                final int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(final int readLimit) {
+            // marks are not supported as the bytes would be digested twice
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            digests.close();
+            verify(path, digests.getDigests());
+        }
+    }
+
+}
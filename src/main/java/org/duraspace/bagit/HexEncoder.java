@@ -4,6 +4,8 @@
  */
 package org.duraspace.bagit;
 
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
 /**
  * Simple encoder to convert a byte array to a hex string.
  *
@@ -18,16 +20,44 @@ package org.duraspace.bagit;
  */
 public class HexEncoder {
 
-    private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+    private static final byte[] hexDigits = "0123456789abcdef".getBytes(ISO_8859_1);
+
+    /**
+     * The two hex digits for every byte value, so that each byte is encoded with a single lookup
+     */
+    private static final byte[] hexPairs = new byte[512];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            hexPairs[2 * i] = hexDigits[i >>> 4];
+            hexPairs[2 * i + 1] = hexDigits[i & 0xf];
+        }
+    }
 
     private HexEncoder() {
     }
 
     protected static String toString(final byte[] bytes) {
-        final StringBuilder sb = new StringBuilder(2 * bytes.length);
+        final byte[] hex = new byte[2 * bytes.length];
+        encode(bytes, hex, 0);
+        return new String(hex, ISO_8859_1);
+    }
+
+    /**
+     * Encode a byte array as lowercase hex directly into a destination array
+     *
+     * @param bytes the bytes to encode
+     * @param destination the array to write the hex digits to
+     * @param offset the position in the {@code destination} to start writing at
+     * @return the position in the {@code destination} after the last hex digit
+     */
+    protected static int encode(final byte[] bytes, final byte[] destination, final int offset) {
+        int position = offset;
         for (byte b : bytes) {
-            sb.append(hexDigits[(b >> 4) & 0xf]).append(hexDigits[b & 0xf]);
+            final int pair = (b & 0xff) << 1;
+            destination[position++] = hexPairs[pair];
+            destination[position++] = hexPairs[pair + 1];
         }
-        return sb.toString();
+        return position;
     }
 }
@@ -0,0 +1,496 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accumulate the entries of a single manifest (relative path and checksum) within a fixed memory budget. Entries are
+ * held in memory until the estimated size of the entries exceeds the budget, at which point they are written to a
+ * sorted run in a temporary file. When the entries are read back they are merged from all runs, so entries are always
+ * returned sorted by path regardless of how many runs were written.
+ *
+ * If the same path is added more than once, the most recent checksum is used. Removing a path records a tombstone so
+ * that it is also removed from any runs which have already been written.
+ *
+ * So that only a bounded number of runs are open at once, runs are merged as they are written: once a number of runs
+ * of the same size exist, they are merged into a single larger run. Any runs which remain past the limit are merged
+ * before the entries are read.
+ *
+ * @since 2026-10-17
+ */
+public class ManifestAccumulator implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManifestAccumulator.class);
+
+    /**
+     * A memory limit which never spills entries to disk
+     */
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
+    /**
+     * Estimated number of bytes used by a map entry and its two Strings, not including their characters
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /**
+     * The default number of runs which are merged at once
+     */
+    static final int DEFAULT_FAN_IN = 64;
+
+    private static final String TOMBSTONE = "";
+
+    private final List<Run> runs = new ArrayList<>();
+    private final Path spillDirectory;
+    private final int fanIn;
+
+    private TreeMap<String, String> entries = new TreeMap<>();
+    private long memoryLimit;
+    private long memoryUsed;
+    private boolean closed;
+
+    /**
+     * Consumer for manifest entries which can throw an {@link IOException}
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Accept a manifest entry
+         *
+         * @param path the path of the entry, relative to the bag
+         * @param checksum the hex encoded checksum of the entry
+         * @throws IOException if the entry can not be handled
+         */
+        void accept(String path, String checksum) throws IOException;
+    }
+
+    /**
+     * Create a {@link ManifestAccumulator} which holds all entries in memory
+     */
+    public ManifestAccumulator() {
+        this(UNBOUNDED, null);
+    }
+
+    /**
+     * Create a {@link ManifestAccumulator} which spills to disk when its entries exceed a memory limit
+     *
+     * @param memoryLimit the estimated number of bytes of entries to hold in memory
+     * @param spillDirectory the directory to write sorted runs to, or null to use the default temporary directory
+     */
+    public ManifestAccumulator(final long memoryLimit, final Path spillDirectory) {
+        this(memoryLimit, spillDirectory, DEFAULT_FAN_IN);
+    }
+
+    /**
+     * Create a {@link ManifestAccumulator} with a limit on the number of runs which are merged at once
+     *
+     * @param memoryLimit the estimated number of bytes of entries to hold in memory
+     * @param spillDirectory the directory to write sorted runs to, or null to use the default temporary directory
+     * @param fanIn the number of runs to merge at once, at least 2
+     */
+    ManifestAccumulator(final long memoryLimit, final Path spillDirectory, final int fanIn) {
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("Fan in must be at least 2: " + fanIn);
+        }
+        this.spillDirectory = spillDirectory;
+        this.fanIn = fanIn;
+        setMemoryLimit(memoryLimit);
+    }
+
+    /**
+     * Split a memory budget between the manifests of a bag, so that together they stay within it
+     *
+     * @param memoryLimit the memory budget of all of the manifests, in bytes
+     * @param manifests the number of manifests
+     * @return the memory limit of each manifest, in bytes
+     */
+    public static long split(final long memoryLimit, final int manifests) {
+        if (memoryLimit == UNBOUNDED || manifests <= 1) {
+            return memoryLimit;
+        }
+        return Math.max(1, memoryLimit / manifests);
+    }
+
+    /**
+     * Update the memory limit. If the entries held in memory exceed the new limit, they will be spilled on the next
+     * call to {@link ManifestAccumulator#put(String, String)}.
+     *
+     * @param memoryLimit the estimated number of bytes of entries to hold in memory
+     * @throws IllegalArgumentException if the {@code memoryLimit} is not positive
+     */
+    public void setMemoryLimit(final long memoryLimit) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("Memory limit must be greater than 0: " + memoryLimit);
+        }
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Add an entry, replacing the checksum of any previous entry for the same {@code path}
+     *
+     * @param path the path of the entry, relative to the bag
+     * @param checksum the hex encoded checksum
+     * @throws IllegalArgumentException if the {@code checksum} is null or empty
+     * @throws IOException if the entries need to be spilled and the run can not be written
+     */
+    public void put(final String path, final String checksum) throws IOException {
+        if (checksum == null || checksum.isEmpty()) {
+            throw new IllegalArgumentException("Missing checksum for " + path);
+        }
+        add(path, checksum);
+    }
+
+    /**
+     * Remove the entry for a {@code path}
+     *
+     * @param path the path of the entry, relative to the bag
+     * @throws IOException if the entries need to be spilled and the run can not be written
+     */
+    public void remove(final String path) throws IOException {
+        if (runs.isEmpty()) {
+            final String removed = entries.remove(path);
+            if (removed != null) {
+                memoryUsed -= estimate(path, removed);
+            }
+        } else {
+            add(path, TOMBSTONE);
+        }
+    }
+
+    /**
+     * Check if any entries have been spilled to disk
+     *
+     * @return true if at least one sorted run has been written
+     */
+    public boolean isSpilled() {
+        return !runs.isEmpty();
+    }
+
+    /**
+     * Iterate over all entries in order of their path
+     *
+     * @param consumer the {@link EntryConsumer} to pass each entry to
+     * @throws IOException if a run can not be read, or if thrown by the {@code consumer}
+     */
+    public void forEach(final EntryConsumer consumer) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("ManifestAccumulator has been closed");
+        }
+
+        if (runs.isEmpty()) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                consumer.accept(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+
+        // leave room for the entries held in memory
+        while (runs.size() >= fanIn) {
+            mergeRuns(0, fanIn);
+        }
+
+        final List<Cursor> cursors = new ArrayList<>(runs.size() + 1);
+        try {
+            // newer runs have a higher rank so that they take precedence when the same path exists in multiple runs
+            for (int i = 0; i < runs.size(); i++) {
+                cursors.add(new RunCursor(runs.get(i).path, i));
+            }
+            cursors.add(new MemoryCursor(entries, runs.size()));
+            merge(cursors, false, consumer);
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Remove all entries and any sorted runs which have been written
+     */
+    public void clear() {
+        deleteRuns();
+        entries = new TreeMap<>();
+        memoryUsed = 0;
+    }
+
+    /**
+     * Delete any sorted runs which have been written. The {@link ManifestAccumulator} can not be read once it has been
+     * closed.
+     */
+    @Override
+    public void close() {
+        deleteRuns();
+        entries = new TreeMap<>();
+        memoryUsed = 0;
+        closed = true;
+    }
+
+    private void add(final String path, final String checksum) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("ManifestAccumulator has been closed");
+        }
+
+        final String previous = entries.put(path, checksum);
+        if (previous != null) {
+            memoryUsed -= estimate(path, previous);
+        }
+        memoryUsed += estimate(path, checksum);
+
+        if (memoryUsed > memoryLimit) {
+            spill();
+        }
+    }
+
+    private void spill() throws IOException {
+        final Path run = createRun();
+        logger.debug("Spilling {} manifest entries to {}", entries.size(), run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(run);
+            throw e;
+        }
+
+        runs.add(new Run(run, 0));
+        entries = new TreeMap<>();
+        memoryUsed = 0;
+
+        // runs get older and larger towards the start of the list, so runs of the same level are always the newest
+        int newest = runs.size() - fanIn;
+        while (newest >= 0 && runs.get(newest).level == runs.get(runs.size() - 1).level) {
+            mergeRuns(newest, runs.size());
+            newest = runs.size() - fanIn;
+        }
+    }
+
+    /**
+     * Merge a range of runs into a single run which takes their place. Tombstones are kept unless the range includes
+     * the oldest run, as they may still hide entries in older runs.
+     *
+     * @param from the index of the first run to merge
+     * @param to the index after the last run to merge
+     * @throws IOException if the runs can not be merged
+     */
+    private void mergeRuns(final int from, final int to) throws IOException {
+        final List<Run> merging = runs.subList(from, to);
+        final Path merged = createRun();
+        logger.debug("Merging {} manifest runs into {}", merging.size(), merged);
+
+        final List<Cursor> cursors = new ArrayList<>(merging.size());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(merged)))) {
+            for (int i = 0; i < merging.size(); i++) {
+                cursors.add(new RunCursor(merging.get(i).path, i));
+            }
+            merge(cursors, from > 0, (path, checksum) -> {
+                writeString(out, path);
+                writeString(out, checksum);
+            });
+        } catch (IOException e) {
+            Files.deleteIfExists(merged);
+            throw e;
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+
+        final int level = merging.stream().mapToInt(run -> run.level).max().orElse(0) + 1;
+        for (Run run : merging) {
+            delete(run.path);
+        }
+        merging.clear();
+        runs.add(from, new Run(merged, level));
+    }
+
+    /**
+     * Merge sorted cursors, passing the newest entry for each path to the {@code consumer}
+     *
+     * @param cursors the cursors to merge, where a higher rank is newer
+     * @param keepTombstones true to pass tombstones to the {@code consumer}
+     * @param consumer the {@link EntryConsumer}
+     * @throws IOException if a cursor can not be read, or if thrown by the {@code consumer}
+     */
+    private static void merge(final List<Cursor> cursors, final boolean keepTombstones,
+                              final EntryConsumer consumer) throws IOException {
+        final PriorityQueue<Cursor> queue = new PriorityQueue<>((a, b) -> {
+            final int compare = a.path.compareTo(b.path);
+            return compare != 0 ? compare : Integer.compare(b.rank, a.rank);
+        });
+        for (Cursor cursor : cursors) {
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            final Cursor newest = queue.poll();
+            final String path = newest.path;
+            final String checksum = newest.checksum;
+            if (newest.advance()) {
+                queue.add(newest);
+            }
+
+            // skip older versions of the same path
+            while (!queue.isEmpty() && queue.peek().path.equals(path)) {
+                final Cursor older = queue.poll();
+                if (older.advance()) {
+                    queue.add(older);
+                }
+            }
+
+            if (keepTombstones || !TOMBSTONE.equals(checksum)) {
+                consumer.accept(path, checksum);
+            }
+        }
+    }
+
+    private Path createRun() throws IOException {
+        return spillDirectory == null ? Files.createTempFile("manifest-run", ".bin")
+                                      : Files.createTempFile(spillDirectory, "manifest-run", ".bin");
+    }
+
+    /**
+     * Write a string as its length followed by its UTF-8 bytes, which unlike {@link DataOutputStream#writeUTF(String)}
+     * is not limited to 65535 bytes
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void deleteRuns() {
+        for (Run run : runs) {
+            delete(run.path);
+        }
+        runs.clear();
+    }
+
+    private static void delete(final Path run) {
+        try {
+            Files.deleteIfExists(run);
+        } catch (IOException e) {
+            logger.warn("Unable to delete manifest run {}", run, e);
+        }
+    }
+
+    private static long estimate(final String path, final String checksum) {
+        return ENTRY_OVERHEAD + 2L * (path.length() + checksum.length());
+    }
+
+    /**
+     * A sorted run written to disk, and the number of times its entries have been merged
+     */
+    private static class Run {
+        private final Path path;
+        private final int level;
+
+        Run(final Path path, final int level) {
+            this.path = path;
+            this.level = level;
+        }
+    }
+
+    /**
+     * A sorted source of entries which is merged with other sources
+     */
+    private abstract static class Cursor implements AutoCloseable {
+        private final int rank;
+        protected String path;
+        protected String checksum;
+
+        Cursor(final int rank) {
+            this.rank = rank;
+        }
+
+        /**
+         * Move to the next entry
+         *
+         * @return true if there is an entry, false if this cursor is exhausted
+         * @throws IOException if the entry can not be read
+         */
+        abstract boolean advance() throws IOException;
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class MemoryCursor extends Cursor {
+        private final Iterator<Map.Entry<String, String>> iterator;
+
+        MemoryCursor(final TreeMap<String, String> entries, final int rank) {
+            super(rank);
+            this.iterator = entries.entrySet().iterator();
+        }
+
+        @Override
+        boolean advance() {
+            if (iterator.hasNext()) {
+                final Map.Entry<String, String> entry = iterator.next();
+                path = entry.getKey();
+                checksum = entry.getValue();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class RunCursor extends Cursor {
+        private final DataInputStream in;
+
+        RunCursor(final Path run, final int rank) throws IOException {
+            super(rank);
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            try {
+                path = readString(in);
+            } catch (EOFException e) {
+                return false;
+            }
+            checksum = readString(in);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.warn("Unable to close manifest run", e);
+            }
+        }
+    }
+
+}
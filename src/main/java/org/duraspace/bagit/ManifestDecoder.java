@@ -0,0 +1,96 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.duraspace.bagit.profile.BagProfileConstants.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Read the lines of payload and tag manifests, the counterpart of {@link ManifestEncoder}. Each line is a checksum,
+ * one or more whitespace characters, and the path of a file relative to the bag. Everything after the whitespace
+ * which follows the checksum is the path, so a path which ends with whitespace is kept as is, and the percent encoding
+ * of line breaks and '%' required by the BagIt spec is reversed.
+ *
+ * @since 2026-10-17
+ */
+public final class ManifestDecoder {
+
+    private ManifestDecoder() {
+    }
+
+    /**
+     * Read each entry of a manifest. The {@code manifest} is not closed. Lines without a path are skipped.
+     *
+     * @param manifest the contents of the manifest
+     * @param consumer the {@link ManifestAccumulator.EntryConsumer} to pass each path and lower case checksum to
+     * @throws IOException if the manifest can not be read, or the {@code consumer} throws an {@link IOException}
+     */
+    public static void read(final InputStream manifest, final ManifestAccumulator.EntryConsumer consumer)
+        throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(manifest, UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final int length = line.length();
+            int start = 0;
+            while (start < length && isLinearWhitespace(line.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < length && !isLinearWhitespace(line.charAt(end))) {
+                end++;
+            }
+            int path = end;
+            while (path < length && isLinearWhitespace(line.charAt(path))) {
+                path++;
+            }
+
+            if (end > start && path > end && path < length) {
+                consumer.accept(decodePath(line.substring(path)), line.substring(start, end).toLowerCase());
+            }
+        }
+    }
+
+    /**
+     * Reverse the percent encoding of a path in a manifest. Only %0A, %0D, and %25 are decoded, any other '%' is
+     * taken literally.
+     *
+     * @param path the path as it is written in the manifest
+     * @return the decoded path
+     */
+    public static String decodePath(final String path) {
+        int percent = path.indexOf('%');
+        if (percent < 0) {
+            return path;
+        }
+
+        final StringBuilder decoded = new StringBuilder(path.length());
+        int from = 0;
+        while (percent >= 0) {
+            decoded.append(path, from, percent);
+            final String code = path.regionMatches(true, percent + 1, "0A", 0, 2) ? "\n"
+                              : path.regionMatches(true, percent + 1, "0D", 0, 2) ? "\r"
+                              : path.regionMatches(true, percent + 1, "25", 0, 2) ? "%"
+                              : null;
+            if (code == null) {
+                decoded.append('%');
+                from = percent + 1;
+            } else {
+                decoded.append(code);
+                from = percent + 3;
+            }
+            percent = path.indexOf('%', from);
+        }
+        return decoded.append(path, from, path.length()).toString();
+    }
+
+    private static boolean isLinearWhitespace(final char c) {
+        return c == ' ' || c == '\t';
+    }
+
+}
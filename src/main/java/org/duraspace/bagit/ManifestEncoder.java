@@ -0,0 +1,240 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encode the lines of manifests and tag files as UTF-8 into a single reusable buffer. Characters are encoded directly
+ * into the buffer rather than by building a {@link String} for each line and calling {@link String#getBytes}, so
+ * writing an entry does not allocate. The buffer is written to the underlying {@link OutputStream} only when it is
+ * full, which also means the {@link OutputStream} receives a few large writes instead of one or two per line.
+ *
+ * Unpaired surrogates are replaced with '?', matching the behavior of {@link String#getBytes}. Line breaks and '%' in
+ * the paths of manifest lines are percent encoded as required by the BagIt spec, see {@link ManifestDecoder}.
+ *
+ * @since 2026-10-17
+ */
+public class ManifestEncoder implements Closeable {
+
+    /**
+     * The default size of the buffer
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The maximum number of bytes a single char (or surrogate pair) is encoded to
+     */
+    private static final int MAX_CHAR_BYTES = 4;
+
+    private static final byte[] MANIFEST_DELIMITER = {' ', ' '};
+    private static final byte[] TAG_DELIMITER = {':', ' '};
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private long lines;
+
+    /**
+     * Create a {@link ManifestEncoder} with the default buffer size
+     *
+     * @param out the {@link OutputStream} to write encoded lines to
+     */
+    public ManifestEncoder(final OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a {@link ManifestEncoder}
+     *
+     * @param out the {@link OutputStream} to write encoded lines to
+     * @param bufferSize the size of the buffer
+     * @throws IllegalArgumentException if the {@code bufferSize} is too small to hold a single character
+     */
+    public ManifestEncoder(final OutputStream out, final int bufferSize) {
+        if (bufferSize < MAX_CHAR_BYTES) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MAX_CHAR_BYTES + ": " + bufferSize);
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Write a manifest line: the hex encoded checksum, two spaces, and the percent encoded path relative to the bag
+     *
+     * @param checksum the hex encoded checksum
+     * @param path the path of the file relative to the bag
+     * @throws IOException if the buffer can not be written
+     */
+    public void writeManifestLine(final String checksum, final String path) throws IOException {
+        writeString(checksum);
+        writeBytes(MANIFEST_DELIMITER);
+        writeString(encodePath(path));
+        writeNewline();
+    }
+
+    /**
+     * Write a manifest line for a digest which has not been hex encoded yet
+     *
+     * @param digest the digest of the file
+     * @param path the path of the file relative to the bag
+     * @throws IOException if the buffer can not be written
+     */
+    public void writeManifestLine(final byte[] digest, final String path) throws IOException {
+        if (2 * digest.length > buffer.length - position) {
+            drain();
+        }
+
+        if (2 * digest.length <= buffer.length) {
+            position = HexEncoder.encode(digest, buffer, position);
+        } else {
+            writeString(HexEncoder.toString(digest));
+        }
+        writeBytes(MANIFEST_DELIMITER);
+        writeString(encodePath(path));
+        writeNewline();
+    }
+
+    /**
+     * Percent encode the line breaks and '%' of a path so that it can be written on a single manifest line
+     *
+     * @param path the path of the file relative to the bag
+     * @return the encoded path
+     */
+    private static String encodePath(final String path) {
+        for (int i = 0; i < path.length(); i++) {
+            final char c = path.charAt(i);
+            if (c == '%' || c == '\n' || c == '\r') {
+                return path.replace("%", "%25").replace("\n", "%0A").replace("\r", "%0D");
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Write a tag file line: the label, a colon and space, and the value
+     *
+     * @param label the label of the tag
+     * @param value the value of the tag
+     * @throws IOException if the buffer can not be written
+     */
+    public void writeTagLine(final String label, final String value) throws IOException {
+        writeString(label);
+        writeBytes(TAG_DELIMITER);
+        writeString(value);
+        writeNewline();
+    }
+
+    /**
+     * Get the number of lines which have been written
+     *
+     * @return the number of lines
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Write any buffered bytes and flush the underlying {@link OutputStream}
+     *
+     * @throws IOException if the buffer can not be written
+     */
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (OutputStream closing = out) {
+            drain();
+        }
+    }
+
+    private void writeNewline() throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = '\n';
+        lines++;
+    }
+
+    private void writeBytes(final byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            drain();
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeString(final String value) throws IOException {
+        final int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (buffer.length - position < MAX_CHAR_BYTES) {
+                drain();
+            }
+
+            // copy a run of ascii, bounded by the space left in the buffer
+            final byte[] bytes = buffer;
+            final int end = Math.min(length, i + bytes.length - position);
+            int offset = position;
+            while (i < end) {
+                final char c = value.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                bytes[offset++] = (byte) c;
+                i++;
+            }
+            position = offset;
+
+            if (i < end && buffer.length - position >= MAX_CHAR_BYTES) {
+                i = writeChar(value, i);
+            }
+        }
+    }
+
+    /**
+     * Encode a non-ascii char, or a surrogate pair, at an index of a String. The buffer must have at least
+     * {@link ManifestEncoder#MAX_CHAR_BYTES} remaining.
+     *
+     * @param value the String to encode from
+     * @param index the index of the char to encode
+     * @return the index of the next char to encode
+     */
+    private int writeChar(final String value, final int index) {
+        final char c = value.charAt(index);
+        if (c < 0x800) {
+            buffer[position++] = (byte) (0xc0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                   && Character.isLowSurrogate(value.charAt(index + 1))) {
+            final int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            return index + 2;
+        } else if (Character.isSurrogate(c)) {
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xe0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            buffer[position++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return index + 1;
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A buffered {@link OutputStream} which computes the digests of everything written to it for any number of
+ * {@link BagItDigest}s. Writes are collected into a single block, and each full block is passed to every
+ * {@link MessageDigest} and then to the underlying {@link OutputStream} with one call each. This replaces a chain of
+ * {@link java.security.DigestOutputStream}s, where every small write passes through each digest and reaches the
+ * underlying stream separately.
+ *
+ * The hex encoded digests are available from {@link MultiDigestOutputStream#getDigests()} once the stream has been
+ * closed. Instances are not thread safe, but each one holds its own digests so separate streams can be written
+ * concurrently.
+ *
+ * @since 2026-10-17
+ */
+public class MultiDigestOutputStream extends OutputStream {
+
+    /**
+     * The default size of the block which is buffered before updating the digests
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final Map<BagItDigest, MessageDigest> digests = new EnumMap<>(BagItDigest.class);
+    private final byte[] block;
+    private int position;
+    private Map<BagItDigest, String> results;
+
+    /**
+     * Create a {@link MultiDigestOutputStream} with the default block size
+     *
+     * @param out the {@link OutputStream} to write to
+     * @param algorithms the algorithms to compute digests for
+     */
+    public MultiDigestOutputStream(final OutputStream out, final Set<BagItDigest> algorithms) {
+        this(out, algorithms, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a {@link MultiDigestOutputStream}
+     *
+     * @param out the {@link OutputStream} to write to
+     * @param algorithms the algorithms to compute digests for
+     * @param blockSize the number of bytes to buffer before updating the digests
+     * @throws IllegalArgumentException if the {@code blockSize} is not positive
+     */
+    public MultiDigestOutputStream(final OutputStream out, final Set<BagItDigest> algorithms, final int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be greater than 0: " + blockSize);
+        }
+        this.out = out;
+        this.block = new byte[blockSize];
+        algorithms.forEach(algorithm -> digests.put(algorithm, algorithm.messageDigest()));
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (position == block.length) {
+            drain();
+        }
+        block[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        ensureOpen();
+        if (length >= block.length) {
+            // large writes skip the block entirely
+            drain();
+            update(bytes, offset, length);
+            return;
+        }
+
+        if (length > block.length - position) {
+            drain();
+        }
+        System.arraycopy(bytes, offset, block, position, length);
+        position += length;
+    }
+
+    /**
+     * Write the buffered block and flush the underlying {@link OutputStream}. The digests are updated with the block
+     * but are not finished.
+     *
+     * @throws IOException if the block can not be written
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Write the buffered block, close the underlying {@link OutputStream}, and finish the digests
+     *
+     * @throws IOException if the block can not be written or the underlying {@link OutputStream} can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (results != null) {
+            return;
+        }
+
+        try (OutputStream closing = out) {
+            drain();
+        }
+
+        final Map<BagItDigest, String> finished = new EnumMap<>(BagItDigest.class);
+        digests.forEach((algorithm, digest) -> finished.put(algorithm, HexEncoder.toString(digest.digest())));
+        results = Collections.unmodifiableMap(finished);
+    }
+
+    /**
+     * Get the hex encoded digest of everything written to this stream for each algorithm
+     *
+     * @return the digests
+     * @throws IllegalStateException if the stream has not been closed
+     */
+    public Map<BagItDigest, String> getDigests() {
+        if (results == null) {
+            throw new IllegalStateException("Digests are not available until the stream is closed");
+        }
+        return results;
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            update(block, 0, position);
+            position = 0;
+        }
+    }
+
+    private void update(final byte[] bytes, final int offset, final int length) throws IOException {
+        for (MessageDigest digest : digests.values()) {
+            digest.update(bytes, offset, length);
+        }
+        out.write(bytes, offset, length);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (results != null) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.duraspace.bagit.profile.BagProfileConstants.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only journal of the payload files which have been digested by a {@link BagWriter}. Each line of the
+ * journal records the path of a payload file relative to the bag, its size, its last modified time, and its checksums,
+ * separated by tabs. The journal is flushed after every entry so that a {@link BagWriter} which is restarted after
+ * failing can recover the checksums of payload files which have not changed. An entry is only complete once its
+ * terminating newline has been written, so an entry cut short by a failure is never replayed.
+ *
+ * @since 2026-10-17
+ */
+class PayloadJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadJournal.class);
+
+    /**
+     * The name of the journal file in the bag directory
+     */
+    static final String FILENAME = ".bagwriter-journal";
+
+    private static final String SEPARATOR = "\t";
+    private static final String CHECKSUM_SEPARATOR = "=";
+    private static final Pattern SPLIT = Pattern.compile(SEPARATOR);
+    private static final Pattern HEX = Pattern.compile("[0-9a-fA-F]+");
+    private static final Map<BagItDigest, Integer> HEX_LENGTHS = new EnumMap<>(BagItDigest.class);
+
+    static {
+        for (BagItDigest algorithm : BagItDigest.values()) {
+            HEX_LENGTHS.put(algorithm, algorithm.messageDigest().getDigestLength() * 2);
+        }
+    }
+
+    private final Path journal;
+    private BufferedWriter writer;
+
+    /**
+     * A payload file recorded in the journal
+     */
+    static class Entry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final Map<BagItDigest, String> checksums;
+
+        Entry(final String path, final long size, final long lastModified,
+              final Map<BagItDigest, String> checksums) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksums = checksums;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        Map<BagItDigest, String> getChecksums() {
+            return checksums;
+        }
+    }
+
+    /**
+     * Create a journal for a bag
+     *
+     * @param bag the root directory of the bag
+     */
+    PayloadJournal(final Path bag) {
+        this.journal = bag.resolve(FILENAME);
+    }
+
+    /**
+     * Read every complete entry in the journal. Entries which can not be parsed, or which are not terminated by a
+     * newline such as a partial entry written before a failure, are skipped.
+     *
+     * @param consumer the consumer to pass each entry to
+     * @throws IOException if the journal can not be read
+     */
+    void replay(final Consumer<Entry> consumer) throws IOException {
+        if (Files.notExists(journal)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(journal, UTF_8)) {
+            final StringBuilder line = new StringBuilder();
+            int read;
+            while ((read = reader.read()) != -1) {
+                if (read != '\n') {
+                    line.append((char) read);
+                    continue;
+                }
+
+                final Entry entry = parse(line.toString());
+                if (entry == null) {
+                    logger.warn("Skipping incomplete journal entry: {}", line);
+                } else {
+                    consumer.accept(entry);
+                }
+                line.setLength(0);
+            }
+
+            if (line.length() > 0) {
+                logger.warn("Skipping unterminated journal entry: {}", line);
+            }
+        }
+    }
+
+    /**
+     * Append an entry to the journal and flush it
+     *
+     * @param entry the entry to append
+     * @throws IOException if the entry can not be written
+     */
+    synchronized void append(final Entry entry) throws IOException {
+        if (writer == null) {
+            final boolean unterminated = endsUnterminated();
+            writer = Files.newBufferedWriter(journal, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (unterminated) {
+                // keep a partial entry from a failure separate from the entries which follow it
+                writer.write('\n');
+            }
+        }
+
+        final StringBuilder line = new StringBuilder();
+        line.append(encode(entry.path))
+            .append(SEPARATOR).append(entry.size)
+            .append(SEPARATOR).append(entry.lastModified);
+        entry.checksums.forEach((algorithm, checksum) -> line.append(SEPARATOR)
+                                                             .append(algorithm.bagitName())
+                                                             .append(CHECKSUM_SEPARATOR)
+                                                             .append(checksum));
+        writer.write(line.append('\n').toString());
+        writer.flush();
+    }
+
+    /**
+     * Close and remove the journal
+     *
+     * @throws IOException if the journal can not be removed
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(journal);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private boolean endsUnterminated() throws IOException {
+        if (Files.notExists(journal)) {
+            return false;
+        }
+
+        try (SeekableByteChannel channel = Files.newByteChannel(journal)) {
+            if (channel.size() == 0) {
+                return false;
+            }
+            final ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            return last.get(0) != '\n';
+        }
+    }
+
+    private static Entry parse(final String line) {
+        final String[] fields = SPLIT.split(line);
+        if (fields.length < 4) {
+            return null;
+        }
+
+        try {
+            final Map<BagItDigest, String> checksums = new EnumMap<>(BagItDigest.class);
+            for (int i = 3; i < fields.length; i++) {
+                final int idx = fields[i].indexOf(CHECKSUM_SEPARATOR);
+                if (idx < 1) {
+                    return null;
+                }
+
+                // a checksum cut short or corrupted must not be trusted
+                final BagItDigest algorithm = BagItDigest.from(fields[i].substring(0, idx));
+                final String checksum = fields[i].substring(idx + 1);
+                if (checksum.length() != HEX_LENGTHS.get(algorithm) || !HEX.matcher(checksum).matches()) {
+                    return null;
+                }
+                checksums.put(algorithm, checksum);
+            }
+            return new Entry(decode(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]), checksums);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String encode(final String path) {
+        return path.replace("%", "%25").replace("\t", "%09").replace("\n", "%0A").replace("\r", "%0D");
+    }
+
+    private static String decode(final String path) {
+        return path.replace("%0D", "\r").replace("%0A", "\n").replace("%09", "\t").replace("%25", "%");
+    }
+
+}
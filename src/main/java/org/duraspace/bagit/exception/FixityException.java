@@ -0,0 +1,38 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.exception;
+
+import java.io.IOException;
+
+import org.duraspace.bagit.FixityResult;
+
+/**
+ * Thrown when the payload of a bag does not match its manifests while it is being copied
+ *
+ * @since 2026-10-17
+ */
+public class FixityException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient FixityResult result;
+
+    /**
+     * Create a {@link FixityException}
+     *
+     * @param result the {@link FixityResult} holding the failures which were found
+     */
+    public FixityException(final FixityResult result) {
+        super("Payload does not match the manifests: " + result.getFailures());
+        this.result = result;
+    }
+
+    /**
+     * @return the {@link FixityResult} holding the failures which were found
+     */
+    public FixityResult getResult() {
+        return result;
+    }
+}
@@ -6,7 +6,11 @@ package org.duraspace.bagit.profile;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -66,6 +70,24 @@ public class ProfileValidationUtil {
         validate(profileSection, requiredFields, fields, Collections.emptySet());
     }
 
+    /**
+     * Validates the contents of a {@code tag} file, e.g. one read from a serialized bag, against a set of
+     * {@code requiredFields} and their constrained values. The {@code tag} is not closed.
+     *
+     * @param profileSection describes the section of the profile that is being validated.
+     * @param requiredFields the required fields and associated rule
+     * @param tag the contents of the info file
+     * @throws IOException when the {@code tag} cannot be read
+     * @throws ProfileValidationException when the fields do not pass muster. The exception message contains a
+     *         description of all validation errors found.
+     */
+    public static void validate(final String profileSection, final Map<String, ProfileFieldRule> requiredFields,
+                                final InputStream tag) throws ProfileValidationException, IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(tag, StandardCharsets.UTF_8));
+        final Map<String, String> fields = readInfo(reader.lines());
+        validate(profileSection, requiredFields, fields, Collections.emptySet());
+    }
+
     /**
      * Validates the {@code fields} against a set of {@code requiredFields} and their constrained values. This is
      * intended to be used in conjunction with {@link BagConfig} and will filter on certain fields defined by the
@@ -144,6 +166,25 @@ public class ProfileValidationUtil {
      */
     public static String validateManifest(final Set<Manifest> manifests, final Set<String> required,
                                           final Set<String> allowed, final String type) {
+        final Set<String> algorithms = new HashSet<>();
+        for (final Manifest manifest : manifests) {
+            algorithms.add(manifest.getAlgorithm().getBagitName());
+        }
+        return validateManifestAlgorithms(algorithms, required, allowed, type);
+    }
+
+    /**
+     * Validate that the algorithms of the manifests found in a {@link gov.loc.repository.bagit.domain.Bag} are allowed
+     * according to both the {@code required} and {@code allowed} sets from a {@link BagProfile}.
+     *
+     * @param algorithms the BagIt names of the manifest algorithms, e.g. sha256
+     * @param required the set of required manifest algorithms
+     * @param allowed the set of allowed manifest algorithms
+     * @param type the type of manifest being processed, normally 'tag' or 'payload'
+     * @return A String with any validation errors associated with the {@code algorithms}
+     */
+    public static String validateManifestAlgorithms(final Set<String> algorithms, final Set<String> required,
+                                                    final Set<String> allowed, final String type) {
         final String missing = "Missing %s manifest algorithm: %s\n";
         final String unsupported = "Unsupported %s manifest algorithm: %s\n";
         final StringBuilder errors = new StringBuilder();
@@ -151,8 +192,7 @@ public class ProfileValidationUtil {
         // make a copy so we do not mutate the BagProfile
         final Set<String> requiredCopy = new HashSet<>(required);
 
-        for (final Manifest manifest : manifests) {
-            final String algorithm = manifest.getAlgorithm().getBagitName();
+        for (final String algorithm : algorithms) {
             requiredCopy.remove(algorithm);
 
             if (!allowed.isEmpty() && !allowed.contains(algorithm)) {
@@ -212,25 +252,35 @@ public class ProfileValidationUtil {
      */
     private static Map<String, String> readInfo(final Path info) throws IOException {
         logger.debug("Trying to read info file {}", info);
+        try (Stream<String> lines = Files.lines(info)) {
+            return readInfo(lines);
+        }
+    }
+
+    /**
+     * Read the lines of an info file
+     *
+     * @param lines the lines of the info file
+     * @return a mapping of keys to values read from the info file
+     */
+    private static Map<String, String> readInfo(final Stream<String> lines) {
         final Pattern colon = Pattern.compile(":");
         final Pattern space = Pattern.compile("^\\s+");
         final Map<String, String> data = new HashMap<>();
         final AtomicReference<String> previousKey = new AtomicReference<>("");
 
         // if a line starts indented, it is part of the previous key so we track what key we're working on
-        try (Stream<String> lines = Files.lines(info)) {
-            lines.forEach(line -> {
-                if (space.matcher(line).find()) {
-                    data.merge(previousKey.get(), line.trim(), String::concat);
-                } else {
-                    final String[] split = colon.split(line, 2);
-                    final String key = split[0].trim();
-                    final String value = split[1].trim();
-                    previousKey.set(key);
-                    data.put(key, value);
-                }
-            });
-        }
+        lines.forEach(line -> {
+            if (space.matcher(line).find()) {
+                data.merge(previousKey.get(), line.trim(), String::concat);
+            } else {
+                final String[] split = colon.split(line, 2);
+                final String key = split[0].trim();
+                final String value = split[1].trim();
+                previousKey.set(key);
+                data.put(key, value);
+            }
+        });
 
         return data;
     }
@@ -0,0 +1,426 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static org.duraspace.bagit.serialize.SerializationSupport.GZIP_TYPES;
+import static org.duraspace.bagit.serialize.SerializationSupport.TAR_TYPES;
+import static org.duraspace.bagit.serialize.SerializationSupport.ZIP_TYPES;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.function.IOConsumer;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.duraspace.bagit.BagConfig;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.BagItDigester;
+import org.duraspace.bagit.BagWriter;
+import org.duraspace.bagit.ManifestAccumulator;
+import org.duraspace.bagit.ManifestEncoder;
+import org.duraspace.bagit.MultiDigestOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write a BagIt bag directly into a tar, tar+gzip, or zip archive without writing the bag to disk first. Each payload
+ * file is digested as it is copied into the archive. When the {@link ArchiveBagWriter} is closed, the payload manifests,
+ * bagit.txt, bag-info.txt, any other tag files, and the tag manifests are appended to the archive.
+ *
+ * As with {@link BagWriter}, the Payload-Oxum and Bag-Size of bag-info.txt are computed from the payload which was
+ * added, replacing any values added with {@link #addTags(String, Map)}. Each payload file must only be added once.
+ *
+ * @since 2026-10-17
+ */
+public class ArchiveBagWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveBagWriter.class);
+
+    private static final String BAGIT_TXT = "bagit.txt";
+    private static final String DATA_DIR = "data/";
+
+    /**
+     * Tag files and manifests up to this size are held in memory until their size is known
+     */
+    private static final int SPOOL_THRESHOLD = 1024 * 1024;
+
+    private final String contentType;
+    private final String bagName;
+    private final Set<BagItDigest> payloadAlgorithms;
+    private final Set<BagItDigest> tagAlgorithms;
+    private final ArchiveOutputStream<ArchiveEntry> archive;
+
+    private final Map<BagItDigest, ManifestAccumulator> payloadRegistry = new EnumMap<>(BagItDigest.class);
+    private final Map<String, Map<String, String>> tagRegistry = new HashMap<>();
+    private final Set<String> directories = new HashSet<>();
+
+    private BagItDigester digester;
+    private Path spillDirectory;
+    private long manifestMemoryLimit = ManifestAccumulator.UNBOUNDED;
+    private long payloadBytes;
+    private long payloadFiles;
+    private boolean closed;
+
+    /**
+     * Create an {@link ArchiveBagWriter} which uses the same algorithms for the payload and tag manifests
+     *
+     * @param out the {@link OutputStream} to write the archive to
+     * @param contentType the content type of the archive, in either its short (zip, tar, tgz) or long form
+     * @param bagName the name of the top level directory of the bag within the archive
+     * @param algorithms the algorithms to use for the payload and tag manifests
+     * @throws UnsupportedOperationException if the {@code contentType} is not supported
+     */
+    public ArchiveBagWriter(final OutputStream out, final String contentType, final String bagName,
+                            final Set<BagItDigest> algorithms) {
+        this(out, contentType, bagName, algorithms, algorithms);
+    }
+
+    /**
+     * Create an {@link ArchiveBagWriter}
+     *
+     * @param out the {@link OutputStream} to write the archive to
+     * @param contentType the content type of the archive, in either its short (zip, tar, tgz) or long form
+     * @param bagName the name of the top level directory of the bag within the archive
+     * @param payloadAlgorithms the algorithms to use for the payload manifests
+     * @param tagAlgorithms the algorithms to use for the tag manifests
+     * @throws UnsupportedOperationException if the {@code contentType} is not supported
+     * @throws UncheckedIOException if the gzip header can not be written
+     */
+    public ArchiveBagWriter(final OutputStream out, final String contentType, final String bagName,
+                            final Set<BagItDigest> payloadAlgorithms, final Set<BagItDigest> tagAlgorithms) {
+        this.contentType = SerializationSupport.commonType(contentType);
+        this.bagName = bagName;
+        this.payloadAlgorithms = payloadAlgorithms;
+        this.tagAlgorithms = tagAlgorithms;
+        this.digester = new BagItDigester(payloadAlgorithms, 1);
+        this.archive = openArchive(out);
+
+        final Map<String, String> bagitValues = new TreeMap<>();
+        bagitValues.put("BagIt-Version", BagWriter.BAGIT_VERSION);
+        bagitValues.put("Tag-File-Character-Encoding", "UTF-8");
+        tagRegistry.put(BAGIT_TXT, bagitValues);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArchiveOutputStream<ArchiveEntry> openArchive(final OutputStream out) {
+        final ArchiveOutputStream<? extends ArchiveEntry> stream;
+        if (ZIP_TYPES.contains(contentType)) {
+            stream = new ZipArchiveOutputStream(new BufferedOutputStream(out));
+        } else if (TAR_TYPES.contains(contentType) || GZIP_TYPES.contains(contentType)) {
+            final OutputStream tarOut;
+            try {
+                tarOut = GZIP_TYPES.contains(contentType) ? new GZIPOutputStream(out, 64 * 1024)
+                                                          : new BufferedOutputStream(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            final TarArchiveOutputStream tar = new TarArchiveOutputStream(tarOut);
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            stream = tar;
+        } else {
+            throw new UnsupportedOperationException("Unsupported content type " + contentType);
+        }
+        return (ArchiveOutputStream<ArchiveEntry>) stream;
+    }
+
+    /**
+     * Set the {@link BagItDigester} used to compute the checksums of payload files
+     *
+     * @param digester the {@link BagItDigester} to use
+     * @throws IllegalArgumentException if the {@code digester} does not compute all the payload algorithms
+     * @see BagWriter#setDigester(BagItDigester)
+     */
+    public void setDigester(final BagItDigester digester) {
+        if (!digester.getAlgorithms().containsAll(payloadAlgorithms)) {
+            throw new IllegalArgumentException("BagItDigester does not support all payload algorithms: " +
+                                               payloadAlgorithms);
+        }
+        this.digester = digester;
+    }
+
+    /**
+     * Set the directory used for payload which is added without a size, for manifests which are too large to hold in
+     * memory, and for manifest entries which exceed the manifest memory limit. Defaults to the system temporary
+     * directory.
+     *
+     * @param spillDirectory the directory to write temporary files to
+     */
+    public void setSpillDirectory(final Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Set the estimated amount of memory, in bytes, which the payload manifests may use before their entries are
+     * spilled to disk. The budget is split evenly between the payload algorithms.
+     *
+     * @param memoryLimit the memory budget shared by the payload manifests, in bytes
+     * @throws IllegalArgumentException if the {@code memoryLimit} is not positive
+     * @see BagWriter#setManifestMemoryLimit(long)
+     */
+    public void setManifestMemoryLimit(final long memoryLimit) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("Memory limit must be greater than 0: " + memoryLimit);
+        }
+        this.manifestMemoryLimit = memoryLimit;
+        payloadRegistry.values().forEach(accumulator -> accumulator.setMemoryLimit(payloadManifestLimit()));
+    }
+
+    /**
+     * @return the memory limit of each payload manifest, an even share of the manifest memory limit
+     */
+    private long payloadManifestLimit() {
+        return ManifestAccumulator.split(manifestMemoryLimit, payloadAlgorithms.size());
+    }
+
+    /**
+     * Add a payload file to the archive
+     *
+     * @param relativePath the path of the payload file relative to the data directory (e.g., "images/image0.tiff")
+     * @param source the file to copy into the archive
+     * @return the checksums computed for each of the payload algorithms
+     * @throws IOException if there is an error reading the {@code source} or writing to the archive
+     */
+    public Map<BagItDigest, String> addPayload(final String relativePath, final Path source) throws IOException {
+        try (InputStream is = Files.newInputStream(source)) {
+            return addPayload(relativePath, is, Files.size(source));
+        }
+    }
+
+    /**
+     * Add a payload file to the archive by copying the bytes of an {@link InputStream}. The checksums for all payload
+     * algorithms are computed while the bytes are copied into the archive.
+     *
+     * Tar entries must declare their size before their content, so when writing a tar archive a payload file with an
+     * unknown {@code size} is copied to a temporary file first.
+     *
+     * @param relativePath the path of the payload file relative to the data directory (e.g., "images/image0.tiff")
+     * @param source the {@link InputStream} to read the payload from, which is not closed by this method
+     * @param size the number of bytes which will be read from the {@code source}, or -1 if it is not known
+     * @return the checksums computed for each of the payload algorithms
+     * @throws IllegalArgumentException if the {@code relativePath} resolves to a location outside of the data directory
+     * @throws IOException if there is an error reading the {@code source} or writing to the archive
+     */
+    public Map<BagItDigest, String> addPayload(final String relativePath, final InputStream source, final long size)
+        throws IOException {
+        ensureOpen();
+        final Path normalized = Paths.get(relativePath).normalize();
+        if (normalized.isAbsolute() || normalized.startsWith("..") || normalized.toString().isEmpty()) {
+            throw new IllegalArgumentException("Payload path is not within the data directory: " + relativePath);
+        }
+        final String relative = DATA_DIR + normalized.toString().replace('\\', '/');
+
+        final Map<BagItDigest, String> checksums;
+        final long written;
+        if (size < 0 && !ZIP_TYPES.contains(contentType)) {
+            final Path spooled = createTempFile("payload");
+            try {
+                try (OutputStream os = Files.newOutputStream(spooled)) {
+                    checksums = digester.copy(source, os);
+                }
+                written = Files.size(spooled);
+                putEntry(relative, written);
+                Files.copy(spooled, archive);
+                archive.closeArchiveEntry();
+            } finally {
+                Files.deleteIfExists(spooled);
+            }
+        } else {
+            putEntry(relative, size);
+            final CountingOutputStream counting = new CountingOutputStream(archive);
+            checksums = digester.copy(source, counting);
+            archive.closeArchiveEntry();
+            written = counting.getByteCount();
+        }
+
+        for (BagItDigest algorithm : payloadAlgorithms) {
+            payloadRegistry.computeIfAbsent(algorithm,
+                                            key -> new ManifestAccumulator(payloadManifestLimit(), spillDirectory))
+                           .put(relative, checksums.get(algorithm));
+        }
+        payloadBytes += written;
+        payloadFiles++;
+        return checksums;
+    }
+
+    /**
+     * Add tags (metadata) to the bag. If the {@code key} already exists, the {@code values} will be appended to the
+     * existing entry. A Payload-Oxum or Bag-Size added to bag-info.txt is replaced by the value computed from the
+     * payload when the bag is closed.
+     *
+     * @param key Filename of the tag file (e.g., "bag-info.txt")
+     * @param values Map containing field/value pairs
+     */
+    public void addTags(final String key, final Map<String, String> values) {
+        tagRegistry.computeIfAbsent(key, k -> new HashMap<>()).putAll(values);
+    }
+
+    /**
+     * Append the manifests, tag files, and tag manifests to the archive and close it
+     *
+     * @throws IOException if there is an error writing to the archive
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (ArchiveOutputStream<ArchiveEntry> closing = archive) {
+            final Map<String, String> generated = new HashMap<>();
+            generated.put(BagConfig.PAYLOAD_OXUM_KEY, payloadBytes + "." + payloadFiles);
+            generated.put(BagConfig.BAG_SIZE_KEY, BagWriter.formatBagSize(payloadBytes));
+            addTags(BagConfig.BAG_INFO_KEY, generated);
+
+            // the name and checksums of each file which is listed in the tag manifests
+            final Map<String, Map<BagItDigest, String>> tagFiles = new LinkedHashMap<>();
+            for (BagItDigest algorithm : payloadAlgorithms) {
+                final ManifestAccumulator entries = payloadRegistry.computeIfAbsent(algorithm,
+                                                                                    key -> new ManifestAccumulator());
+                final String manifest = "manifest-" + algorithm.bagitName() + ".txt";
+                tagFiles.put(manifest, writeTagEntry(manifest, encoder -> entries.forEach(
+                    (path, checksum) -> encoder.writeManifestLine(checksum, path))));
+            }
+
+            final Map<String, Map<String, String>> ordered = new LinkedHashMap<>();
+            ordered.put(BAGIT_TXT, tagRegistry.get(BAGIT_TXT));
+            ordered.put(BagConfig.BAG_INFO_KEY, tagRegistry.get(BagConfig.BAG_INFO_KEY));
+            ordered.putAll(tagRegistry);
+            for (Map.Entry<String, Map<String, String>> tagFile : ordered.entrySet()) {
+                tagFiles.put(tagFile.getKey(), writeTagEntry(tagFile.getKey(), encoder -> {
+                    for (Map.Entry<String, String> field : tagFile.getValue().entrySet()) {
+                        encoder.writeTagLine(field.getKey(), field.getValue());
+                    }
+                }));
+            }
+
+            for (BagItDigest algorithm : tagAlgorithms) {
+                writeTagEntry("tagmanifest-" + algorithm.bagitName() + ".txt", encoder -> {
+                    for (Map.Entry<String, Map<BagItDigest, String>> tagFile : tagFiles.entrySet()) {
+                        encoder.writeManifestLine(tagFile.getValue().get(algorithm), tagFile.getKey());
+                    }
+                });
+            }
+
+            archive.finish();
+        } finally {
+            payloadRegistry.values().forEach(ManifestAccumulator::close);
+        }
+    }
+
+    /**
+     * Write a tag file or manifest into the archive. The content is written to a spool first, which is held in memory
+     * unless it is large, so that its size is known before the archive entry is created.
+     *
+     * @param name the name of the file relative to the bag
+     * @param content writes the content of the file to a {@link ManifestEncoder}
+     * @return the checksums of the file for each of the tag algorithms
+     * @throws IOException if there is an error writing the spool or the archive
+     */
+    private Map<BagItDigest, String> writeTagEntry(final String name, final IOConsumer<ManifestEncoder> content)
+        throws IOException {
+        final DeferredFileOutputStream spool = DeferredFileOutputStream.builder()
+                                                                       .setThreshold(SPOOL_THRESHOLD)
+                                                                       .setPrefix("archive-bag")
+                                                                       .setSuffix(".tmp")
+                                                                       .setDirectory(tempDirectory())
+                                                                       .get();
+        try {
+            final MultiDigestOutputStream digests = new MultiDigestOutputStream(spool, tagAlgorithms);
+            try (ManifestEncoder encoder = new ManifestEncoder(digests)) {
+                content.accept(encoder);
+            }
+
+            putEntry(name, spool.getByteCount());
+            spool.writeTo(archive);
+            archive.closeArchiveEntry();
+            return digests.getDigests();
+        } finally {
+            if (!spool.isInMemory()) {
+                Files.deleteIfExists(spool.getPath());
+            }
+        }
+    }
+
+    /**
+     * Put an entry into the archive, along with any directory entries for its parents which have not been written yet
+     *
+     * @param name the name of the entry relative to the bag
+     * @param size the size of the entry, or -1 if it is not known
+     * @throws IOException if the entry can not be written
+     */
+    private void putEntry(final String name, final long size) throws IOException {
+        final String entryName = bagName + "/" + name;
+        int idx = -1;
+        while ((idx = entryName.indexOf('/', idx + 1)) >= 0) {
+            final String directory = entryName.substring(0, idx + 1);
+            if (directories.add(directory)) {
+                archive.putArchiveEntry(createEntry(directory, 0));
+                archive.closeArchiveEntry();
+            }
+        }
+
+        logger.debug("Writing archive entry {}", entryName);
+        archive.putArchiveEntry(createEntry(entryName, size));
+    }
+
+    private ArchiveEntry createEntry(final String name, final long size) {
+        final Date now = new Date();
+        if (ZIP_TYPES.contains(contentType)) {
+            final ZipArchiveEntry entry = new ZipArchiveEntry(name);
+            entry.setTime(now.getTime());
+            if (size >= 0) {
+                entry.setSize(size);
+            }
+            return entry;
+        }
+
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setModTime(now);
+        if (!entry.isDirectory()) {
+            entry.setSize(size);
+        }
+        return entry;
+    }
+
+    private Path createTempFile(final String prefix) throws IOException {
+        return Files.createTempFile(tempDirectory(), prefix, ".tmp");
+    }
+
+    private Path tempDirectory() {
+        return spillDirectory == null ? FileUtils.getTempDirectory().toPath() : spillDirectory;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("ArchiveBagWriter has been closed");
+        }
+    }
+
+}
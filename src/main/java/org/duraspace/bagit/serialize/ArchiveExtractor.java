@@ -0,0 +1,236 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Extract the entries of an archive, shared by the {@link BagDeserializer}s for each archive format
+ *
+ * @since 2026-10-17
+ */
+final class ArchiveExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveExtractor.class);
+
+    private static final String PAYLOAD_DIRECTORY = "data/";
+
+    private ArchiveExtractor() {
+    }
+
+    /**
+     * Extract every entry of an archive into a directory. Entries are read in a single pass, so the archive can be
+     * extracted as it is being received.
+     *
+     * @param archive the {@link ArchiveInputStream} to extract
+     * @param parent the directory to extract the archive into
+     * @return the name of the bag directory of the archive, or empty if the bag is at the root of the archive
+     * @throws IOException if an entry can not be extracted, or resolves to a location outside of the {@code parent}
+     */
+    static Optional<String> extract(final ArchiveInputStream<?> archive, final Path parent) throws IOException {
+        return extract(archive, parent, null);
+    }
+
+    /**
+     * Extract every entry of an archive into a directory, verifying the payload of the bag as it is extracted. Payload
+     * files are digested as they are written, and payload manifests are added to the {@code verifier} once they have
+     * been written.
+     *
+     * @param archive the {@link ArchiveInputStream} to extract
+     * @param parent the directory to extract the archive into
+     * @param verifier the {@link FixityVerifier} to verify the payload with, or null to skip verification
+     * @return the name of the bag directory of the archive, or empty if the bag is at the root of the archive
+     * @throws IOException if an entry can not be extracted, or resolves to a location outside of the {@code parent}
+     */
+    static Optional<String> extract(final ArchiveInputStream<?> archive, final Path parent,
+                                    final FixityVerifier verifier) throws IOException {
+        return extract(archive, parent, verifier, null);
+    }
+
+    /**
+     * Extract the entries of an archive which match a filter into a directory. The content of entries which do not
+     * match is skipped over as the archive is read.
+     *
+     * @param archive the {@link ArchiveInputStream} to extract
+     * @param parent the directory to extract the archive into
+     * @param verifier the {@link FixityVerifier} to verify the payload with, or null to skip verification
+     * @param filter the filter for the path of each file relative to the bag, or null to extract every entry
+     * @return the name of the bag directory of the archive, or empty if the bag is at the root of the archive
+     * @throws IOException if an entry can not be extracted, or resolves to a location outside of the {@code parent}
+     */
+    static Optional<String> extract(final ArchiveInputStream<?> archive, final Path parent,
+                                    final FixityVerifier verifier, final Predicate<String> filter)
+        throws IOException {
+        final Extraction extraction = new Extraction(parent, verifier, filter);
+
+        ArchiveEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            final Path archiveFile = extraction.resolve(entry);
+            if (archiveFile != null) {
+                extraction.write(archive, archiveFile);
+            }
+        }
+
+        return extraction.getName();
+    }
+
+    /**
+     * Extract the entries of an archive which match a filter into a directory, reading only the content of the
+     * matching entries. The entries are listed by the {@code archive} without reading their content, e.g. from the
+     * central directory of a zip file or by seeking from header to header of a tar file.
+     *
+     * @param entries the entries of the archive
+     * @param archive opens the content of an entry
+     * @param parent the directory to extract the archive into
+     * @param filter the filter for the path of each file relative to the bag
+     * @param <E> the type of {@link ArchiveEntry}
+     * @return the name of the bag directory of the archive, or empty if the bag is at the root of the archive
+     * @throws IOException if an entry can not be extracted, or resolves to a location outside of the {@code parent}
+     */
+    static <E extends ArchiveEntry> Optional<String> extract(final Iterable<E> entries, final EntryReader<E> archive,
+                                                             final Path parent, final Predicate<String> filter)
+        throws IOException {
+        final Extraction extraction = new Extraction(parent, null, filter);
+
+        for (E entry : entries) {
+            final Path archiveFile = extraction.resolve(entry);
+            if (archiveFile != null) {
+                try (InputStream is = archive.open(entry)) {
+                    extraction.write(is, archiveFile);
+                }
+            }
+        }
+
+        return extraction.getName();
+    }
+
+    /**
+     * Opens the content of an entry in an archive which can be read at random
+     *
+     * @param <E> the type of {@link ArchiveEntry}
+     */
+    @FunctionalInterface
+    interface EntryReader<E extends ArchiveEntry> {
+        InputStream open(E entry) throws IOException;
+    }
+
+    /**
+     * The state of an archive as its entries are extracted
+     */
+    private static class Extraction {
+        private final Path target;
+        private final FixityVerifier verifier;
+        private final Predicate<String> filter;
+        private final SerializationSupport.BagRoot bagRoot = new SerializationSupport.BagRoot();
+        private String entryPath;
+
+        Extraction(final Path parent, final FixityVerifier verifier, final Predicate<String> filter) {
+            this.target = parent.toAbsolutePath().normalize();
+            this.verifier = verifier;
+            this.filter = filter;
+        }
+
+        /**
+         * Resolve the file to extract an entry to, creating any directories it needs
+         *
+         * @param entry the entry
+         * @return the file to write the content of the entry to, or null if its content should not be extracted
+         * @throws IOException if the entry resolves to a location outside of the extraction directory
+         */
+        Path resolve(final ArchiveEntry entry) throws IOException {
+            final String name = entry.getName();
+
+            logger.debug("Handling entry {}", name);
+            final Path archiveFile = target.resolve(name).normalize();
+            if (!archiveFile.startsWith(target) || (archiveFile.equals(target) && !entry.isDirectory())) {
+                throw new IOException("Archive entry is outside of the extraction directory: " + name);
+            }
+
+            // the directory of the bag is always created, entries outside of the bag never match the filter
+            entryPath = bagRoot.relativize(entry);
+            if (archiveFile.equals(target)) {
+                // a ./ entry of an archive without a top level directory
+                return null;
+            }
+            if (filter != null && !"".equals(entryPath) && (entryPath == null || !filter.test(entryPath))) {
+                logger.debug("Skipping entry {}", name);
+                return null;
+            }
+
+            if (Files.notExists(archiveFile.getParent())) {
+                Files.createDirectories(archiveFile.getParent());
+            }
+
+            if (entry.isDirectory()) {
+                Files.createDirectories(archiveFile);
+                return null;
+            } else if (Files.exists(archiveFile)) {
+                logger.warn("File {} already exists!", name);
+                return null;
+            }
+
+            return archiveFile;
+        }
+
+        /**
+         * Write the content of an entry
+         *
+         * @param content the content of the entry, which is not closed
+         * @param archiveFile the file to write to
+         * @throws IOException if the file can not be written
+         */
+        void write(final InputStream content, final Path archiveFile) throws IOException {
+            if (verifier == null) {
+                Files.copy(content, archiveFile);
+            } else {
+                extractVerified(content, entryPath, archiveFile, verifier);
+            }
+        }
+
+        Optional<String> getName() {
+            return bagRoot.getName();
+        }
+    }
+
+    /**
+     * Extract a file, digesting it if it is in the payload directory of the bag or adding it to the {@code verifier}
+     * if it is a payload manifest
+     *
+     * @param archive the {@link ArchiveInputStream} positioned at the file
+     * @param bagPath the path of the file relative to the bag, or null if it is not in the bag
+     * @param archiveFile the file to extract to
+     * @param verifier the {@link FixityVerifier}
+     * @throws IOException if the file can not be extracted or is a manifest which can not be read
+     */
+    private static void extractVerified(final InputStream archive, final String bagPath, final Path archiveFile,
+                                        final FixityVerifier verifier) throws IOException {
+        if (bagPath != null && bagPath.startsWith(PAYLOAD_DIRECTORY)) {
+            Files.copy(verifier.verify(bagPath, archive), archiveFile);
+            return;
+        }
+
+        Files.copy(archive, archiveFile);
+        final BagItDigest algorithm = bagPath != null && bagPath.indexOf('/') == -1
+                                      ? FixityVerifier.manifestAlgorithm(bagPath) : null;
+        if (algorithm != null) {
+            try (InputStream manifest = Files.newInputStream(archiveFile)) {
+                verifier.addManifest(algorithm, manifest);
+            }
+        }
+    }
+
+}
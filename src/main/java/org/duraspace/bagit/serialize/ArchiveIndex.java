@@ -0,0 +1,349 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static org.duraspace.bagit.profile.BagProfileConstants.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarFile;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityVerifier;
+import org.duraspace.bagit.ManifestDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An index of the files in a serialized bag: where the content of each file starts in the archive, its size, how it
+ * is compressed, and its checksums from the payload manifests. The index is built by reading the headers of the
+ * archive once and can be saved next to the archive so that it does not need to be built again.
+ *
+ * Each line of a saved index is separated by tabs. The first line holds the version of the index, the format, size,
+ * and last modified time of the archive it was built from, the name of the bag, and the number of entries. Each
+ * following line holds the path of a file relative to the bag, the offset of its content, its size, its compressed
+ * size, its zip compression method, and its checksums. The last line is an end marker, so an index which was cut
+ * short is never used. The index is written to a temporary file which is then moved over the index, so a reader never
+ * sees an index which is only partly written.
+ *
+ * @since 2026-10-17
+ */
+final class ArchiveIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveIndex.class);
+
+    private static final String MAGIC = "bagit-archive-index";
+    private static final String VERSION = "3";
+    private static final String END = "end";
+    private static final String SEPARATOR = "\t";
+    private static final String CHECKSUM_SEPARATOR = "=";
+    private static final Pattern SPLIT = Pattern.compile(SEPARATOR);
+
+    /**
+     * The format of an indexed archive
+     */
+    enum Format {
+        TAR, ZIP
+    }
+
+    private final Format format;
+    private final long archiveSize;
+    private final long archiveModified;
+    private final String bagName;
+    private final Map<String, Entry> entries;
+
+    /**
+     * A file in an indexed archive
+     */
+    static class Entry {
+        private final String path;
+        private final long offset;
+        private final long size;
+        private final long compressedSize;
+        private final int method;
+        private final Map<BagItDigest, String> checksums = new EnumMap<>(BagItDigest.class);
+
+        Entry(final String path, final long offset, final long size, final long compressedSize, final int method) {
+            this.path = path;
+            this.offset = offset;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.method = method;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getCompressedSize() {
+            return compressedSize;
+        }
+
+        int getMethod() {
+            return method;
+        }
+
+        Map<BagItDigest, String> getChecksums() {
+            return checksums;
+        }
+    }
+
+    private ArchiveIndex(final Format format, final long archiveSize, final long archiveModified,
+                         final String bagName, final Map<String, Entry> entries) {
+        this.format = format;
+        this.archiveSize = archiveSize;
+        this.archiveModified = archiveModified;
+        this.bagName = bagName;
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    Format getFormat() {
+        return format;
+    }
+
+    String getBagName() {
+        return bagName;
+    }
+
+    Map<String, Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Build the index of an archive by reading its headers and payload manifests
+     *
+     * @param archive the archive to index
+     * @param format the {@link Format} of the archive
+     * @return the {@link ArchiveIndex}
+     * @throws IOException if the archive can not be read
+     */
+    static ArchiveIndex build(final Path archive, final Format format) throws IOException {
+        logger.info("Indexing serialized bag {}", archive);
+        final BasicFileAttributes attributes = Files.readAttributes(archive, BasicFileAttributes.class);
+        final Builder builder = new Builder();
+
+        if (format == Format.ZIP) {
+            try (ZipFile zip = ZipFile.builder().setPath(archive).get()) {
+                final Enumeration<ZipArchiveEntry> zipEntries = zip.getEntries();
+                while (zipEntries.hasMoreElements()) {
+                    final ZipArchiveEntry entry = zipEntries.nextElement();
+                    final String manifest = builder.add(entry, entry.getDataOffset(), entry.getSize(),
+                                                        entry.getCompressedSize(), entry.getMethod());
+                    if (manifest != null) {
+                        try (InputStream is = zip.getInputStream(entry)) {
+                            builder.readManifest(manifest, is);
+                        }
+                    }
+                }
+            }
+        } else {
+            try (TarFile tar = new TarFile(archive)) {
+                for (TarArchiveEntry entry : tar.getEntries()) {
+                    if (entry.isSparse()) {
+                        throw new IOException("Sparse tar entries can not be indexed: " + entry.getName());
+                    }
+
+                    final String manifest = builder.add(entry, entry.getDataOffset(), entry.getSize(),
+                                                        entry.getSize(), ZipEntry.STORED);
+                    if (manifest != null) {
+                        try (InputStream is = tar.getInputStream(entry)) {
+                            builder.readManifest(manifest, is);
+                        }
+                    }
+                }
+            }
+        }
+
+        return builder.build(archive, format, attributes);
+    }
+
+    /**
+     * Load a saved index, if it exists and was built from the current version of the archive
+     *
+     * @param archive the indexed archive
+     * @param index the saved index
+     * @return the {@link ArchiveIndex}, or null if it does not exist or is out of date
+     * @throws IOException if the archive can not be read
+     */
+    static ArchiveIndex load(final Path archive, final Path index) throws IOException {
+        if (Files.notExists(index)) {
+            return null;
+        }
+
+        final BasicFileAttributes attributes = Files.readAttributes(archive, BasicFileAttributes.class);
+        try (BufferedReader reader = Files.newBufferedReader(index, UTF_8)) {
+            final String headerLine = reader.readLine();
+            final String[] header = headerLine == null ? new String[0] : SPLIT.split(headerLine, -1);
+            if (header.length != 7 || !MAGIC.equals(header[0]) || !VERSION.equals(header[1]) ||
+                Long.parseLong(header[3]) != attributes.size() ||
+                Long.parseLong(header[4]) != attributes.lastModifiedTime().toMillis()) {
+                logger.info("Index {} is out of date with {}", index, archive);
+                return null;
+            }
+
+            final int count = Integer.parseInt(header[6]);
+            final Map<String, Entry> entries = new LinkedHashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null && !END.equals(line)) {
+                final String[] fields = SPLIT.split(line);
+                final Entry entry = new Entry(decode(fields[0]), Long.parseLong(fields[1]),
+                                              Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                                              Integer.parseInt(fields[4]));
+                for (int i = 5; i < fields.length; i++) {
+                    final int idx = fields[i].indexOf(CHECKSUM_SEPARATOR);
+                    entry.checksums.put(BagItDigest.from(fields[i].substring(0, idx)), fields[i].substring(idx + 1));
+                }
+                entries.put(entry.path, entry);
+            }
+
+            // entries are never written without a tab, so the end marker can not be mistaken for one
+            if (line == null || reader.readLine() != null || entries.size() != count) {
+                logger.warn("Index {} is incomplete, it will be rebuilt", index);
+                return null;
+            }
+
+            return new ArchiveIndex(Format.valueOf(header[2]), attributes.size(),
+                                    attributes.lastModifiedTime().toMillis(), decode(header[5]), entries);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to read index {}, it will be rebuilt", index, e);
+            return null;
+        }
+    }
+
+    /**
+     * Save the index
+     *
+     * @param index the file to save the index to
+     * @throws IOException if the index can not be written
+     */
+    void save(final Path index) throws IOException {
+        final Path directory = index.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(directory, index.getFileName().toString(), ".tmp");
+        try {
+            write(temp);
+            Files.move(temp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(final Path index) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(index, UTF_8)) {
+            writer.write(String.join(SEPARATOR, MAGIC, VERSION, format.name(), String.valueOf(archiveSize),
+                                     String.valueOf(archiveModified), encode(bagName),
+                                     String.valueOf(entries.size())));
+            writer.write('\n');
+
+            for (Entry entry : entries.values()) {
+                final StringBuilder line = new StringBuilder();
+                line.append(encode(entry.path))
+                    .append(SEPARATOR).append(entry.offset)
+                    .append(SEPARATOR).append(entry.size)
+                    .append(SEPARATOR).append(entry.compressedSize)
+                    .append(SEPARATOR).append(entry.method);
+                entry.checksums.forEach((algorithm, checksum) -> line.append(SEPARATOR)
+                                                                     .append(algorithm.bagitName())
+                                                                     .append(CHECKSUM_SEPARATOR)
+                                                                     .append(checksum));
+                writer.write(line.append('\n').toString());
+            }
+            writer.write(END);
+            writer.write('\n');
+        }
+    }
+
+    private static String encode(final String path) {
+        return path.replace("%", "%25").replace("\t", "%09").replace("\n", "%0A").replace("\r", "%0D");
+    }
+
+    private static String decode(final String path) {
+        return path.replace("%0D", "\r").replace("%0A", "\n").replace("%09", "\t").replace("%25", "%");
+    }
+
+    /**
+     * Collects the entries of an archive as its headers are read
+     */
+    private static class Builder {
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+        private final Map<BagItDigest, Map<String, String>> manifests = new EnumMap<>(BagItDigest.class);
+        private final SerializationSupport.BagRoot bagRoot = new SerializationSupport.BagRoot();
+
+        /**
+         * Add an entry of the archive
+         *
+         * @return the path of the entry if it is a payload manifest, otherwise null
+         */
+        String add(final ArchiveEntry entry, final long offset, final long size, final long compressedSize,
+                   final int method) {
+            final String path = bagRoot.relativize(entry);
+            if (path == null) {
+                logger.warn("Entry {} is not in the bag directory {}", entry.getName(), bagRoot.getName().orElse(""));
+                return null;
+            }
+
+            if (entry.isDirectory() || path.isEmpty()) {
+                return null;
+            }
+
+            entries.put(path, new Entry(path, offset, size, compressedSize, method));
+            return FixityVerifier.manifestAlgorithm(path) != null ? path : null;
+        }
+
+        void readManifest(final String path, final InputStream manifest) throws IOException {
+            final Map<String, String> checksums = manifests.computeIfAbsent(FixityVerifier.manifestAlgorithm(path),
+                                                                           algorithm -> new LinkedHashMap<>());
+            ManifestDecoder.read(manifest, checksums::put);
+        }
+
+        ArchiveIndex build(final Path archive, final Format format, final BasicFileAttributes attributes)
+            throws IOException {
+            if (entries.isEmpty() && bagRoot.getName().isEmpty()) {
+                throw new IOException("Unable to determine the name of the bag from an empty archive");
+            }
+
+            manifests.forEach((algorithm, checksums) -> checksums.forEach((path, checksum) -> {
+                final Entry entry = entries.get(path);
+                if (entry != null) {
+                    entry.checksums.put(algorithm, checksum);
+                }
+            }));
+
+            // a bag at the root of the archive is named after the archive, as it is when deserialized
+            final String bagName = bagRoot.getName().orElseGet(() -> {
+                final String archiveName = archive.getFileName().toString();
+                final int dotIdx = archiveName.lastIndexOf('.');
+                return dotIdx > 0 ? archiveName.substring(0, dotIdx) : archiveName;
+            });
+            return new ArchiveIndex(format, attributes.size(), attributes.lastModifiedTime().toMillis(), bagName,
+                                    entries);
+        }
+    }
+
+}
@@ -5,7 +5,14 @@
 package org.duraspace.bagit.serialize;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.duraspace.bagit.BagItDigest;
 
 /**
  * Interface for common deserialization operations for {@link gov.loc.repository.bagit.domain.Bag}s. Each deserializer
@@ -27,4 +34,102 @@ public interface BagDeserializer {
      */
     Path deserialize(final Path path) throws IOException;
 
+    /**
+     * Deserialize a {@link gov.loc.repository.bagit.domain.Bag} as it is read from an {@link InputStream}, so that
+     * the serialized bag does not need to be written to disk before it is extracted. The {@code serializedBag} is not
+     * closed.
+     *
+     * @param serializedBag the {@link InputStream} of the serialized bag
+     * @param parent the directory to create the bag in
+     * @return the {@link Path} to the deserialized bag
+     * @throws IOException if there are any errors deserializing the bag
+     * @throws UnsupportedOperationException if the implementing class does not support deserializing a stream
+     */
+    default Path deserialize(final InputStream serializedBag, final Path parent) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can not deserialize an InputStream");
+    }
+
+    /**
+     * Deserialize a {@link gov.loc.repository.bagit.domain.Bag} as it is read from a {@link ReadableByteChannel}. The
+     * {@code channel} is not closed.
+     *
+     * @param channel the {@link ReadableByteChannel} of the serialized bag
+     * @param parent the directory to create the bag in
+     * @return the {@link Path} to the deserialized bag
+     * @throws IOException if there are any errors deserializing the bag
+     * @throws UnsupportedOperationException if the implementing class does not support deserializing a stream
+     * @see BagDeserializer#deserialize(InputStream, Path)
+     */
+    default Path deserialize(final ReadableByteChannel channel, final Path parent) throws IOException {
+        return deserialize(Channels.newInputStream(channel), parent);
+    }
+
+    /**
+     * Deserialize a {@link gov.loc.repository.bagit.domain.Bag}, digesting the payload as it is extracted and verifying
+     * it against the payload manifests of the bag so that the extracted payload does not need to be read again.
+     * Payload files are checked as soon as the manifest for an algorithm has been extracted, and any files extracted
+     * before it are checked once it is.
+     *
+     * @param path the {@link Path} to the serialized version of a {@link gov.loc.repository.bagit.domain.Bag}
+     * @param algorithms the algorithms to digest the payload with, usually those of the manifests of the bag
+     * @return the {@link DeserializationResult} with the deserialized bag and the result of verifying it
+     * @throws IOException if there are any errors deserializing the bag
+     * @throws UnsupportedOperationException if the implementing class does not support verifying the payload
+     */
+    default DeserializationResult deserialize(final Path path, final Set<BagItDigest> algorithms)
+        throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can not verify a bag while extracting");
+    }
+
+    /**
+     * Deserialize a {@link gov.loc.repository.bagit.domain.Bag} as it is read from an {@link InputStream}, verifying
+     * the payload against the payload manifests of the bag as it is extracted. The {@code serializedBag} is not
+     * closed.
+     *
+     * @param serializedBag the {@link InputStream} of the serialized bag
+     * @param parent the directory to create the bag in
+     * @param algorithms the algorithms to digest the payload with, usually those of the manifests of the bag
+     * @return the {@link DeserializationResult} with the deserialized bag and the result of verifying it
+     * @throws IOException if there are any errors deserializing the bag
+     * @throws UnsupportedOperationException if the implementing class does not support verifying the payload
+     * @see BagDeserializer#deserialize(Path, Set)
+     */
+    default DeserializationResult deserialize(final InputStream serializedBag, final Path parent,
+                                              final Set<BagItDigest> algorithms) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can not verify a bag while extracting");
+    }
+
+    /**
+     * Deserialize only the files of a {@link gov.loc.repository.bagit.domain.Bag} which match a {@code filter}, such
+     * as the tag files needed to inspect a bag. Archives which can be read at random skip straight to the matching
+     * files, and other archives skip over the content of the files which do not match.
+     *
+     * @param path the {@link Path} to the serialized version of a {@link gov.loc.repository.bagit.domain.Bag}
+     * @param filter the filter for the path of each file relative to the bag, e.g. data/image0.binary
+     * @return the {@link Path} to the deserialized bag
+     * @throws IOException if there are any errors deserializing the bag
+     * @throws UnsupportedOperationException if the implementing class does not support filtering entries
+     * @see EntryFilter
+     */
+    default Path deserialize(final Path path, final Predicate<String> filter) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can not filter the extracted entries");
+    }
+
+    /**
+     * Deserialize only the files of a {@link gov.loc.repository.bagit.domain.Bag} which match a {@code filter} as it
+     * is read from an {@link InputStream}. The {@code serializedBag} is not closed.
+     *
+     * @param serializedBag the {@link InputStream} of the serialized bag
+     * @param parent the directory to create the bag in
+     * @param filter the filter for the path of each file relative to the bag, e.g. data/image0.binary
+     * @return the {@link Path} to the deserialized bag
+     * @throws IOException if there are any errors deserializing the bag
+     * @throws UnsupportedOperationException if the implementing class does not support filtering entries
+     * @see BagDeserializer#deserialize(Path, Predicate)
+     */
+    default Path deserialize(final InputStream serializedBag, final Path parent, final Predicate<String> filter)
+        throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can not filter the extracted entries");
+    }
+
 }
@@ -5,7 +5,13 @@
 package org.duraspace.bagit.serialize;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.util.Set;
+
+import org.duraspace.bagit.BagItDigest;
 
 /**
  * Serialize a BagIt bag into a single format.
@@ -26,4 +32,45 @@ public interface BagSerializer {
      */
     Path serialize(Path root) throws IOException;
 
+    /**
+     * Serialize a BagIt bag into an {@link OutputStream} instead of a file next to the bag. The archive is complete
+     * when this method returns, and the {@code out} is flushed but not closed.
+     *
+     * @param root the {@link Path} which is the top level directory of the BagIt bag
+     * @param out the {@link OutputStream} to write the archive to
+     * @throws IOException if there is an error writing to the archive
+     * @throws UnsupportedOperationException if the implementing class does not support serializing to a stream
+     */
+    default void serialize(final Path root, final OutputStream out) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can not serialize to an OutputStream");
+    }
+
+    /**
+     * Serialize a BagIt bag into a {@link WritableByteChannel}. The archive is complete when this method returns, and
+     * the {@code channel} is not closed.
+     *
+     * @param root the {@link Path} which is the top level directory of the BagIt bag
+     * @param channel the {@link WritableByteChannel} to write the archive to
+     * @throws IOException if there is an error writing to the archive
+     * @throws UnsupportedOperationException if the implementing class does not support serializing to a stream
+     * @see BagSerializer#serialize(Path, OutputStream)
+     */
+    default void serialize(final Path root, final WritableByteChannel channel) throws IOException {
+        serialize(root, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Serialize a BagIt bag to a file next to the bag, as {@link BagSerializer#serialize(Path)} does, computing
+     * checksums of the archive as it is written so that it does not need to be read again.
+     *
+     * @param root the {@link Path} which is the top level directory of the BagIt bag
+     * @param algorithms the algorithms to compute checksums of the archive for, which may be empty
+     * @return the {@link SerializationResult} with the path, size, entry count, elapsed time, and checksums
+     * @throws IOException if there is an error writing to the archive
+     * @throws UnsupportedOperationException if the implementing class does not support computing checksums
+     */
+    default SerializationResult serialize(final Path root, final Set<BagItDigest> algorithms) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can not compute archive checksums");
+    }
+
 }
@@ -0,0 +1,57 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+
+/**
+ * Choose how each file of a bag is compressed when it is serialized. A file can either be deflated with a given
+ * compression level, or stored without compression when it would not shrink, e.g. images, video, or archives which
+ * are already compressed.
+ *
+ * @since 2026-10-17
+ */
+@FunctionalInterface
+public interface CompressionPolicy {
+
+    /**
+     * The level returned for files which should be stored without compression
+     */
+    int STORED = Deflater.NO_COMPRESSION;
+
+    /**
+     * Get the compression level for a file
+     *
+     * @param file the file to compress
+     * @return the deflate level, 1-9 or {@link Deflater#DEFAULT_COMPRESSION}, or {@link CompressionPolicy#STORED} if
+     *         the file should not be compressed
+     * @throws IOException if the file needs to be read and can not be
+     */
+    int levelFor(final Path file) throws IOException;
+
+    /**
+     * Get a {@link CompressionPolicy} which compresses every file with the same level
+     *
+     * @param level the compression level, or {@link CompressionPolicy#STORED}
+     * @return the {@link CompressionPolicy}
+     */
+    static CompressionPolicy of(final int level) {
+        return file -> level;
+    }
+
+    /**
+     * Get a {@link CompressionPolicy} which stores files that are already compressed and deflates everything else
+     *
+     * @param level the compression level for files which can be compressed
+     * @return the {@link CompressionPolicy}
+     * @see ContentCompressionPolicy
+     */
+    static CompressionPolicy detect(final int level) {
+        return new ContentCompressionPolicy(level);
+    }
+
+}
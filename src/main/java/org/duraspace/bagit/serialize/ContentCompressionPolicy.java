@@ -0,0 +1,171 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A {@link CompressionPolicy} which stores files that are already compressed. A file is stored if
+ * <ol>
+ *     <li>its extension is one of a known compressed format, e.g. jp2, mp4, or zip</li>
+ *     <li>it starts with the magic bytes of a known compressed format</li>
+ *     <li>a sample from the start of the file does not shrink when it is deflated</li>
+ * </ol>
+ * Everything else is deflated with the level the policy was created with.
+ *
+ * @since 2026-10-17
+ */
+public class ContentCompressionPolicy implements CompressionPolicy {
+
+    /**
+     * The default number of bytes deflated to test if a file is compressible
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * The default ratio of compressed to uncompressed size above which a sample is considered incompressible
+     */
+    public static final double DEFAULT_MAXIMUM_RATIO = 0.95;
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+        // images
+        "jp2", "j2k", "jpf", "jpx", "jpg", "jpeg", "png", "gif", "webp", "heic",
+        // audio and video
+        "mp4", "m4v", "m4a", "mov", "mkv", "webm", "avi", "mpg", "mpeg", "mp3", "aac", "ogg", "oga", "ogv", "opus",
+        "flac", "wma", "wmv",
+        // archives and compressed documents
+        "zip", "gz", "tgz", "bz2", "xz", "7z", "zst", "rar", "jar", "war", "docx", "xlsx", "pptx", "odt", "epub"
+    );
+
+    private static final List<byte[]> MAGIC = List.of(
+        magic(0xFF, 0xD8, 0xFF),                                    // jpeg
+        magic(0x89, 'P', 'N', 'G'),                                 // png
+        magic('G', 'I', 'F', '8'),                                  // gif
+        magic(0x00, 0x00, 0x00, 0x0C, 'j', 'P', ' ', ' '),          // jpeg 2000
+        magic(0xFF, 0x4F, 0xFF, 0x51),                              // jpeg 2000 codestream
+        magic('P', 'K', 0x03, 0x04),                                // zip
+        magic(0x1F, 0x8B),                                          // gzip
+        magic('B', 'Z', 'h'),                                       // bzip2
+        magic(0xFD, '7', 'z', 'X', 'Z', 0x00),                      // xz
+        magic('7', 'z', 0xBC, 0xAF, 0x27, 0x1C),                    // 7z
+        magic(0x28, 0xB5, 0x2F, 0xFD),                              // zstd
+        magic('R', 'a', 'r', '!'),                                  // rar
+        magic(0x1A, 0x45, 0xDF, 0xA3),                              // matroska, webm
+        magic('O', 'g', 'g', 'S'),                                  // ogg
+        magic('I', 'D', '3'),                                       // mp3
+        magic('f', 'L', 'a', 'C')                                   // flac
+    );
+
+    // the iso base media formats (mp4, mov, heic) have their magic after the size of the first box
+    private static final byte[] FTYP = magic('f', 't', 'y', 'p');
+    private static final int FTYP_OFFSET = 4;
+
+    private final int level;
+    private final int sampleSize;
+    private final double maximumRatio;
+
+    /**
+     * Create a {@link ContentCompressionPolicy} with the default sample size and ratio
+     *
+     * @param level the compression level for files which can be compressed
+     */
+    public ContentCompressionPolicy(final int level) {
+        this(level, DEFAULT_SAMPLE_SIZE, DEFAULT_MAXIMUM_RATIO);
+    }
+
+    /**
+     * Create a {@link ContentCompressionPolicy}
+     *
+     * @param level the compression level for files which can be compressed
+     * @param sampleSize the number of bytes to deflate when testing a file, or 0 to only check extensions and magic
+     * @param maximumRatio the ratio of compressed to uncompressed size above which a file is stored
+     */
+    public ContentCompressionPolicy(final int level, final int sampleSize, final double maximumRatio) {
+        this.level = level;
+        this.sampleSize = sampleSize;
+        this.maximumRatio = maximumRatio;
+    }
+
+    @Override
+    public int levelFor(final Path file) throws IOException {
+        final String filename = file.getFileName().toString();
+        final int dotIdx = filename.lastIndexOf('.');
+        if (dotIdx != -1 && COMPRESSED_EXTENSIONS.contains(filename.substring(dotIdx + 1).toLowerCase(Locale.ROOT))) {
+            return STORED;
+        }
+
+        final byte[] sample = new byte[Math.max(sampleSize, FTYP_OFFSET + FTYP.length)];
+        final int read;
+        try (InputStream is = Files.newInputStream(file)) {
+            read = IOUtils.read(is, sample);
+        }
+
+        if (hasMagic(sample, read) || (sampleSize > 0 && !isCompressible(sample, Math.min(read, sampleSize)))) {
+            return STORED;
+        }
+        return level;
+    }
+
+    private boolean hasMagic(final byte[] sample, final int length) {
+        for (byte[] magic : MAGIC) {
+            if (startsWith(sample, length, 0, magic)) {
+                return true;
+            }
+        }
+        return startsWith(sample, length, FTYP_OFFSET, FTYP);
+    }
+
+    /**
+     * Deflate a sample as fast as possible to see if it shrinks
+     *
+     * @param sample the sample of the file
+     * @param length the length of the sample
+     * @return true if the compressed sample is smaller than the {@code maximumRatio}
+     */
+    private boolean isCompressible(final byte[] sample, final int length) {
+        if (length == 0) {
+            return true;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(sample, 0, length);
+            deflater.finish();
+
+            final byte[] output = new byte[length];
+            long compressed = 0;
+            while (!deflater.finished() && compressed <= length * maximumRatio) {
+                compressed += deflater.deflate(output);
+            }
+            return compressed <= length * maximumRatio;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static boolean startsWith(final byte[] sample, final int length, final int offset, final byte[] magic) {
+        return length >= offset + magic.length &&
+               Arrays.equals(sample, offset, offset + magic.length, magic, 0, magic.length);
+    }
+
+    private static byte[] magic(final int... bytes) {
+        final byte[] magic = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            magic[i] = (byte) bytes[i];
+        }
+        return magic;
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.nio.file.Path;
+
+import org.duraspace.bagit.FixityResult;
+
+/**
+ * The result of deserializing a bag while verifying its payload: where the bag was extracted and whether the payload
+ * matched the manifests of the bag
+ *
+ * @since 2026-10-17
+ */
+public class DeserializationResult {
+
+    private final Path path;
+    private final FixityResult fixity;
+
+    /**
+     * Create a {@link DeserializationResult}
+     *
+     * @param path the path of the deserialized bag
+     * @param fixity the result of verifying the payload against the manifests
+     */
+    public DeserializationResult(final Path path, final FixityResult fixity) {
+        this.path = path;
+        this.fixity = fixity;
+    }
+
+    /**
+     * @return the path of the deserialized bag
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the result of verifying the payload against the manifests
+     */
+    public FixityResult getFixity() {
+        return fixity;
+    }
+
+    /**
+     * @return true if the payload matched the manifests
+     */
+    public boolean isValid() {
+        return fixity.isValid();
+    }
+
+    @Override
+    public String toString() {
+        return "DeserializationResult{path=" + path + ", fixity=" + fixity + "}";
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Filters for the entries extracted by {@link BagDeserializer#deserialize(java.nio.file.Path, Predicate)}. Each filter
+ * is tested against the path of a file relative to the bag using '/' as a separator, e.g. bagit.txt or
+ * data/image0.binary. Filters can be combined with {@link Predicate#or(Predicate)}.
+ *
+ * @since 2026-10-17
+ */
+public final class EntryFilter {
+
+    private EntryFilter() {
+    }
+
+    /**
+     * Match the tag files at the top level of the bag, such as bagit.txt, bag-info.txt, and the manifests
+     *
+     * @return the filter
+     */
+    public static Predicate<String> tagFiles() {
+        return path -> path.indexOf('/') == -1;
+    }
+
+    /**
+     * Match paths using glob patterns, e.g. data/images/*.tif or data/**.xml
+     *
+     * @param patterns the glob patterns, as described by {@link java.nio.file.FileSystem#getPathMatcher(String)}
+     * @return the filter, matching a path if it matches any of the {@code patterns}
+     */
+    public static Predicate<String> glob(final String... patterns) {
+        final List<PathMatcher> matchers = Arrays.stream(patterns)
+                                                 .map(pattern -> FileSystems.getDefault()
+                                                                            .getPathMatcher("glob:" + pattern))
+                                                 .collect(Collectors.toList());
+        return path -> matchers.stream().anyMatch(matcher -> matcher.matches(Paths.get(path)));
+    }
+
+}
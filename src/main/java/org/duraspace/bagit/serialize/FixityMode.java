@@ -0,0 +1,29 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+/**
+ * How a {@link BagSerializer} verifies the payload of a bag against its manifests as the payload is copied into the
+ * archive
+ *
+ * @since 2026-10-17
+ */
+public enum FixityMode {
+    /**
+     * The payload is not verified
+     */
+    NONE,
+
+    /**
+     * Payload files which do not match the manifests are logged and reported in the {@link SerializationResult}
+     */
+    REPORT,
+
+    /**
+     * Serialization fails with a {@link org.duraspace.bagit.exception.FixityException} as soon as a payload file does
+     * not match the manifests, or once the archive is written if a file in the manifests was not found
+     */
+    FAIL
+}
@@ -7,19 +7,23 @@ package org.duraspace.bagit.serialize;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityVerifier;
 import org.duraspace.bagit.profile.BagProfile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Deflate a gzipped bag so that the underlying bag can continue to be deserialized. After deflating the gzipped file
- * the underlying bag will be deserialized. This allows us to handle different combinations of gzip + serialization
- * formats.
+ * Deflate a gzipped bag so that the underlying bag can continue to be deserialized. The gzipped file is inflated as
+ * the underlying bag is deserialized, so the uncompressed archive is never written to disk. This allows us to handle
+ * different combinations of gzip + serialization formats.
  *
  * @author mikejritter
  * @since 2020-02-11
@@ -36,25 +40,92 @@ public class GZipBagDeserializer implements BagDeserializer {
 
     @Override
     public Path deserialize(final Path root) throws IOException {
+        return inflate(root, (deserializer, inflated, parent, name) -> deserializer.extract(inflated, parent, name,
+                                                                                            null, null));
+    }
+
+    @Override
+    public Path deserialize(final InputStream serializedBag, final Path parent) throws IOException {
+        return inflate(serializedBag, inflated -> SerializationSupport.deserializerFor(inflated, profile)
+                                                                      .deserialize(inflated, parent));
+    }
+
+    @Override
+    public DeserializationResult deserialize(final Path root, final Set<BagItDigest> algorithms) throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(algorithms);
+        final Path bag = inflate(root, (deserializer, inflated, parent, name) -> deserializer.extract(
+            inflated, parent, name, verifier, null));
+        return new DeserializationResult(bag, verifier.getResult());
+    }
+
+    @Override
+    public DeserializationResult deserialize(final InputStream serializedBag, final Path parent,
+                                             final Set<BagItDigest> algorithms) throws IOException {
+        return inflate(serializedBag, inflated -> SerializationSupport.deserializerFor(inflated, profile)
+                                                                      .deserialize(inflated, parent, algorithms));
+    }
+
+    @Override
+    public Path deserialize(final Path root, final Predicate<String> filter) throws IOException {
+        return inflate(root, (deserializer, inflated, parent, name) -> deserializer.extract(inflated, parent, name,
+                                                                                            null, filter));
+    }
+
+    @Override
+    public Path deserialize(final InputStream serializedBag, final Path parent, final Predicate<String> filter)
+        throws IOException {
+        return inflate(serializedBag, inflated -> SerializationSupport.deserializerFor(inflated, profile)
+                                                                      .deserialize(inflated, parent, filter));
+    }
+
+    private <T> T inflate(final Path root, final Extraction<T> extraction) throws IOException {
         final Path parent = root.getParent();
         final String nameWithExtension = root.getFileName().toString();
         final int dotIdx = nameWithExtension.lastIndexOf(".");
         final String filename = (dotIdx == -1) ? nameWithExtension : nameWithExtension.substring(0, dotIdx);
-        final Path serializedBag = parent.resolve(filename);
 
-        // Deflate the gzip to get the base file
+        // Inflate the gzip and extract the underlying archive in a single pass
         logger.info("Deflating gzipped bag: {}", filename);
         try (final InputStream is = Files.newInputStream(root);
              final InputStream bis = new BufferedInputStream(is);
-             final GzipCompressorInputStream gzipIS = new GzipCompressorInputStream(bis)) {
+             final GzipCompressorInputStream gzipIS = new GzipCompressorInputStream(bis, true);
+             final InputStream inflated = new BufferedInputStream(gzipIS)) {
+
+            // Get a deserializer for the deflated content, falling back to the name of the archive for the bag
+            final BagDeserializer deserializer = SerializationSupport.deserializerFor(inflated, filename, profile);
+            if (!(deserializer instanceof StreamDeserializer)) {
+                throw new UnsupportedOperationException("Unable to extract " + filename + " from " + root);
+            }
+            final int innerDotIdx = filename.lastIndexOf(".");
+            final String name = (innerDotIdx == -1) ? filename : filename.substring(0, innerDotIdx);
+            return extraction.extract((StreamDeserializer) deserializer, inflated, parent, name);
+        }
+    }
+
+    private <T> T inflate(final InputStream serializedBag, final StreamExtraction<T> extraction) throws IOException {
+        logger.info("Deflating gzipped bag from stream");
+        try (final GzipCompressorInputStream gzipIS =
+                 new GzipCompressorInputStream(CloseShieldInputStream.wrap(serializedBag), true);
+             final InputStream bis = new BufferedInputStream(gzipIS)) {
 
-            Files.copy(gzipIS, serializedBag);
-        } catch (FileAlreadyExistsException ex) {
-            logger.warn("{} already decompressed! Continuing with deserialization.", root);
+            // Get a deserializer for the deflated content and extract it as it is inflated
+            return extraction.extract(bis);
         }
+    }
+
+    /**
+     * Extracts the inflated archive of a gzipped file with the deserializer detected for it
+     */
+    @FunctionalInterface
+    private interface Extraction<T> {
+        T extract(StreamDeserializer deserializer, InputStream inflated, Path parent, String name) throws IOException;
+    }
 
-        // Get a deserializer for the deflated content
-        final BagDeserializer deserializer = SerializationSupport.deserializerFor(serializedBag, profile);
-        return deserializer.deserialize(serializedBag);
+    /**
+     * Extracts the inflated archive of a gzipped stream
+     */
+    @FunctionalInterface
+    private interface StreamExtraction<T> {
+        T extract(InputStream inflated) throws IOException;
     }
 }
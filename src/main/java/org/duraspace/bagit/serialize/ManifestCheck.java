@@ -0,0 +1,104 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.duraspace.bagit.FixityResult;
+import org.duraspace.bagit.FixityVerifier;
+import org.duraspace.bagit.exception.FixityException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens the files of a bag for a serializer, verifying payload files against the manifests of the bag as they are
+ * read when a {@link FixityMode} other than {@link FixityMode#NONE} is used
+ *
+ * @since 2026-10-17
+ */
+final class ManifestCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManifestCheck.class);
+
+    private static final String PAYLOAD_DIRECTORY = "data";
+
+    private final Path root;
+    private final FixityMode mode;
+    private final FixityVerifier verifier;
+
+    private ManifestCheck(final Path root, final FixityMode mode, final FixityVerifier verifier) {
+        this.root = root.toAbsolutePath();
+        this.mode = mode;
+        this.verifier = verifier;
+    }
+
+    /**
+     * Create a {@link ManifestCheck} for a bag, reading its payload manifests if they are needed
+     *
+     * @param root the root directory of the bag
+     * @param mode the {@link FixityMode}
+     * @return the {@link ManifestCheck}
+     * @throws IOException if the manifests can not be read
+     */
+    static ManifestCheck create(final Path root, final FixityMode mode) throws IOException {
+        if (mode == FixityMode.NONE) {
+            return new ManifestCheck(root, mode, null);
+        }
+
+        final FixityVerifier verifier = FixityVerifier.forBag(root);
+        verifier.setFailFast(mode == FixityMode.FAIL);
+        return new ManifestCheck(root, mode, verifier);
+    }
+
+    /**
+     * @return true if payload files are verified
+     */
+    boolean isVerifying() {
+        return verifier != null;
+    }
+
+    /**
+     * Open a file of the bag, verifying it as it is read if it is a payload file
+     *
+     * @param file the file to open
+     * @return the {@link InputStream} of the file
+     * @throws IOException if the file can not be opened
+     */
+    InputStream open(final Path file) throws IOException {
+        final InputStream is = Files.newInputStream(file);
+        final Path relative = root.relativize(file.toAbsolutePath());
+        if (verifier == null || relative.getNameCount() < 2 || !relative.startsWith(PAYLOAD_DIRECTORY)) {
+            return is;
+        }
+
+        final String path = relative.toString().replace(relative.getFileSystem().getSeparator(), "/");
+        return verifier.verify(path, is);
+    }
+
+    /**
+     * Finish verifying the payload once every file has been read
+     *
+     * @return the {@link FixityResult}, or null if payload files are not verified
+     * @throws FixityException if the {@link FixityMode} is {@link FixityMode#FAIL} and the payload is not valid
+     */
+    FixityResult finish() throws FixityException {
+        if (verifier == null) {
+            return null;
+        }
+
+        final FixityResult result = verifier.getResult();
+        if (!result.isValid()) {
+            if (mode == FixityMode.FAIL) {
+                throw new FixityException(result);
+            }
+            result.getFailures().forEach(failure -> logger.warn("Fixity failure in {}: {}", root, failure));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,281 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link OutputStream} which writes a single member gzip stream, compressing blocks of its input in parallel. The
+ * input is split into fixed size blocks which are each deflated by a worker, using the end of the previous block as a
+ * preset dictionary so that the compression ratio is close to that of a single {@link Deflater}. Each block ends on a
+ * byte boundary with a sync flush, so the compressed blocks are written in order to form one deflate stream which any
+ * gzip implementation can read.
+ *
+ * The number of blocks being compressed at a time is bounded by the number of workers, so memory use stays at a few
+ * blocks per worker regardless of how much is written.
+ *
+ * @since 2026-10-17
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /**
+     * The default size of each block which is compressed by a worker
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int OS_UNKNOWN = 255;
+
+    private final OutputStream out;
+    private final int level;
+    private final int blockSize;
+    private final int maxPending;
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    private byte[] block;
+    private byte[] previous;
+    private int position;
+    private long size;
+    private boolean closed;
+
+    /**
+     * Create a {@link ParallelGzipOutputStream} with the default compression level and one worker per available
+     * processor
+     *
+     * @param out the {@link OutputStream} to write the gzip stream to
+     * @throws IOException if the gzip header can not be written
+     */
+    public ParallelGzipOutputStream(final OutputStream out) throws IOException {
+        this(out, Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a {@link ParallelGzipOutputStream}
+     *
+     * @param out the {@link OutputStream} to write the gzip stream to
+     * @param level the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param threads the number of workers to compress blocks with
+     * @throws IOException if the gzip header can not be written
+     * @throws IllegalArgumentException if the {@code level} is not valid or the {@code threads} is less than 1
+     */
+    public ParallelGzipOutputStream(final OutputStream out, final int level, final int threads) throws IOException {
+        this(out, level, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a {@link ParallelGzipOutputStream} with a given block size
+     *
+     * @param out the {@link OutputStream} to write the gzip stream to
+     * @param level the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param threads the number of workers to compress blocks with
+     * @param blockSize the size of each block which is compressed by a worker
+     * @throws IOException if the gzip header can not be written
+     */
+    ParallelGzipOutputStream(final OutputStream out, final int level, final int threads, final int blockSize)
+        throws IOException {
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) &&
+            level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be greater than 0: " + threads);
+        }
+
+        this.out = out;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxPending = threads * 2;
+        this.block = new byte[blockSize];
+
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory factory = runnable -> {
+            final Thread thread = new Thread(runnable, "bagit-gzip-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(threads, factory);
+
+        writeHeader();
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        block[position++] = (byte) b;
+        if (position == blockSize) {
+            submit(false);
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int length = Math.min(remaining, blockSize - position);
+            System.arraycopy(b, offset, block, position, length);
+            position += length;
+            offset += length;
+            remaining -= length;
+            if (position == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Flush the blocks which have already been compressed. Data in the current block is not compressed until the
+     * block is full or the stream is closed, so that flushing does not reduce the compression ratio.
+     *
+     * @throws IOException if the compressed blocks can not be written
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            out.write(get(pending.removeFirst()));
+        }
+        out.flush();
+    }
+
+    /**
+     * Compress the remaining input, write the gzip trailer, and close the underlying {@link OutputStream}
+     *
+     * @throws IOException if the stream can not be finished
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            submit(true);
+            while (!pending.isEmpty()) {
+                out.write(get(pending.removeFirst()));
+            }
+            writeTrailer();
+        } finally {
+            closed = true;
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submit(final boolean last) throws IOException {
+        final byte[] input = block;
+        final byte[] dictionary = previous;
+        final int length = position;
+        crc.update(input, 0, length);
+        size += length;
+
+        pending.addLast(executor.submit(() -> deflate(input, length, dictionary, last)));
+        while (pending.size() > maxPending) {
+            out.write(get(pending.removeFirst()));
+        }
+
+        previous = input;
+        block = new byte[blockSize];
+        position = 0;
+    }
+
+    private byte[] deflate(final byte[] input, final int length, final byte[] dictionary, final boolean last) {
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                final int dictionaryLength = Math.min(DICTIONARY_SIZE, dictionary.length);
+                deflater.setDictionary(dictionary, dictionary.length - dictionaryLength, dictionaryLength);
+            }
+            deflater.setInput(input, 0, length);
+
+            byte[] output = new byte[length + (length >> 3) + 64];
+            int written = 0;
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (written == output.length) {
+                        output = Arrays.copyOf(output, output.length * 2);
+                    }
+                    written += deflater.deflate(output, written, output.length - written);
+                }
+            } else {
+                // a sync flush is complete once the deflater no longer fills the output buffer
+                int count;
+                do {
+                    if (written == output.length) {
+                        output = Arrays.copyOf(output, output.length * 2);
+                    }
+                    count = deflater.deflate(output, written, output.length - written, Deflater.SYNC_FLUSH);
+                    written += count;
+                } while (written == output.length);
+            }
+            return Arrays.copyOf(output, written);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        final int xfl = level == Deflater.BEST_COMPRESSION ? 2 : level == Deflater.BEST_SPEED ? 4 : 0;
+        out.write(new byte[] {
+            (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, (byte) xfl,
+            (byte) OS_UNKNOWN
+        });
+    }
+
+    private void writeTrailer() throws IOException {
+        final byte[] trailer = new byte[8];
+        writeInt(trailer, 0, (int) crc.getValue());
+        writeInt(trailer, 4, (int) size);
+        out.write(trailer);
+        out.flush();
+    }
+
+    private static void writeInt(final byte[] buf, final int offset, final int value) {
+        buf[offset] = (byte) value;
+        buf[offset + 1] = (byte) (value >> 8);
+        buf[offset + 2] = (byte) (value >> 16);
+        buf[offset + 3] = (byte) (value >> 24);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static byte[] get(final Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+}
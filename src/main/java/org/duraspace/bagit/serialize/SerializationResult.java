@@ -0,0 +1,177 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityResult;
+import org.duraspace.bagit.MultiDigestOutputStream;
+import org.duraspace.bagit.exception.FixityException;
+
+/**
+ * The result of serializing a bag: where the archive was written, its size, the number of entries it contains, how
+ * long it took to write, and the checksums of the archive which were computed as it was written.
+ *
+ * @since 2026-10-17
+ */
+public class SerializationResult {
+
+    private final Path path;
+    private final long bytes;
+    private final int entries;
+    private final Duration elapsed;
+    private final Map<BagItDigest, String> checksums;
+    private final FixityResult fixity;
+
+    /**
+     * Writes the entries of an archive to a stream
+     */
+    @FunctionalInterface
+    interface ArchiveWriter {
+        /**
+         * @param out the {@link OutputStream} to write the archive to
+         * @return the number of entries written
+         * @throws IOException if the archive can not be written
+         */
+        int write(final OutputStream out) throws IOException;
+    }
+
+    /**
+     * Create a {@link SerializationResult}
+     *
+     * @param path the path of the archive
+     * @param bytes the size of the archive in bytes
+     * @param entries the number of entries in the archive
+     * @param elapsed the time taken to write the archive
+     * @param checksums the checksums of the archive
+     */
+    public SerializationResult(final Path path, final long bytes, final int entries, final Duration elapsed,
+                               final Map<BagItDigest, String> checksums) {
+        this(path, bytes, entries, elapsed, checksums, null);
+    }
+
+    /**
+     * Create a {@link SerializationResult} for an archive whose payload was verified against the manifests of the bag
+     *
+     * @param path the path of the archive
+     * @param bytes the size of the archive in bytes
+     * @param entries the number of entries in the archive
+     * @param elapsed the time taken to write the archive
+     * @param checksums the checksums of the archive
+     * @param fixity the result of verifying the payload, or null if it was not verified
+     */
+    public SerializationResult(final Path path, final long bytes, final int entries, final Duration elapsed,
+                               final Map<BagItDigest, String> checksums, final FixityResult fixity) {
+        this.path = path;
+        this.bytes = bytes;
+        this.entries = entries;
+        this.elapsed = elapsed;
+        this.checksums = checksums;
+        this.fixity = fixity;
+    }
+
+    /**
+     * Write an archive to a file, counting and digesting its bytes on the way to the file. If the payload does not
+     * match the manifests of the bag and the {@link ManifestCheck} fails, the archive is removed.
+     *
+     * @param archive the file to write the archive to
+     * @param algorithms the algorithms to compute checksums of the archive for
+     * @param check the {@link ManifestCheck} which the files of the bag are read through
+     * @param writer the {@link ArchiveWriter} which writes the archive
+     * @return the {@link SerializationResult}
+     * @throws IOException if the archive can not be written
+     */
+    static SerializationResult write(final Path archive, final Set<BagItDigest> algorithms,
+                                     final ManifestCheck check, final ArchiveWriter writer) throws IOException {
+        final long start = System.nanoTime();
+        final MultiDigestOutputStream digests;
+        final CountingOutputStream counter;
+        final int entries;
+        final FixityResult fixity;
+        try {
+            try (OutputStream os = Files.newOutputStream(archive)) {
+                digests = new MultiDigestOutputStream(os, algorithms);
+                counter = new CountingOutputStream(digests);
+                entries = writer.write(counter);
+                digests.close();
+            }
+            fixity = check.finish();
+        } catch (FixityException e) {
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return new SerializationResult(archive, counter.getByteCount(), entries, elapsed, digests.getDigests(),
+                                       fixity);
+    }
+
+    /**
+     * @return the path of the archive
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the size of the archive in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of entries in the archive, including directories
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the time taken to write the archive
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return the checksums of the archive, hex encoded
+     */
+    public Map<BagItDigest, String> getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * Get the checksum of the archive for an algorithm
+     *
+     * @param algorithm the algorithm
+     * @return the hex encoded checksum, or null if it was not computed
+     */
+    public String getChecksum(final BagItDigest algorithm) {
+        return checksums.get(algorithm);
+    }
+
+    /**
+     * @return the result of verifying the payload against the manifests of the bag, or null if it was not verified
+     */
+    public FixityResult getFixity() {
+        return fixity;
+    }
+
+    @Override
+    public String toString() {
+        return "SerializationResult{path=" + path + ", bytes=" + bytes + ", entries=" + entries +
+               ", elapsed=" + elapsed + ", checksums=" + checksums + ", fixity=" + fixity + "}";
+    }
+
+}
@@ -4,7 +4,9 @@
  */
 package org.duraspace.bagit.serialize;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -12,8 +14,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
 import org.apache.tika.Tika;
 import org.duraspace.bagit.exception.BagProfileException;
 import org.duraspace.bagit.profile.BagProfile;
@@ -50,6 +59,11 @@ public class SerializationSupport {
     public static final Set<String> GZIP_TYPES = new HashSet<>(Arrays.asList(APPLICATION_GZIP, APPLICATION_X_GTAR,
                                                                              APPLICATION_X_COMPRESSED_TAR));
 
+    /**
+     * The number of bytes read from a stream in order to detect its content type, which is the size of a tar header
+     */
+    private static final int PEEK_SIZE = 512;
+
     /**
      * The commonTypeMap acts as a way to coerce various types onto a single format. E.g. handing application/gtar and
      * application/tar will go through the same class, so we map application/gtar to application/tar.
@@ -94,6 +108,16 @@ public class SerializationSupport {
         return new HashMap<>(commonTypeMap);
     }
 
+    /**
+     * Coerce a content type, in either its short or long form, onto the single type used for its format
+     *
+     * @param contentType the content type
+     * @return the common content type, or the {@code contentType} if it is not known
+     */
+    protected static String commonType(final String contentType) {
+        return commonTypeMap.getOrDefault(contentType, contentType);
+    }
+
     /**
      * Get a {@link BagDeserializer} for a given content type. Currently supported are:
      * zip ({@link SerializationSupport#ZIP_TYPES}) - {@link ZipBagDeserializer}
@@ -122,6 +146,129 @@ public class SerializationSupport {
             throw new UncheckedIOException(e);
         }
 
+        return deserializerForType(contentType, profile);
+    }
+
+    /**
+     * Get a {@link BagDeserializer} for a serialized bag which is being read from a stream. The content type is
+     * detected from the magic bytes at the start of the stream, so the stream must support
+     * {@link InputStream#mark(int)}. No bytes are consumed from the stream so that it can be passed to
+     * {@link BagDeserializer#deserialize(InputStream, Path)}.
+     *
+     * @param serializedBag the {@link InputStream} of the serialized bag
+     * @param profile the {@link BagProfile} to ensure that the content type is allowed
+     * @return the {@link BagDeserializer}
+     * @throws BagProfileException if the the {@code serializedBag} is not supported by the {@code profile}
+     * @throws IllegalArgumentException if the {@code serializedBag} does not support mark and reset
+     * @throws UncheckedIOException if the stream can not be read
+     * @throws UnsupportedOperationException if the content type of the serialized bag does not have a
+     *                                       {@link BagDeserializer}
+     */
+    public static BagDeserializer deserializerFor(final InputStream serializedBag, final BagProfile profile) {
+        return deserializerFor(serializedBag, null, profile);
+    }
+
+    /**
+     * Get a {@link BagDeserializer} for a stream, using the name of the serialized bag as a hint when the stream
+     * does not match any of the supported formats
+     *
+     * @param serializedBag the {@link InputStream} of the serialized bag
+     * @param filename the name of the serialized bag, or null if it is not known
+     * @param profile the {@link BagProfile} to ensure that the content type is allowed
+     * @return the {@link BagDeserializer}
+     */
+    static BagDeserializer deserializerFor(final InputStream serializedBag, final String filename,
+                                           final BagProfile profile) {
+        if (!serializedBag.markSupported()) {
+            throw new IllegalArgumentException("The InputStream must support mark and reset in order to detect its " +
+                                               "content type");
+        }
+
+        final String contentType;
+        try {
+            contentType = detect(serializedBag, filename);
+            logger.debug("Detected {} from stream", contentType);
+        } catch (IOException e) {
+            logger.error("Unable to get content type from stream");
+            throw new UncheckedIOException(e);
+        }
+
+        return deserializerForType(contentType, profile);
+    }
+
+    /**
+     * Deserialize a bag as it is read from a stream, e.g. an upload or a network socket, detecting the serialization
+     * format from its content. The {@code serializedBag} is not closed.
+     *
+     * @param serializedBag the {@link InputStream} of the serialized bag
+     * @param parent the directory to extract the bag into
+     * @param profile the {@link BagProfile} to ensure that the content type is allowed
+     * @return the {@link Path} to the deserialized bag
+     * @throws IOException if there are any errors deserializing the bag
+     * @throws BagProfileException if the the {@code serializedBag} is not supported by the {@code profile}
+     * @throws UnsupportedOperationException if the content type of the serialized bag does not have a
+     *                                       {@link BagDeserializer}
+     */
+    public static Path deserialize(final InputStream serializedBag, final Path parent, final BagProfile profile)
+        throws IOException {
+        final InputStream in = serializedBag.markSupported() ? serializedBag : new BufferedInputStream(serializedBag);
+        return deserializerFor(in, profile).deserialize(in, parent);
+    }
+
+    /**
+     * Detect the content type of a stream by peeking at its first bytes and checking them for the magic bytes of the
+     * supported formats. If none match, tika is used so that the content type can still be reported. The stream is
+     * reset to where it was before reading.
+     *
+     * @param in the {@link InputStream} to detect, which must support mark and reset
+     * @param filename the name of the stream passed to tika as a hint, or null if it is not known
+     * @return the common content type of the stream
+     * @throws IOException if the stream can not be read
+     */
+    protected static String detect(final InputStream in, final String filename) throws IOException {
+        final byte[] peek = new byte[PEEK_SIZE];
+        final int read;
+        in.mark(PEEK_SIZE);
+        try {
+            read = IOUtils.read(in, peek);
+        } finally {
+            in.reset();
+        }
+
+        if (GzipCompressorInputStream.matches(peek, read)) {
+            return APPLICATION_GZIP;
+        } else if (ZipArchiveInputStream.matches(peek, read)) {
+            return APPLICATION_ZIP;
+        } else if (TarArchiveInputStream.matches(peek, read) || (read == PEEK_SIZE && isTarHeader(peek))) {
+            return APPLICATION_TAR;
+        }
+
+        final String detectedType = new Tika().detect(in, filename);
+        return commonTypeMap.getOrDefault(detectedType, detectedType);
+    }
+
+    /**
+     * Pre-posix tar headers have no magic, so check if a block is a tar header by verifying its checksum
+     *
+     * @param block the block to check
+     * @return true if the block is a tar header
+     */
+    private static boolean isTarHeader(final byte[] block) {
+        try {
+            return TarUtils.verifyCheckSum(block);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the {@link BagDeserializer} for a detected content type
+     *
+     * @param contentType the common content type of the serialized bag
+     * @param profile the {@link BagProfile} to ensure that the content type is allowed
+     * @return the {@link BagDeserializer}
+     */
+    private static BagDeserializer deserializerForType(final String contentType, final BagProfile profile) {
         if (profile.getAcceptedSerializations().contains(contentType)) {
             if (ZIP_TYPES.contains(contentType)) {
                 return new ZipBagDeserializer();
@@ -166,4 +313,67 @@ public class SerializationSupport {
                                    profile.getAcceptedSerializations());
     }
 
+    /**
+     * Finds the bag in an archive from the names of its entries, and maps each entry to its path relative to the bag.
+     * The bag is found from the first entry. A bag serialized with a top level directory has every entry under that
+     * directory. A file at the top level of the archive, the payload directory, or a "./" entry (e.g. from
+     * {@code tar -C bag .}) means the archive has no top level directory and the bag is at its root.
+     */
+    static class BagRoot {
+        private static final String CURRENT_DIRECTORY = "./";
+        private static final String PAYLOAD_DIRECTORY = "data";
+
+        /**
+         * The directory of the bag with a trailing '/', an empty String if the bag is at the root of the archive, or
+         * null until the first entry has been seen
+         */
+        private String directory;
+
+        /**
+         * Get the path of an entry relative to the bag. The first entry passed in determines where the bag is.
+         *
+         * @param entry the entry of the archive
+         * @return the path of the entry relative to the bag without a trailing '/', an empty String for the directory
+         *         of the bag itself, or null if the entry is not in the bag
+         */
+        String relativize(final ArchiveEntry entry) {
+            String name = entry.getName();
+            while (name.startsWith(CURRENT_DIRECTORY)) {
+                name = name.substring(CURRENT_DIRECTORY.length());
+            }
+            if (name.endsWith("/")) {
+                name = name.substring(0, name.length() - 1);
+            }
+
+            if (directory == null) {
+                final int separator = name.indexOf('/');
+                final String first = separator < 0 ? name : name.substring(0, separator);
+                if (name.isEmpty() || (separator < 0 && !entry.isDirectory()) || first.equals(PAYLOAD_DIRECTORY)) {
+                    directory = "";
+                } else {
+                    directory = first + "/";
+                }
+                logger.debug("Bag directory of the archive is \"{}\"", directory);
+            }
+
+            if (directory.isEmpty() || name.startsWith(directory)) {
+                return name.substring(directory.length());
+            }
+            return directory.equals(name + "/") ? "" : null;
+        }
+
+        /**
+         * Get the name of the directory of the bag
+         *
+         * @return the name of the bag directory, or empty if the bag is at the root of the archive or no entries have
+         *         been seen
+         */
+        Optional<String> getName() {
+            if (directory == null || directory.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(directory.substring(0, directory.length() - 1));
+        }
+    }
+
 }
@@ -0,0 +1,381 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+import org.duraspace.bagit.BagItDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-only view of a serialized bag which can open any file in the bag without extracting or scanning the archive.
+ * The first time an archive is opened its headers are read into an index which is saved next to the archive, so later
+ * readers only need to load the index. An index which was built from a different version of the archive is rebuilt.
+ *
+ * Only zip archives and uncompressed tar archives can be read, as a gzipped archive can not be read from an offset
+ * without inflating everything before it.
+ *
+ * A reader is thread safe, and each stream it opens reads from the archive independently of the others.
+ *
+ * @since 2026-10-17
+ */
+public class SerializedBagReader implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerializedBagReader.class);
+
+    /**
+     * The suffix of the index saved next to an archive
+     */
+    public static final String INDEX_SUFFIX = ".index";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path archive;
+    private final ArchiveIndex index;
+    private final FileChannel channel;
+
+    private SerializedBagReader(final Path archive, final ArchiveIndex index) throws IOException {
+        this.archive = archive;
+        this.index = index;
+        this.channel = FileChannel.open(archive, StandardOpenOption.READ);
+    }
+
+    /**
+     * Open a serialized bag, using the index next to it
+     *
+     * @param archive the serialized bag
+     * @return the {@link SerializedBagReader}
+     * @throws IOException if the archive can not be read
+     * @throws UnsupportedOperationException if the content type of the {@code archive} is not supported
+     */
+    public static SerializedBagReader open(final Path archive) throws IOException {
+        return open(archive, archive.resolveSibling(archive.getFileName() + INDEX_SUFFIX));
+    }
+
+    /**
+     * Open a serialized bag with the index at a given location. If the index does not exist or is out of date, it
+     * is built and saved to the location. If it can not be saved the reader still uses the index it built.
+     *
+     * @param archive the serialized bag
+     * @param indexFile the location of the index for the {@code archive}
+     * @return the {@link SerializedBagReader}
+     * @throws IOException if the archive can not be read
+     * @throws UnsupportedOperationException if the content type of the {@code archive} is not supported
+     */
+    public static SerializedBagReader open(final Path archive, final Path indexFile) throws IOException {
+        ArchiveIndex index = ArchiveIndex.load(archive, indexFile);
+        if (index == null) {
+            index = ArchiveIndex.build(archive, formatOf(archive));
+            try {
+                index.save(indexFile);
+            } catch (IOException e) {
+                logger.warn("Unable to save index {}, it will be rebuilt the next time {} is opened",
+                            indexFile, archive, e);
+            }
+        }
+
+        return new SerializedBagReader(archive, index);
+    }
+
+    private static ArchiveIndex.Format formatOf(final Path archive) throws IOException {
+        final String contentType;
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(archive))) {
+            contentType = SerializationSupport.detect(is, archive.getFileName().toString());
+        }
+
+        if (SerializationSupport.ZIP_TYPES.contains(contentType)) {
+            return ArchiveIndex.Format.ZIP;
+        } else if (SerializationSupport.TAR_TYPES.contains(contentType)) {
+            return ArchiveIndex.Format.TAR;
+        }
+
+        throw new UnsupportedOperationException("Unable to read entries from content type " + contentType);
+    }
+
+    /**
+     * Get the name of the bag, the directory which all other files in the archive are in. If the archive has no such
+     * directory the bag is at its root and is named after the archive without its extension.
+     *
+     * @return the name of the bag
+     */
+    public String getBagName() {
+        return index.getBagName();
+    }
+
+    /**
+     * Get the files in the bag, relative to the bag and in the order they appear in the archive
+     *
+     * @return the paths of the files in the bag
+     */
+    public Set<String> getFiles() {
+        return index.getEntries().keySet();
+    }
+
+    /**
+     * Check if a file exists in the bag
+     *
+     * @param path the path of the file relative to the bag, e.g. data/image0.binary
+     * @return true if the file exists
+     */
+    public boolean contains(final String path) {
+        return index.getEntries().containsKey(path);
+    }
+
+    /**
+     * Get the size of a file in the bag
+     *
+     * @param path the path of the file relative to the bag
+     * @return the uncompressed size of the file
+     * @throws NoSuchFileException if the file does not exist in the bag
+     */
+    public long getSize(final String path) throws NoSuchFileException {
+        return entry(path).getSize();
+    }
+
+    /**
+     * Get the checksums of a file in the bag listed by the payload manifests
+     *
+     * @param path the path of the file relative to the bag
+     * @return the checksums of the file, which are empty if it is not listed in a payload manifest
+     * @throws NoSuchFileException if the file does not exist in the bag
+     */
+    public Map<BagItDigest, String> getChecksums(final String path) throws NoSuchFileException {
+        return Collections.unmodifiableMap(entry(path).getChecksums());
+    }
+
+    /**
+     * Open a file in the bag
+     *
+     * @param path the path of the file relative to the bag
+     * @return an {@link EntryInputStream} for the file
+     * @throws IOException if the file can not be opened
+     * @throws NoSuchFileException if the file does not exist in the bag
+     */
+    public EntryInputStream getInputStream(final String path) throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("Reader for " + archive + " is closed");
+        }
+
+        final ArchiveIndex.Entry entry = entry(path);
+        if (entry.getMethod() != ZipEntry.STORED && entry.getMethod() != ZipEntry.DEFLATED) {
+            throw new IOException("Unsupported compression method " + entry.getMethod() + " for " + path);
+        }
+        return new EntryInputStream(entry);
+    }
+
+    private ArchiveIndex.Entry entry(final String path) throws NoSuchFileException {
+        final ArchiveIndex.Entry entry = index.getEntries().get(path);
+        if (entry == null) {
+            throw new NoSuchFileException(path, null, "Not found in " + archive);
+        }
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * An {@link InputStream} over a single file in a serialized bag which can be repositioned. A file which is stored
+     * without compression seeks directly to any position. A deflated file seeks forward by inflating up to the
+     * position, and seeks backward by inflating again from the start of the file.
+     */
+    public class EntryInputStream extends InputStream {
+
+        private final ArchiveIndex.Entry entry;
+        private final byte[] single = new byte[1];
+        private long position;
+
+        // deflated entries only
+        private Inflater inflater;
+        private byte[] compressed;
+        private long compressedPosition;
+
+        private EntryInputStream(final ArchiveIndex.Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * @return the uncompressed size of the file
+         */
+        public long size() {
+            return entry.getSize();
+        }
+
+        /**
+         * @return the position in the file of the next byte to be read
+         */
+        public long position() {
+            return position;
+        }
+
+        /**
+         * Set the position in the file of the next byte to be read
+         *
+         * @param newPosition the new position, which may be at most the size of the file
+         * @throws IOException if the file can not be read
+         */
+        public void seek(final long newPosition) throws IOException {
+            if (newPosition < 0 || newPosition > entry.getSize()) {
+                throw new EOFException("Position " + newPosition + " is outside of " + entry.getPath());
+            }
+
+            if (entry.getMethod() == ZipEntry.STORED) {
+                position = newPosition;
+                return;
+            }
+
+            if (newPosition < position) {
+                resetInflater();
+            }
+            final long skipped = skip(newPosition - position);
+            if (position != newPosition) {
+                throw new EOFException("Unable to seek to " + newPosition + " in " + entry.getPath() +
+                                       ", stopped at " + skipped);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            final long remaining = entry.getSize() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            final int length = (int) Math.min(len, remaining);
+            final int read = entry.getMethod() == ZipEntry.STORED ? readStored(b, off, length)
+                                                                  : readDeflated(b, off, length);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+
+            if (entry.getMethod() == ZipEntry.STORED) {
+                final long skipped = Math.min(n, entry.getSize() - position);
+                position += skipped;
+                return skipped;
+            }
+
+            final byte[] discard = new byte[(int) Math.min(BUFFER_SIZE, n)];
+            long skipped = 0;
+            while (skipped < n) {
+                final int read = read(discard, 0, (int) Math.min(discard.length, n - skipped));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, entry.getSize() - position);
+        }
+
+        @Override
+        public void close() {
+            if (inflater != null) {
+                inflater.end();
+                inflater = null;
+            }
+        }
+
+        private int readStored(final byte[] b, final int off, final int len) throws IOException {
+            final int read = channel.read(ByteBuffer.wrap(b, off, len), entry.getOffset() + position);
+            if (read <= 0) {
+                throw new EOFException("Unexpected end of archive reading " + entry.getPath());
+            }
+            return read;
+        }
+
+        private int readDeflated(final byte[] b, final int off, final int len) throws IOException {
+            if (inflater == null) {
+                resetInflater();
+            }
+
+            try {
+                int read;
+                while ((read = inflater.inflate(b, off, len)) == 0) {
+                    if (inflater.finished() || inflater.needsDictionary()) {
+                        throw new EOFException("Unexpected end of compressed data reading " + entry.getPath());
+                    }
+                    if (inflater.needsInput()) {
+                        fill();
+                    }
+                }
+                return read;
+            } catch (DataFormatException e) {
+                throw new IOException("Invalid compressed data reading " + entry.getPath(), e);
+            }
+        }
+
+        private void fill() throws IOException {
+            final long remaining = entry.getCompressedSize() - compressedPosition;
+            if (remaining <= 0) {
+                // an inflater without a zlib wrapper may need an extra byte to finish
+                if (remaining < 0) {
+                    throw new EOFException("Unexpected end of compressed data reading " + entry.getPath());
+                }
+                compressedPosition++;
+                inflater.setInput(new byte[1]);
+                return;
+            }
+
+            final ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, (int) Math.min(compressed.length, remaining));
+            final int read = channel.read(buffer, entry.getOffset() + compressedPosition);
+            if (read <= 0) {
+                throw new EOFException("Unexpected end of archive reading " + entry.getPath());
+            }
+            compressedPosition += read;
+            inflater.setInput(compressed, 0, read);
+        }
+
+        private void resetInflater() {
+            if (inflater == null) {
+                inflater = new Inflater(true);
+                compressed = new byte[BUFFER_SIZE];
+            } else {
+                inflater.reset();
+            }
+            compressedPosition = 0;
+            position = 0;
+        }
+    }
+
+}
@@ -0,0 +1,344 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static org.duraspace.bagit.profile.BagProfileConstants.BAGIT_TAG_SUFFIX;
+import static org.duraspace.bagit.profile.BagProfileConstants.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarFile;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.duraspace.bagit.exception.ProfileValidationException;
+import org.duraspace.bagit.profile.BagProfile;
+import org.duraspace.bagit.profile.ProfileValidationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validate a serialized bag against a {@link BagProfile} without extracting it. Only the names of the entries in the
+ * archive and the contents of the tag files which the profile has rules for are read. A zip archive is read through
+ * its central directory and a tar archive by skipping from header to header, so the payload is never read. A
+ * tar+gzip archive has to be inflated to find its headers, but nothing is written to disk.
+ *
+ * The same rules as {@link BagProfile#validateBag(gov.loc.repository.bagit.domain.Bag)} are checked: the fetch rule,
+ * the payload and tag manifest algorithms, the allowed and required tag files, the fields of the info tag files, and
+ * the BagIt version. The serialization of the archive must also be accepted by the profile.
+ *
+ * @since 2026-10-17
+ */
+public class SerializedBagValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerializedBagValidator.class);
+
+    /**
+     * The largest tag file which will be read into memory
+     */
+    public static final long MAX_TAG_FILE_SIZE = 1024 * 1024;
+
+    private static final String BAGIT_TXT = "bagit.txt";
+    private static final String FETCH_TXT = "fetch.txt";
+    private static final String PAYLOAD_DIRECTORY = "data/";
+    private static final Pattern PAYLOAD_MANIFEST = Pattern.compile("manifest-(\\w+)\\.txt");
+    private static final Pattern TAG_MANIFEST = Pattern.compile("tagmanifest-(\\w+)\\.txt");
+    private static final Pattern BAGIT_VERSION = Pattern.compile("^BagIt-Version:\\s*(\\S+)\\s*$",
+                                                                 Pattern.MULTILINE);
+
+    private final BagProfile profile;
+
+    /**
+     * Create a {@link SerializedBagValidator}
+     *
+     * @param profile the {@link BagProfile} to validate against
+     */
+    public SerializedBagValidator(final BagProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Validate a serialized bag against the {@link BagProfile}
+     *
+     * @param serializedBag the serialized bag
+     * @throws IOException if the {@code serializedBag} can not be read
+     * @throws RuntimeException if the bag does not conform to the {@link BagProfile}, with a message listing each
+     *                          error which was found
+     * @throws UnsupportedOperationException if the content type of the {@code serializedBag} is not supported
+     */
+    public void validate(final Path serializedBag) throws IOException {
+        logger.info("Validating serialized bag {} against profile {}", serializedBag, profile.getIdentifier());
+
+        final String contentType;
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(serializedBag))) {
+            contentType = SerializationSupport.detect(is, serializedBag.getFileName().toString());
+        }
+
+        final Entries entries;
+        if (SerializationSupport.ZIP_TYPES.contains(contentType)) {
+            entries = readZip(serializedBag);
+        } else if (SerializationSupport.TAR_TYPES.contains(contentType)) {
+            entries = readTar(serializedBag);
+        } else if (SerializationSupport.GZIP_TYPES.contains(contentType)) {
+            entries = readGzip(serializedBag);
+        } else {
+            throw new UnsupportedOperationException("Unsupported content type " + contentType);
+        }
+
+        validate(contentType, entries);
+    }
+
+    /**
+     * Read the entries of a zip archive from its central directory, reading only the tag files which are needed
+     */
+    private Entries readZip(final Path serializedBag) throws IOException {
+        final Entries entries = new Entries();
+        try (ZipFile zip = ZipFile.builder().setPath(serializedBag).get()) {
+            final Enumeration<ZipArchiveEntry> zipEntries = zip.getEntries();
+            while (zipEntries.hasMoreElements()) {
+                final ZipArchiveEntry entry = zipEntries.nextElement();
+                final String tag = entries.add(entry);
+                if (tag != null) {
+                    try (InputStream is = zip.getInputStream(entry)) {
+                        entries.read(tag, entry.getSize(), is);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Read the entries of a tar archive by seeking past the content of each entry, reading only the tag files which
+     * are needed
+     */
+    private Entries readTar(final Path serializedBag) throws IOException {
+        final Entries entries = new Entries();
+        try (TarFile tar = new TarFile(serializedBag)) {
+            for (TarArchiveEntry entry : tar.getEntries()) {
+                final String tag = entries.add(entry);
+                if (tag != null) {
+                    try (InputStream is = tar.getInputStream(entry)) {
+                        entries.read(tag, entry.getSize(), is);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Read the entries of a gzipped archive as it is inflated
+     */
+    private Entries readGzip(final Path serializedBag) throws IOException {
+        final Entries entries = new Entries();
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(serializedBag));
+             GzipCompressorInputStream gzip = new GzipCompressorInputStream(is, true);
+             InputStream inflated = new BufferedInputStream(gzip)) {
+            final String innerType = SerializationSupport.detect(inflated, serializedBag.getFileName().toString());
+            final ArchiveInputStream<?> archive;
+            if (SerializationSupport.ZIP_TYPES.contains(innerType)) {
+                archive = new ZipArchiveInputStream(inflated);
+            } else if (SerializationSupport.TAR_TYPES.contains(innerType)) {
+                archive = new TarArchiveInputStream(inflated);
+            } else {
+                throw new UnsupportedOperationException("Unsupported content type in gzip " + innerType);
+            }
+
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                final String tag = entries.add(entry);
+                if (tag != null) {
+                    entries.read(tag, entry.getSize(), archive);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Check the entries of a serialized bag against the profile, mirroring
+     * {@link BagProfile#validateBag(gov.loc.repository.bagit.domain.Bag)}
+     */
+    private void validate(final String contentType, final Entries entries) {
+        final StringBuilder errors = new StringBuilder(entries.errors);
+
+        if (!profile.getAcceptedSerializations().isEmpty() &&
+            !profile.getAcceptedSerializations().contains(contentType)) {
+            errors.append("Serialization ").append(contentType).append(" is not accepted; accepted serializations are ")
+                  .append(profile.getAcceptedSerializations()).append("\n");
+        }
+
+        // check fetch rule
+        if (!profile.isAllowFetch() && entries.files.contains(FETCH_TXT)) {
+            errors.append("Profile does not allow a fetch.txt but fetch file found!\n");
+        }
+
+        // check manifest algorithms
+        final Set<String> payloadAlgorithms = new HashSet<>();
+        final Set<String> tagAlgorithms = new HashSet<>();
+        for (String file : entries.files) {
+            final Matcher payload = PAYLOAD_MANIFEST.matcher(file);
+            final Matcher tag = TAG_MANIFEST.matcher(file);
+            if (payload.matches()) {
+                payloadAlgorithms.add(payload.group(1));
+            } else if (tag.matches()) {
+                tagAlgorithms.add(tag.group(1));
+            }
+        }
+
+        errors.append(ProfileValidationUtil.validateManifestAlgorithms(payloadAlgorithms,
+                                                                       profile.getPayloadDigestAlgorithms(),
+                                                                       profile.getAllowedPayloadAlgorithms(),
+                                                                       "payload"));
+        if (tagAlgorithms.isEmpty()) {
+            errors.append("No tag manifest found!\n");
+        } else {
+            errors.append(ProfileValidationUtil.validateManifestAlgorithms(tagAlgorithms,
+                                                                           profile.getTagDigestAlgorithms(),
+                                                                           profile.getAllowedTagAlgorithms(),
+                                                                           "tag"));
+
+            // every file outside of the payload is a tag file, other than the tag manifests themselves
+            for (String file : entries.files) {
+                if (!file.startsWith(PAYLOAD_DIRECTORY) && !TAG_MANIFEST.matcher(file).matches()) {
+                    try {
+                        ProfileValidationUtil.validateTagIsAllowed(Paths.get(file), profile.getTagFilesAllowed());
+                    } catch (ProfileValidationException e) {
+                        errors.append(e.getMessage());
+                    }
+                }
+            }
+        }
+
+        // check all required tag files exist
+        for (String tagName : profile.getTagFilesRequired()) {
+            if (!entries.files.contains(tagName)) {
+                errors.append("Required tag file \"").append(tagName).append("\" does not exist!\n");
+            }
+        }
+
+        // check *-info required fields
+        for (String section : profile.getSectionNames()) {
+            final String tagFile = section.toLowerCase() + BAGIT_TAG_SUFFIX;
+            final byte[] tag = entries.tags.get(tagFile);
+            if (tag == null) {
+                errors.append("Could not read info from \"").append(tagFile).append("\"!\n");
+                continue;
+            }
+
+            try {
+                ProfileValidationUtil.validate(section, profile.getMetadataFields(section),
+                                               new ByteArrayInputStream(tag));
+            } catch (IOException e) {
+                errors.append("Could not read info from \"").append(tagFile).append("\"!\n");
+            } catch (ProfileValidationException e) {
+                errors.append(e.getMessage());
+            }
+        }
+
+        // check allowed bagit versions
+        final byte[] bagit = entries.tags.get(BAGIT_TXT);
+        final Matcher version = BAGIT_VERSION.matcher(bagit == null ? "" : new String(bagit, UTF_8));
+        if (!version.find() || !profile.getAcceptedBagItVersions().contains(version.group(1))) {
+            errors.append("BagIt version incompatible; accepted versions are ")
+                  .append(profile.getAcceptedBagItVersions())
+                  .append("\n");
+        }
+
+        if (!errors.isEmpty()) {
+            throw new RuntimeException("Bag profile validation failure: The following errors occurred: \n" +
+                                       errors.toString());
+        }
+    }
+
+    /**
+     * The files found in a serialized bag, relative to the bag, and the contents of the tag files which are needed to
+     * validate it
+     */
+    private class Entries {
+        private final Set<String> files = new HashSet<>();
+        private final Map<String, byte[]> tags = new HashMap<>();
+        private final StringBuilder errors = new StringBuilder();
+        private final SerializationSupport.BagRoot bagRoot = new SerializationSupport.BagRoot();
+
+        /**
+         * Add an entry of the archive
+         *
+         * @param entry the entry
+         * @return the name of the entry relative to the bag if its content is needed, otherwise null
+         */
+        String add(final ArchiveEntry entry) {
+            final String file = bagRoot.relativize(entry);
+            if (file == null) {
+                logger.warn("Entry {} is not in the bag directory {}", entry.getName(), bagRoot.getName().orElse(""));
+                return null;
+            }
+
+            if (entry.isDirectory() || file.isEmpty()) {
+                return null;
+            }
+
+            files.add(file);
+            return needed(file) ? file : null;
+        }
+
+        /**
+         * Read the content of a tag file
+         *
+         * @param file the name of the tag file relative to the bag
+         * @param size the size of the tag file, or -1 if it is not known
+         * @param content the content of the tag file
+         * @throws IOException if the content can not be read
+         */
+        void read(final String file, final long size, final InputStream content) throws IOException {
+            if (size > MAX_TAG_FILE_SIZE) {
+                errors.append("Tag file \"").append(file).append("\" is larger than ").append(MAX_TAG_FILE_SIZE)
+                      .append(" bytes!\n");
+                return;
+            }
+
+            final byte[] tag = content.readNBytes((int) MAX_TAG_FILE_SIZE + 1);
+            if (tag.length > MAX_TAG_FILE_SIZE) {
+                errors.append("Tag file \"").append(file).append("\" is larger than ").append(MAX_TAG_FILE_SIZE)
+                      .append(" bytes!\n");
+            } else {
+                tags.put(file, tag);
+            }
+        }
+
+        private boolean needed(final String file) {
+            if (file.equals(BAGIT_TXT)) {
+                return true;
+            }
+
+            for (String section : profile.getSectionNames()) {
+                if (file.equals(section.toLowerCase() + BAGIT_TAG_SUFFIX)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+import org.duraspace.bagit.FixityVerifier;
+
+/**
+ * A {@link BagDeserializer} which extracts an archive as it is read from a stream. This lets the
+ * {@link GZipBagDeserializer} extract the archive it inflates with the name of the gzipped file to fall back on.
+ */
+abstract class StreamDeserializer implements BagDeserializer {
+
+    /**
+     * Extract an archive as it is read from a stream. The {@code serializedBag} is not closed.
+     *
+     * @param serializedBag the {@link InputStream} of the serialized bag
+     * @param parent the directory to create the bag in
+     * @param name the name of the bag if it can not be determined from the archive, or null if it must be
+     * @param verifier the {@link FixityVerifier} to verify the payload with, or null to skip verification
+     * @param filter the filter for the path of each file relative to the bag, or null to extract every entry
+     * @return the {@link Path} to the deserialized bag
+     * @throws IOException if there are any errors deserializing the bag
+     */
+    abstract Path extract(InputStream serializedBag, Path parent, String name, FixityVerifier verifier,
+                          Predicate<String> filter) throws IOException;
+
+}
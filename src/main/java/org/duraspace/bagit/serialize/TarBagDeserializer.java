@@ -5,12 +5,18 @@
 package org.duraspace.bagit.serialize;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
-import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarFile;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityVerifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,7 +26,7 @@ import org.slf4j.LoggerFactory;
  * @author mikejritter
  * @since 2020-02-11
  */
-public class TarBagDeserializer implements BagDeserializer {
+public class TarBagDeserializer extends StreamDeserializer {
 
     private final Logger logger = LoggerFactory.getLogger(TarBagDeserializer.class);
 
@@ -29,45 +35,81 @@ public class TarBagDeserializer implements BagDeserializer {
 
     @Override
     public Path deserialize(final Path root) throws IOException {
+        return extract(root, null);
+    }
+
+    @Override
+    public Path deserialize(final InputStream serializedBag, final Path parent) throws IOException {
+        return extract(serializedBag, parent, null, null, null);
+    }
+
+    @Override
+    public DeserializationResult deserialize(final Path root, final Set<BagItDigest> algorithms) throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(algorithms);
+        final Path bag = extract(root, verifier);
+        return new DeserializationResult(bag, verifier.getResult());
+    }
+
+    @Override
+    public DeserializationResult deserialize(final InputStream serializedBag, final Path parent,
+                                             final Set<BagItDigest> algorithms) throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(algorithms);
+        final Path bag = extract(serializedBag, parent, null, verifier, null);
+        return new DeserializationResult(bag, verifier.getResult());
+    }
+
+    @Override
+    public Path deserialize(final Path root, final Predicate<String> filter) throws IOException {
+        logger.info("Extracting entries of serialized bag: {}", root.getFileName());
+
+        // seek from header to header so only the matching entries are read
+        final Path parent = root.getParent();
+        final Optional<String> filename;
+        try (TarFile tar = new TarFile(root)) {
+            filename = ArchiveExtractor.extract(tar.getEntries(), tar::getInputStream, parent, filter);
+        }
+        return parent.resolve(filename.orElseGet(() -> nameOf(root)));
+    }
+
+    @Override
+    public Path deserialize(final InputStream serializedBag, final Path parent, final Predicate<String> filter)
+        throws IOException {
+        return extract(serializedBag, parent, null, null, filter);
+    }
+
+    private Path extract(final Path root, final FixityVerifier verifier) throws IOException {
         logger.info("Extracting serialized bag: {}", root.getFileName());
 
         final Path parent = root.getParent();
-        final int rootPathCount = root.getNameCount();
-        Optional<String> filename = Optional.empty();
+        final Optional<String> filename;
         try (TarArchiveInputStream tais = new TarArchiveInputStream(Files.newInputStream(root))) {
-            ArchiveEntry entry;
-            while ((entry = tais.getNextEntry()) != null) {
-                final String name = entry.getName();
-
-                logger.debug("Handling entry {}", entry.getName());
-                final Path archiveFile = parent.resolve(name);
-
-                if (Files.notExists(archiveFile.getParent())) {
-                    Files.createDirectories(archiveFile.getParent());
-                }
-
-                if (entry.isDirectory()) {
-                    Files.createDirectories(archiveFile);
-                    if (archiveFile.getNameCount() == rootPathCount) {
-                        logger.debug("Archive name is {}", archiveFile.getFileName());
-                        filename = Optional.of(archiveFile.getFileName().toString());
-                    }
-                } else {
-                    if (Files.exists(parent.resolve(name))) {
-                        logger.warn("File {} already exists!", name);
-                    } else {
-                        Files.copy(tais, archiveFile);
-                    }
-                }
-            }
+            filename = ArchiveExtractor.extract(tais, parent, verifier);
+        }
+
+        return parent.resolve(filename.orElseGet(() -> nameOf(root)));
+    }
+
+    /**
+     * Get the name of the bag from the serialized bag minus the extension
+     */
+    private String nameOf(final Path root) {
+        final String rootName = root.getFileName().toString();
+        final int dotIdx = rootName.lastIndexOf(".");
+        return rootName.substring(0, dotIdx);
+    }
+
+    @Override
+    Path extract(final InputStream serializedBag, final Path parent, final String name,
+                 final FixityVerifier verifier, final Predicate<String> filter) throws IOException {
+        logger.info("Extracting serialized bag from stream into {}", parent);
+
+        final Optional<String> filename;
+        try (TarArchiveInputStream tais = new TarArchiveInputStream(CloseShieldInputStream.wrap(serializedBag))) {
+            filename = ArchiveExtractor.extract(tais, parent, verifier, filter);
         }
 
-        final String extracted = filename.orElseGet(() -> {
-            // get the name from the tarball minus the extension
-            final String rootName = root.getFileName().toString();
-            final int dotIdx = rootName.lastIndexOf(".");
-            return rootName.substring(0, dotIdx);
-        });
+        final String extracted = filename.or(() -> Optional.ofNullable(name)).orElseThrow(
+            () -> new IOException("Unable to determine the name of the bag from an empty archive"));
         return parent.resolve(extracted);
     }
 }
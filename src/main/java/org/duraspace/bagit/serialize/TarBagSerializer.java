@@ -4,16 +4,28 @@
  */
 package org.duraspace.bagit.serialize;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.stream.Stream;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.BagTreeWalker;
+import org.duraspace.bagit.exception.FixityException;
 
 /**
  * Serialize a BagIt Bag into a Tar archive
@@ -22,34 +34,149 @@ import org.apache.commons.io.FileUtils;
  * @since 2020-02-24
  */
 public class TarBagSerializer implements BagSerializer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final String extension = ".tar";
 
+    private FixityMode fixityMode = FixityMode.NONE;
+
+    /**
+     * Set how the payload is verified against the manifests of the bag as it is copied into the archive. When the
+     * payload is verified, it is read through the heap instead of being transferred directly to the archive.
+     *
+     * @param fixityMode the {@link FixityMode}
+     */
+    public void setFixityMode(final FixityMode fixityMode) {
+        this.fixityMode = fixityMode;
+    }
+
     @Override
     public Path serialize(final Path root) throws IOException {
+        final Path serializedBag = archiveFor(root);
+        try (final FileChannel channel = FileChannel.open(serializedBag, StandardOpenOption.CREATE,
+                                                          StandardOpenOption.TRUNCATE_EXISTING,
+                                                          StandardOpenOption.WRITE)) {
+            serialize(root, channel);
+        } catch (FixityException e) {
+            Files.deleteIfExists(serializedBag);
+            throw e;
+        }
+
+        return serializedBag;
+    }
+
+    @Override
+    public void serialize(final Path root, final OutputStream out) throws IOException {
+        final ManifestCheck check = ManifestCheck.create(root, fixityMode);
+        writeTar(root, new BagTreeWalker().walk(root), check, out);
+        out.flush();
+        check.finish();
+    }
+
+    /**
+     * Serialize a bag through the {@link TarArchiveOutputStream} so that the archive can be digested as it is
+     * written. The payload passes through the heap in order to be digested, so this does not transfer files
+     * directly the way {@link TarBagSerializer#serialize(Path)} does.
+     *
+     * @param root the {@link Path} which is the top level directory of the BagIt bag
+     * @param algorithms the algorithms to compute checksums of the archive for
+     * @return the {@link SerializationResult}
+     * @throws IOException if there is an error writing to the archive
+     */
+    @Override
+    public SerializationResult serialize(final Path root, final Set<BagItDigest> algorithms) throws IOException {
+        final List<BagTreeWalker.WalkedFile> files = new BagTreeWalker().walk(root);
+        final ManifestCheck check = ManifestCheck.create(root, fixityMode);
+        return SerializationResult.write(archiveFor(root), algorithms, check, out -> {
+            writeTar(root, files, check, out);
+            return files.size();
+        });
+    }
+
+    private Path archiveFor(final Path root) {
         final Path parent = root.getParent().toAbsolutePath();
         final String bagName = root.getFileName().toString();
+        return parent.resolve(bagName + extension);
+    }
+
+    /**
+     * Serialize a bag to a {@link WritableByteChannel} without copying the payload through the heap. The content of
+     * each file is moved with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which the operating
+     * system can perform as a direct copy when the {@code channel} is a file or a socket, unless the payload is being
+     * verified against the manifests.
+     *
+     * @param root the {@link Path} which is the top level directory of the BagIt bag
+     * @param channel the {@link WritableByteChannel} to write the archive to
+     * @throws IOException if there is an error writing to the archive
+     */
+    @Override
+    public void serialize(final Path root, final WritableByteChannel channel) throws IOException {
+        if (fixityMode == FixityMode.NONE) {
+            TarChannelWriter.writeTar(root, channel);
+        } else {
+            serialize(root, new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        }
+    }
 
-        final Path serializedBag = parent.resolve(bagName + extension);
-        try (final OutputStream os = Files.newOutputStream(serializedBag);
-            final TarArchiveOutputStream tar = new TarArchiveOutputStream(os);
-            final Stream<Path> files = Files.walk(root)) {
+    /**
+     * Write the files of a bag which have already been walked as a tar archive
+     *
+     * @param root the {@link Path} which is the top level directory of the BagIt bag
+     * @param files the files of the bag from a {@link BagTreeWalker}
+     * @param check the {@link ManifestCheck} to read the files of the bag through
+     * @param out the {@link OutputStream} to write the archive to
+     * @throws IOException if there is an error writing to the archive
+     */
+    static void writeTar(final Path root, final List<BagTreeWalker.WalkedFile> files, final ManifestCheck check,
+                         final OutputStream out) throws IOException {
+        final Path parent = root.toAbsolutePath().getParent();
+        try (final TarArchiveOutputStream tar = new TarArchiveOutputStream(CloseShieldOutputStream.wrap(out))) {
             tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
             tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
 
-            final Iterator<Path> itr = files.iterator();
-            while (itr.hasNext()) {
-                final Path bagEntry = itr.next();
-                final String name = parent.relativize(bagEntry).toString();
-                final TarArchiveEntry entry = tar.createArchiveEntry(bagEntry.toFile(), name);
+            for (BagTreeWalker.WalkedFile file : files) {
+                final Path bagEntry = file.getPath();
+                final String name = parent.relativize(bagEntry.toAbsolutePath()).toString();
+                final TarArchiveEntry entry = createEntry(name, file.getAttributes());
                 tar.putArchiveEntry(entry);
-                if (bagEntry.toFile().isFile()) {
-                    FileUtils.copyFile(bagEntry.toFile(), tar);
+                if (file.getAttributes().isRegularFile()) {
+                    try (InputStream is = check.open(bagEntry)) {
+                        is.transferTo(tar);
+                    }
                 }
                 tar.closeArchiveEntry();
             }
         }
+    }
 
-        return serializedBag;
+    /**
+     * Create a tar entry from the attributes read while walking a bag, so that the file does not need to be read
+     * again
+     *
+     * @param name the name of the entry
+     * @param attributes the attributes of the file
+     * @return the {@link TarArchiveEntry}
+     */
+    static TarArchiveEntry createEntry(final String name, final BasicFileAttributes attributes) {
+        final boolean directory = attributes.isDirectory();
+        final TarArchiveEntry entry = new TarArchiveEntry(directory && !name.endsWith("/") ? name + "/" : name);
+        entry.setModTime(attributes.lastModifiedTime());
+        if (attributes.isRegularFile()) {
+            entry.setSize(attributes.size());
+        }
+
+        if (attributes instanceof PosixFileAttributes) {
+            final PosixFileAttributes posix = (PosixFileAttributes) attributes;
+            int mode = directory ? TarArchiveEntry.DEFAULT_DIR_MODE & ~0777 : TarArchiveEntry.DEFAULT_FILE_MODE & ~0777;
+            for (PosixFilePermission permission : posix.permissions()) {
+                // the permissions are declared from owner read (0400) to others execute (0001)
+                mode |= 0400 >> permission.ordinal();
+            }
+            entry.setMode(mode);
+            entry.setUserName(posix.owner().getName());
+            entry.setGroupName(posix.group().getName());
+        }
+        return entry;
     }
 
 }
@@ -0,0 +1,228 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.ZipEncoding;
+import org.apache.commons.compress.archivers.zip.ZipEncodingHelper;
+import org.duraspace.bagit.BagTreeWalker;
+
+/**
+ * Write the files of a bag as a tar archive directly to a {@link WritableByteChannel}. The tar headers are encoded
+ * into a buffer and the content of each file is moved with {@link FileChannel#transferTo(long, long,
+ * WritableByteChannel)}, which lets the operating system copy files to another file or a socket without passing the
+ * bytes through the heap.
+ *
+ * Names which do not fit in a tar header and sizes over 8 GiB are written with pax extended headers, the same as the
+ * {@link org.apache.commons.compress.archivers.tar.TarArchiveOutputStream} used for streams.
+ *
+ * @since 2026-10-17
+ */
+final class TarChannelWriter {
+
+    private static final int RECORD_SIZE = TarConstants.DEFAULT_RCDSIZE;
+    private static final int BLOCK_SIZE = TarConstants.DEFAULT_BLKSIZE;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_STALLED_PASSES = 16;
+    private static final String PAX_PREFIX = "./PaxHeaders.X/";
+    private static final ZipEncoding ENCODING = ZipEncodingHelper.getZipEncoding(StandardCharsets.UTF_8);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] record = new byte[RECORD_SIZE];
+    private long written;
+
+    private TarChannelWriter(final WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Write the files of a bag as a tar archive. The archive is finished, but the {@code channel} is not closed.
+     *
+     * @param root the {@link Path} which is the top level directory of the BagIt bag
+     * @param channel the {@link WritableByteChannel} to write the archive to
+     * @throws IOException if there is an error writing to the archive
+     */
+    static void writeTar(final Path root, final WritableByteChannel channel) throws IOException {
+        final TarChannelWriter writer = new TarChannelWriter(channel);
+        final Path parent = root.toAbsolutePath().getParent();
+        for (BagTreeWalker.WalkedFile file : new BagTreeWalker().walk(root)) {
+            final Path bagEntry = file.getPath();
+            final String name = parent.relativize(bagEntry.toAbsolutePath()).toString();
+            final TarArchiveEntry entry = TarBagSerializer.createEntry(name, file.getAttributes());
+            writer.writeHeader(entry);
+            if (file.getAttributes().isRegularFile()) {
+                writer.transfer(bagEntry, entry.getSize());
+            }
+        }
+        writer.finish();
+    }
+
+    private void writeHeader(final TarArchiveEntry entry) throws IOException {
+        final Map<String, String> paxHeaders = new LinkedHashMap<>();
+        final String name = entry.getName();
+        if (name.getBytes(StandardCharsets.UTF_8).length >= TarConstants.NAMELEN) {
+            paxHeaders.put("path", name);
+        }
+        if (entry.getSize() > TarConstants.MAXSIZE) {
+            paxHeaders.put("size", Long.toString(entry.getSize()));
+        }
+
+        if (!paxHeaders.isEmpty()) {
+            final byte[] content = encodePaxHeaders(paxHeaders);
+            String paxName = PAX_PREFIX + name.replaceAll("[^\\x20-\\x7E]", "_");
+            if (paxName.length() >= TarConstants.NAMELEN) {
+                paxName = paxName.substring(0, TarConstants.NAMELEN - 1);
+            }
+
+            final TarArchiveEntry paxEntry = new TarArchiveEntry(paxName, TarConstants.LF_PAX_EXTENDED_HEADER_LC);
+            paxEntry.setModTime(entry.getModTime());
+            paxEntry.setSize(content.length);
+            writeRecord(paxEntry);
+            write(content, 0, content.length);
+            pad(content.length);
+        }
+
+        writeRecord(entry);
+    }
+
+    private void writeRecord(final TarArchiveEntry entry) throws IOException {
+        // star mode writes sizes which do not fit in octal as binary for readers which ignore the pax size
+        entry.writeEntryHeader(record, ENCODING, true);
+        write(record, 0, RECORD_SIZE);
+    }
+
+    /**
+     * Move the content of a file to the channel, padding it to the end of its last record. If the channel stops
+     * accepting transfers, the rest of the file is copied through the buffer instead.
+     *
+     * @param file the file to transfer
+     * @param size the size of the file written in its header
+     * @throws IOException if the file can not be transferred or is shorter than its header
+     */
+    private void transfer(final Path file, final long size) throws IOException {
+        flushBuffer();
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            int stalled = 0;
+            while (position < size) {
+                final long transferred = source.transferTo(position, size - position, channel);
+                if (transferred > 0) {
+                    position += transferred;
+                    stalled = 0;
+                } else if (position >= source.size()) {
+                    throw new IOException("File was truncated while it was archived: " + file);
+                } else if (++stalled >= MAX_STALLED_PASSES) {
+                    copy(file, source, position, size);
+                    break;
+                }
+            }
+        }
+        written += size;
+        pad(size);
+    }
+
+    /**
+     * Copy the rest of a file to the channel through the buffer
+     */
+    private void copy(final Path file, final FileChannel source, final long from, final long size)
+        throws IOException {
+        long position = from;
+        while (position < size) {
+            buffer.limit((int) Math.min(buffer.capacity(), size - position));
+            final int read = source.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File was truncated while it was archived: " + file);
+            }
+            position += read;
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Write the two empty records which end a tar archive and pad the archive to a full block
+     *
+     * @throws IOException if the end of the archive can not be written
+     */
+    private void finish() throws IOException {
+        final byte[] eof = new byte[RECORD_SIZE * 2];
+        write(eof, 0, eof.length);
+
+        final int remainder = (int) (written % BLOCK_SIZE);
+        if (remainder > 0) {
+            final byte[] padding = new byte[BLOCK_SIZE - remainder];
+            write(padding, 0, padding.length);
+        }
+        flushBuffer();
+    }
+
+    private void pad(final long length) throws IOException {
+        final int remainder = (int) (length % RECORD_SIZE);
+        if (remainder > 0) {
+            write(new byte[RECORD_SIZE - remainder], 0, RECORD_SIZE - remainder);
+        }
+    }
+
+    private void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        int position = offset;
+        final int end = offset + length;
+        while (position < end) {
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            final int count = Math.min(buffer.remaining(), end - position);
+            buffer.put(bytes, position, count);
+            position += count;
+        }
+        written += length;
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        int stalled = 0;
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) > 0) {
+                stalled = 0;
+            } else if (++stalled >= MAX_STALLED_PASSES) {
+                throw new IOException("Channel stopped accepting writes, it may be non-blocking");
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Encode pax records, each of which is prefixed by its own length in bytes
+     *
+     * @param headers the pax headers
+     * @return the encoded records
+     */
+    private static byte[] encodePaxHeaders(final Map<String, String> headers) {
+        final StringBuilder records = new StringBuilder();
+        headers.forEach((key, value) -> {
+            final String record = " " + key + "=" + value + "\n";
+            final int recordLength = record.getBytes(StandardCharsets.UTF_8).length;
+
+            // the length includes its own digits, which can push it over to another digit
+            int length = recordLength + String.valueOf(recordLength).length();
+            if (String.valueOf(length).length() + recordLength != length) {
+                length = recordLength + String.valueOf(length).length();
+            }
+            records.append(length).append(record);
+        });
+        return records.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
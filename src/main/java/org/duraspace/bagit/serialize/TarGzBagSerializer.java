@@ -8,49 +8,171 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.stream.Stream;
-import java.util.zip.GZIPOutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
 
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.BagTreeWalker;
+import org.duraspace.bagit.exception.FixityException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Serialize a BagIt bag to be a tar+gzip archive.
+ * Serialize a BagIt bag to be a tar+gzip archive. The tar stream is compressed in parallel by a
+ * {@link ParallelGzipOutputStream}.
+ *
+ * Because the whole tar stream is compressed, a {@link CompressionPolicy} can not choose the compression of each
+ * file. Instead, when a policy is set the payload is checked before it is written and if most of it would be stored,
+ * the archive is written without compression so that time is not spent deflating data which will not shrink.
  *
  * @author mikejritter
  * @since 2020-02-24
  */
 public class TarGzBagSerializer implements BagSerializer {
+
+    /**
+     * The fraction of the payload which must be stored by a {@link CompressionPolicy} for the archive to be written
+     * without compression
+     */
+    public static final double INCOMPRESSIBLE_FRACTION = 0.9;
+
+    private final Logger logger = LoggerFactory.getLogger(TarGzBagSerializer.class);
+
     private final String extension = ".tar.gz";
 
+    private final int level;
+    private final int threads;
+    private CompressionPolicy compressionPolicy;
+    private FixityMode fixityMode = FixityMode.NONE;
+
+    /**
+     * Create a {@link TarGzBagSerializer} with the default compression level and one compression thread per available
+     * processor
+     */
+    public TarGzBagSerializer() {
+        this(Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a {@link TarGzBagSerializer}
+     *
+     * @param level the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param threads the number of threads to compress with
+     * @throws IllegalArgumentException if the {@code level} is not valid or the {@code threads} is less than 1
+     */
+    public TarGzBagSerializer(final int level, final int threads) {
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) &&
+            level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be greater than 0: " + threads);
+        }
+
+        this.level = level;
+        this.threads = threads;
+    }
+
+    /**
+     * Set the {@link CompressionPolicy} used to check if the payload of a bag is compressible
+     *
+     * @param compressionPolicy the {@link CompressionPolicy}
+     */
+    public void setCompressionPolicy(final CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * Set how the payload is verified against the manifests of the bag as it is copied into the archive
+     *
+     * @param fixityMode the {@link FixityMode}
+     */
+    public void setFixityMode(final FixityMode fixityMode) {
+        this.fixityMode = fixityMode;
+    }
+
     @Override
     public Path serialize(final Path root) throws IOException {
+        final Path serializedBag = archiveFor(root);
+        try (final OutputStream os = Files.newOutputStream(serializedBag)) {
+            serialize(root, os);
+        } catch (FixityException e) {
+            Files.deleteIfExists(serializedBag);
+            throw e;
+        }
+
+        return serializedBag;
+    }
+
+    @Override
+    public void serialize(final Path root, final OutputStream out) throws IOException {
+        final ManifestCheck check = ManifestCheck.create(root, fixityMode);
+        writeTarGz(root, new BagTreeWalker().walk(root), check, out);
+        out.flush();
+        check.finish();
+    }
+
+    @Override
+    public SerializationResult serialize(final Path root, final Set<BagItDigest> algorithms) throws IOException {
+        final List<BagTreeWalker.WalkedFile> files = new BagTreeWalker().walk(root);
+        final ManifestCheck check = ManifestCheck.create(root, fixityMode);
+        return SerializationResult.write(archiveFor(root), algorithms, check, out -> {
+            writeTarGz(root, files, check, out);
+            return files.size();
+        });
+    }
+
+    private void writeTarGz(final Path root, final List<BagTreeWalker.WalkedFile> files, final ManifestCheck check,
+                            final OutputStream out) throws IOException {
+        try (final ParallelGzipOutputStream gzip =
+                 new ParallelGzipOutputStream(CloseShieldOutputStream.wrap(out), levelFor(root, files), threads)) {
+            TarBagSerializer.writeTar(root, files, check, gzip);
+        }
+    }
+
+    private Path archiveFor(final Path root) {
         final Path parent = root.getParent().toAbsolutePath();
         final String bagName = root.getFileName().toString();
+        return parent.resolve(bagName + extension);
+    }
+
+    /**
+     * Get the compression level for the archive, checking how much of the payload would be stored by the
+     * {@link CompressionPolicy}
+     *
+     * @param root the root directory of the bag
+     * @return the compression level
+     * @throws IOException if the payload can not be read
+     */
+    int levelFor(final Path root) throws IOException {
+        return levelFor(root, compressionPolicy == null ? List.of() : new BagTreeWalker().walk(root));
+    }
 
-        final Path serializedBag = parent.resolve(bagName + extension);
-        try(final OutputStream os = Files.newOutputStream(serializedBag);
-            final GZIPOutputStream gzip = new GZIPOutputStream(os);
-            final TarArchiveOutputStream tar = new TarArchiveOutputStream(gzip);
-            final Stream<Path> files = Files.walk(root)) {
-            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
-            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
-
-            final Iterator<Path> itr = files.iterator();
-            while (itr.hasNext()) {
-                final Path bagEntry = itr.next();
-                final String name = parent.relativize(bagEntry).toString();
-                final TarArchiveEntry entry = tar.createArchiveEntry(bagEntry.toFile(), name);
-                tar.putArchiveEntry(entry);
-                if (bagEntry.toFile().isFile()) {
-                    FileUtils.copyFile(bagEntry.toFile(), tar);
+    private int levelFor(final Path root, final List<BagTreeWalker.WalkedFile> files) throws IOException {
+        if (compressionPolicy == null) {
+            return level;
+        }
+
+        long total = 0;
+        long stored = 0;
+        final Path data = root.resolve("data");
+        for (BagTreeWalker.WalkedFile file : files) {
+            if (file.getAttributes().isRegularFile() && file.getPath().startsWith(data)) {
+                final long size = file.getAttributes().size();
+                total += size;
+                if (compressionPolicy.levelFor(file.getPath()) == CompressionPolicy.STORED) {
+                    stored += size;
                 }
-                tar.closeArchiveEntry();
             }
         }
 
-        return serializedBag;
+        if (total > 0 && stored >= total * INCOMPRESSIBLE_FRACTION) {
+            logger.info("{} of {} payload bytes are incompressible, writing {} without compression",
+                        stored, total, root.getFileName());
+            return Deflater.NO_COMPRESSION;
+        }
+        return level;
     }
 }
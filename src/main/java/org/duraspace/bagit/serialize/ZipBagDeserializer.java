@@ -5,12 +5,19 @@
 package org.duraspace.bagit.serialize;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
-import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityVerifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,7 +27,7 @@ import org.slf4j.LoggerFactory;
  * @author mikejritter
  * @since 2020-02-01
  */
-public class ZipBagDeserializer implements BagDeserializer {
+public class ZipBagDeserializer extends StreamDeserializer {
 
     private final Logger logger = LoggerFactory.getLogger(ZipBagDeserializer.class);
 
@@ -29,45 +36,83 @@ public class ZipBagDeserializer implements BagDeserializer {
 
     @Override
     public Path deserialize(final Path root) throws IOException {
+        return extract(root, null);
+    }
+
+    @Override
+    public Path deserialize(final InputStream serializedBag, final Path parent) throws IOException {
+        return extract(serializedBag, parent, null, null, null);
+    }
+
+    @Override
+    public DeserializationResult deserialize(final Path root, final Set<BagItDigest> algorithms) throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(algorithms);
+        final Path bag = extract(root, verifier);
+        return new DeserializationResult(bag, verifier.getResult());
+    }
+
+    @Override
+    public DeserializationResult deserialize(final InputStream serializedBag, final Path parent,
+                                             final Set<BagItDigest> algorithms) throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(algorithms);
+        final Path bag = extract(serializedBag, parent, null, verifier, null);
+        return new DeserializationResult(bag, verifier.getResult());
+    }
+
+    @Override
+    public Path deserialize(final Path root, final Predicate<String> filter) throws IOException {
+        logger.info("Extracting entries of serialized bag: {}", root.getFileName());
+
+        // read the central directory so only the matching entries are read
+        final Path parent = root.getParent();
+        final Optional<String> filename;
+        try (ZipFile zip = ZipFile.builder().setPath(root).get()) {
+            filename = ArchiveExtractor.extract(Collections.list(zip.getEntries()), zip::getInputStream, parent,
+                                                filter);
+        }
+        return parent.resolve(filename.orElseGet(() -> nameOf(root)));
+    }
+
+    @Override
+    public Path deserialize(final InputStream serializedBag, final Path parent, final Predicate<String> filter)
+        throws IOException {
+        return extract(serializedBag, parent, null, null, filter);
+    }
+
+    private Path extract(final Path root, final FixityVerifier verifier) throws IOException {
         logger.info("Extracting serialized bag: {}", root.getFileName());
 
         final Path parent = root.getParent();
-        final int rootNameCount = root.getNameCount();
-        Optional<String> filename = Optional.empty();
+        final Optional<String> filename;
         try (ZipArchiveInputStream inputStream = new ZipArchiveInputStream(Files.newInputStream(root))) {
-            ArchiveEntry entry;
-            while ((entry = inputStream.getNextEntry()) != null) {
-                final String name = entry.getName();
-
-                logger.debug("Handling entry {}", entry.getName());
-                final Path archiveFile = parent.resolve(name);
-
-                if (Files.notExists(archiveFile.getParent())) {
-                    Files.createDirectories(archiveFile.getParent());
-                }
-
-                if (entry.isDirectory()) {
-                    Files.createDirectories(archiveFile);
-                    if (archiveFile.getNameCount() == rootNameCount) {
-                        logger.debug("Archive name is {}", archiveFile.getFileName());
-                        filename = Optional.of(archiveFile.getFileName().toString());
-                    }
-                } else {
-                    if (Files.exists(parent.resolve(name))) {
-                        logger.warn("File {} already exists!", name);
-                    } else {
-                        Files.copy(inputStream, archiveFile);
-                    }
-                }
-            }
+            filename = ArchiveExtractor.extract(inputStream, parent, verifier);
+        }
+
+        return parent.resolve(filename.orElseGet(() -> nameOf(root)));
+    }
+
+    /**
+     * Get the name of the bag from the serialized bag minus the extension
+     */
+    private String nameOf(final Path root) {
+        final String rootName = root.getFileName().toString();
+        final int dotIdx = rootName.lastIndexOf(".");
+        return rootName.substring(0, dotIdx);
+    }
+
+    @Override
+    Path extract(final InputStream serializedBag, final Path parent, final String name,
+                 final FixityVerifier verifier, final Predicate<String> filter) throws IOException {
+        logger.info("Extracting serialized bag from stream into {}", parent);
+
+        final Optional<String> filename;
+        try (ZipArchiveInputStream inputStream =
+                 new ZipArchiveInputStream(CloseShieldInputStream.wrap(serializedBag))) {
+            filename = ArchiveExtractor.extract(inputStream, parent, verifier, filter);
         }
 
-        final String extracted = filename.orElseGet(() -> {
-            // get the name from the tarball minus the extension
-            final String rootName = root.getFileName().toString();
-            final int dotIdx = rootName.lastIndexOf(".");
-            return rootName.substring(0, dotIdx);
-        });
+        final String extracted = filename.or(() -> Optional.ofNullable(name)).orElseThrow(
+            () -> new IOException("Unable to determine the name of the bag from an empty archive"));
         return parent.resolve(extracted);
     }
 }
@@ -5,51 +5,466 @@
 package org.duraspace.bagit.serialize;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.stream.Stream;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
 
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.BagTreeWalker;
+import org.duraspace.bagit.exception.FixityException;
 
 /**
- * Serialize a BagIt bag into a zip archive without compression
+ * Serialize a BagIt bag into a zip archive.
+ *
+ * When created with more than one thread, the entries of the bag are deflated in parallel and then written to the
+ * archive in the order they were walked, so the archive is the same regardless of the number of threads. Each
+ * compressed entry is held in memory, or in a temporary file once it grows past {@link #IN_MEMORY_THRESHOLD}, until it
+ * is written. Only a few entries per thread are compressed ahead of the archive, and files larger than the spool limit
+ * are compressed while they are written, so the temporary storage used stays bounded.
+ *
+ * Entries which are stored need their CRC before they are written, so with any number of threads a stored file is
+ * read once into a spool while its CRC is computed and its fixity checked, and is then written from the spool. This
+ * keeps the payload from being read twice, and the bytes written are the bytes which were checksummed. The spool
+ * directory needs room for the largest stored file which is larger than {@link #IN_MEMORY_THRESHOLD}.
+ *
+ * A {@link CompressionPolicy} can be set to choose the compression of each file, so that files which are already
+ * compressed are stored rather than deflated again.
  *
  * @author mikejritter
  * @since 2020-02-24
  */
 public class ZipBagSerializer implements BagSerializer {
+
+    /**
+     * The size a compressed entry can reach before it is spooled to a temporary file
+     */
+    public static final int IN_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /**
+     * The default size of the largest file which is compressed ahead of being written to the archive
+     */
+    public static final long DEFAULT_SPOOL_LIMIT = 8L * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final String extension = ".zip";
 
+    private final int level;
+    private final int threads;
+    private final long spoolLimit;
+    private CompressionPolicy compressionPolicy;
+    private FixityMode fixityMode = FixityMode.NONE;
+    private Path spoolDirectory;
+
+    /**
+     * Create a {@link ZipBagSerializer} which compresses entries one at a time with the default compression level
+     */
+    public ZipBagSerializer() {
+        this(Deflater.DEFAULT_COMPRESSION, 1);
+    }
+
+    /**
+     * Create a {@link ZipBagSerializer}
+     *
+     * @param level the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param threads the number of threads to compress entries with
+     * @throws IllegalArgumentException if the {@code level} is not valid or the {@code threads} is less than 1
+     */
+    public ZipBagSerializer(final int level, final int threads) {
+        this(level, threads, DEFAULT_SPOOL_LIMIT);
+    }
+
+    /**
+     * Create a {@link ZipBagSerializer} with a limit on the size of the files which are compressed in parallel
+     *
+     * @param level the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param threads the number of threads to compress entries with
+     * @param spoolLimit the size of the largest file which is compressed ahead of being written to the archive
+     */
+    ZipBagSerializer(final int level, final int threads, final long spoolLimit) {
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) &&
+            level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be greater than 0: " + threads);
+        }
+
+        this.level = level;
+        this.threads = threads;
+        this.spoolLimit = spoolLimit;
+    }
+
+    /**
+     * Set the {@link CompressionPolicy} used to choose how each file is compressed. When no policy is set, every file
+     * is compressed with the level the serializer was created with.
+     *
+     * @param compressionPolicy the {@link CompressionPolicy}
+     */
+    public void setCompressionPolicy(final CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * Set how the payload is verified against the manifests of the bag as it is copied into the archive
+     *
+     * @param fixityMode the {@link FixityMode}
+     */
+    public void setFixityMode(final FixityMode fixityMode) {
+        this.fixityMode = fixityMode;
+    }
+
+    /**
+     * Set the directory compressed and stored entries are spooled to once they grow past
+     * {@link #IN_MEMORY_THRESHOLD}. Defaults to the system temporary directory.
+     *
+     * @param spoolDirectory the directory to write temporary files to
+     */
+    public void setSpoolDirectory(final Path spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
     @Override
     public Path serialize(final Path root) throws IOException {
+        final Path serializedBag = archiveFor(root);
+        try (final OutputStream os = Files.newOutputStream(serializedBag)) {
+            serialize(root, os);
+        } catch (FixityException e) {
+            Files.deleteIfExists(serializedBag);
+            throw e;
+        }
+
+        return serializedBag;
+    }
+
+    @Override
+    public void serialize(final Path root, final OutputStream out) throws IOException {
+        final ManifestCheck check = ManifestCheck.create(root, fixityMode);
+        writeZip(root, new BagTreeWalker().walk(root), check, out);
+        out.flush();
+        check.finish();
+    }
+
+    @Override
+    public SerializationResult serialize(final Path root, final Set<BagItDigest> algorithms) throws IOException {
+        final List<BagTreeWalker.WalkedFile> files = new BagTreeWalker().walk(root);
+        final ManifestCheck check = ManifestCheck.create(root, fixityMode);
+        return SerializationResult.write(archiveFor(root), algorithms, check, out -> {
+            writeZip(root, files, check, out);
+            return files.size();
+        });
+    }
+
+    private void writeZip(final Path root, final List<BagTreeWalker.WalkedFile> files, final ManifestCheck check,
+                          final OutputStream out) throws IOException {
+        final Path parent = root.toAbsolutePath().getParent();
+        try (final ZipArchiveOutputStream zip = new ZipArchiveOutputStream(CloseShieldOutputStream.wrap(out))) {
+            zip.setLevel(level);
+            zip.setUseZip64(Zip64Mode.AsNeeded);
+
+            if (threads == 1) {
+                for (BagTreeWalker.WalkedFile file : files) {
+                    final String name = parent.relativize(file.getPath().toAbsolutePath()).toString();
+                    writeEntry(zip, createEntry(name, file.getAttributes()), file, check);
+                }
+            } else {
+                writeParallel(zip, parent, files, check);
+            }
+        }
+    }
+
+    private Path archiveFor(final Path root) {
         final Path parent = root.getParent().toAbsolutePath();
         final String bagName = root.getFileName().toString();
+        return parent.resolve(bagName + extension);
+    }
+
+    /**
+     * Compress the files of a bag on a pool of threads, writing each entry to the archive in order once it has been
+     * compressed
+     *
+     * @param zip the archive to write to
+     * @param parent the parent directory of the bag
+     * @param files the files of the bag
+     * @param check the {@link ManifestCheck} to read the files of the bag through
+     * @throws IOException if a file can not be compressed or written
+     */
+    private void writeParallel(final ZipArchiveOutputStream zip, final Path parent,
+                               final List<BagTreeWalker.WalkedFile> files, final ManifestCheck check)
+        throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory factory = runnable -> {
+            final Thread thread = new Thread(runnable, "bagit-zip-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, factory);
+        final Deque<PendingEntry> pending = new ArrayDeque<>();
+        try {
+            for (BagTreeWalker.WalkedFile file : files) {
+                final String name = parent.relativize(file.getPath().toAbsolutePath()).toString();
+                final ZipArchiveEntry entry = createEntry(name, file.getAttributes());
+
+                final PendingEntry pendingEntry = new PendingEntry(entry, file);
+                if (file.getAttributes().isRegularFile() && entry.getSize() <= spoolLimit) {
+                    pendingEntry.submit(executor, () -> compress(file.getPath(), levelFor(file.getPath()), check));
+                }
+                pending.addLast(pendingEntry);
 
-        final Path serializedBag = parent.resolve(bagName + extension);
-        try(final OutputStream os = Files.newOutputStream(serializedBag);
-            final ZipArchiveOutputStream zip = new ZipArchiveOutputStream(os);
-            final Stream<Path> files = Files.walk(root)) {
-
-            // it would be nice not to have to collect the files which are walked, but we're required to try/catch
-            // inside of a lambda which isn't the prettiest. maybe a result could be returned which contains either a
-            // Path or the Exception thrown... just an idea
-            final Iterator<Path> itr = files.iterator();
-            while (itr.hasNext()) {
-                final Path bagEntry = itr.next();
-                final String name = parent.relativize(bagEntry).toString();
-                final ZipArchiveEntry entry = zip.createArchiveEntry(bagEntry.toFile(), name);
-                zip.putArchiveEntry(entry);
-                if (bagEntry.toFile().isFile()) {
-                    FileUtils.copyFile(bagEntry.toFile(), zip);
+                while (pending.size() > threads * 2) {
+                    writePending(zip, pending.removeFirst(), check);
                 }
-                zip.closeArchiveEntry();
+            }
+
+            while (!pending.isEmpty()) {
+                writePending(zip, pending.removeFirst(), check);
+            }
+        } finally {
+            executor.shutdownNow();
+            for (PendingEntry entry : pending) {
+                entry.discard();
             }
         }
+    }
 
-        return serializedBag;
+    private void writePending(final ZipArchiveOutputStream zip, final PendingEntry pending,
+                              final ManifestCheck check) throws IOException {
+        if (pending.compressed == null) {
+            writeEntry(zip, pending.entry, pending.file, check);
+            return;
+        }
+
+        writeCompressed(zip, pending.entry, get(pending.compressed));
+    }
+
+    /**
+     * Write a spooled entry to the archive as it is, removing the spool once it has been written
+     *
+     * @param zip the archive to write to
+     * @param entry the entry
+     * @param compressed the spooled content of the entry
+     * @throws IOException if the entry can not be written
+     */
+    private void writeCompressed(final ZipArchiveOutputStream zip, final ZipArchiveEntry entry,
+                                 final CompressedEntry compressed) throws IOException {
+        entry.setCrc(compressed.crc);
+        entry.setSize(compressed.size);
+        try (InputStream raw = compressed.data.toInputStream()) {
+            entry.setMethod(compressed.method);
+            entry.setCompressedSize(compressed.data.getByteCount());
+            zip.addRawArchiveEntry(entry, raw);
+        } finally {
+            compressed.delete();
+        }
+    }
+
+    private void writeEntry(final ZipArchiveOutputStream zip, final ZipArchiveEntry entry,
+                            final BagTreeWalker.WalkedFile file, final ManifestCheck check) throws IOException {
+        final Path bagEntry = file.getPath();
+        final boolean regularFile = file.getAttributes().isRegularFile();
+        if (regularFile) {
+            final int entryLevel = levelFor(bagEntry);
+            if (entryLevel == CompressionPolicy.STORED) {
+                // stored entries need their checksum before they are written, so they are spooled while it is
+                // computed rather than reading the file a second time
+                writeCompressed(zip, entry, compress(bagEntry, entryLevel, check));
+                return;
+            }
+            entry.setMethod(ZipEntry.DEFLATED);
+            zip.setLevel(entryLevel);
+        }
+        zip.putArchiveEntry(entry);
+        if (regularFile) {
+            try (InputStream is = check.open(bagEntry)) {
+                is.transferTo(zip);
+            }
+        }
+        zip.closeArchiveEntry();
+    }
+
+    /**
+     * Create a zip entry from the attributes read while walking a bag, so that the file does not need to be read
+     * again
+     *
+     * @param name the name of the entry
+     * @param attributes the attributes of the file
+     * @return the {@link ZipArchiveEntry}
+     */
+    private static ZipArchiveEntry createEntry(final String name, final BasicFileAttributes attributes) {
+        final boolean directory = attributes.isDirectory();
+        final ZipArchiveEntry entry = new ZipArchiveEntry(directory && !name.endsWith("/") ? name + "/" : name);
+        entry.setTime(attributes.lastModifiedTime().toMillis());
+        if (attributes.isRegularFile()) {
+            entry.setSize(attributes.size());
+        }
+        return entry;
+    }
+
+    /**
+     * Deflate a file into a spool which can be written to the archive as a raw entry. Files which should not be
+     * compressed are copied into the spool as they are, so the content written to the archive is the content which
+     * was checksummed and verified.
+     *
+     * @param file the file to compress
+     * @param entryLevel the compression level of the file, or {@link CompressionPolicy#STORED}
+     * @param check the {@link ManifestCheck} to read the file through
+     * @return the {@link CompressedEntry}
+     * @throws IOException if the file can not be read or spooled
+     */
+    private CompressedEntry compress(final Path file, final int entryLevel, final ManifestCheck check)
+        throws IOException {
+        final CRC32 crc = new CRC32();
+        final DeferredFileOutputStream spool = DeferredFileOutputStream.builder()
+                                                                       .setThreshold(IN_MEMORY_THRESHOLD)
+                                                                       .setDirectory(spoolDirectory())
+                                                                       .setPrefix("bagit-zip")
+                                                                       .setSuffix(".tmp")
+                                                                       .get();
+        final CompressedEntry compressed;
+        final Deflater deflater;
+        if (entryLevel == CompressionPolicy.STORED) {
+            compressed = new CompressedEntry(spool, ZipEntry.STORED);
+            deflater = null;
+        } else {
+            compressed = new CompressedEntry(spool, ZipEntry.DEFLATED);
+            deflater = new Deflater(entryLevel, true);
+        }
+
+        try (InputStream is = new CheckedInputStream(check.open(file), crc);
+             OutputStream out = deflater == null ? spool : new DeflaterOutputStream(spool, deflater, BUFFER_SIZE)) {
+            compressed.size = is.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            compressed.delete();
+            throw e;
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        compressed.crc = crc.getValue();
+        return compressed;
+    }
+
+    private Path spoolDirectory() {
+        return spoolDirectory == null ? FileUtils.getTempDirectory().toPath() : spoolDirectory;
+    }
+
+    private int levelFor(final Path file) throws IOException {
+        return compressionPolicy == null ? level : compressionPolicy.levelFor(file);
     }
+
+    private static CompressedEntry get(final Future<CompressedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * An entry which is waiting to be written to the archive
+     */
+    private static class PendingEntry {
+        private final ZipArchiveEntry entry;
+        private final BagTreeWalker.WalkedFile file;
+        private Future<CompressedEntry> compressed;
+        private CompressedEntry spooled;
+        private boolean discarded;
+
+        PendingEntry(final ZipArchiveEntry entry, final BagTreeWalker.WalkedFile file) {
+            this.entry = entry;
+            this.file = file;
+        }
+
+        /**
+         * Compress the entry ahead of writing it. The spooled result is tracked by the entry so that it can be removed
+         * if the entry is discarded, even when the compression finishes after being cancelled.
+         *
+         * @param executor the executor to compress the entry on
+         * @param compression the compression of the entry
+         */
+        void submit(final ExecutorService executor, final Callable<CompressedEntry> compression) {
+            compressed = executor.submit(() -> spooled(compression.call()));
+        }
+
+        private synchronized CompressedEntry spooled(final CompressedEntry result) throws InterruptedIOException {
+            if (discarded) {
+                result.delete();
+                throw new InterruptedIOException("Compression of " + entry.getName() + " was cancelled");
+            }
+            spooled = result;
+            return result;
+        }
+
+        /**
+         * Remove the spooled data of an entry which will not be written
+         */
+        synchronized void discard() {
+            discarded = true;
+            if (compressed != null) {
+                compressed.cancel(true);
+            }
+            if (spooled != null) {
+                spooled.delete();
+            }
+        }
+    }
+
+    /**
+     * The spooled content of a file, deflated or stored as it is, with its checksum and size
+     */
+    private static class CompressedEntry {
+        private final DeferredFileOutputStream data;
+        private final int method;
+        private long crc;
+        private long size;
+
+        CompressedEntry(final DeferredFileOutputStream data, final int method) {
+            this.data = data;
+            this.method = method;
+        }
+
+        void delete() {
+            if (!data.isInMemory()) {
+                FileUtils.deleteQuietly(data.getPath().toFile());
+            }
+        }
+    }
+
 }
@@ -0,0 +1,140 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Tests for the {@link BagItDigester}
+ *
+ * @since 2026-10-17
+ */
+public class BagItDigesterTest {
+
+    private final Set<BagItDigest> algorithms = EnumSet.of(BagItDigest.MD5, BagItDigest.SHA256, BagItDigest.SHA512);
+
+    private Path workDir;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("bagit-digester");
+    }
+
+    @AfterEach
+    public void teardown() {
+        FileUtils.deleteQuietly(workDir.toFile());
+    }
+
+    @Test
+    public void testParallelDigest() throws IOException {
+        // larger than a single buffer so that the double buffering is exercised
+        final byte[] content = randomBytes(3 * 1024 * 1024 + 17);
+        final Path file = Files.write(workDir.resolve("large.bin"), content);
+
+        try (BagItDigester digester = new BagItDigester(algorithms, 4)) {
+            assertThat(digester.digest(file)).isEqualTo(expected(content));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BagItDigester.ReadMode.class)
+    public void testReadModes(final BagItDigester.ReadMode mode) throws IOException {
+        final byte[] content = randomBytes(2 * 1024 * 1024 + 5);
+        final Path file = Files.write(workDir.resolve("large.bin"), content);
+        final Path empty = Files.createFile(workDir.resolve("empty.bin"));
+
+        for (int parallelism : new int[] {1, 4}) {
+            try (BagItDigester digester = new BagItDigester(algorithms, parallelism)) {
+                digester.setReadMode(mode);
+                assertThat(digester.getReadMode()).isEqualTo(mode);
+                assertThat(digester.digest(file)).isEqualTo(expected(content));
+                assertThat(digester.digest(empty)).isEqualTo(expected(new byte[0]));
+                assertThat(digester.digest(List.of(file, empty)))
+                    .containsEntry(file, expected(content))
+                    .containsEntry(empty, expected(new byte[0]));
+            }
+        }
+    }
+
+    @Test
+    public void testCopy() throws IOException {
+        final byte[] content = randomBytes(1024 * 1024 + 1);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (BagItDigester digester = new BagItDigester(algorithms, 2)) {
+            final Map<BagItDigest, String> checksums = digester.copy(new ByteArrayInputStream(content), out);
+            assertThat(checksums).isEqualTo(expected(content));
+        }
+        assertThat(out.toByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    public void testDigestFiles() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        final List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final byte[] content = randomBytes(i * 1024);
+            contents.add(content);
+            files.add(Files.write(workDir.resolve("file-" + i), content));
+        }
+
+        for (int parallelism : new int[] {1, 3}) {
+            try (BagItDigester digester = new BagItDigester(algorithms, parallelism)) {
+                final Map<Path, Map<BagItDigest, String>> results = digester.digest(files);
+                assertThat(results.keySet()).containsExactlyElementsOf(files);
+                for (int i = 0; i < files.size(); i++) {
+                    assertThat(results.get(files.get(i))).isEqualTo(expected(contents.get(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMissingFile() {
+        try (BagItDigester digester = new BagItDigester(algorithms, 2)) {
+            assertThrows(IOException.class, () -> digester.digest(List.of(workDir.resolve("missing"))));
+        }
+    }
+
+    @Test
+    public void testInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new BagItDigester(algorithms, 0));
+    }
+
+    private Map<BagItDigest, String> expected(final byte[] content) {
+        final Map<BagItDigest, String> expected = new EnumMap<>(BagItDigest.class);
+        algorithms.forEach(algorithm -> expected.put(algorithm,
+                                                     HexEncoder.toString(algorithm.messageDigest().digest(content))));
+        return expected;
+    }
+
+    private static byte[] randomBytes(final int size) {
+        final byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+}
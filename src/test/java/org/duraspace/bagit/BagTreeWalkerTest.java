@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for the {@link BagTreeWalker}
+ *
+ * @since 2026-10-17
+ */
+public class BagTreeWalkerTest {
+
+    @TempDir
+    private Path root;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void testWalk(final int parallelism) throws IOException {
+        // enough files in one directory to split the directory between threads
+        final Path data = Files.createDirectories(root.resolve("data"));
+        for (int i = 999; i >= 0; i--) {
+            Files.writeString(data.resolve(String.format("file-%03d", i)), Integer.toString(i));
+        }
+        final Path nested = Files.createDirectories(data.resolve("file-500-nested"));
+        Files.writeString(nested.resolve("nested.txt"), "nested");
+        Files.writeString(root.resolve("bagit.txt"), "BagIt-Version: 1.0");
+
+        final List<BagTreeWalker.WalkedFile> walked = new BagTreeWalker(parallelism).walk(root);
+
+        final List<Path> expected;
+        try (Stream<Path> files = Files.walk(root)) {
+            expected = files.collect(Collectors.toList());
+        }
+        assertThat(walked).extracting(BagTreeWalker.WalkedFile::getPath).containsExactlyInAnyOrderElementsOf(expected);
+
+        // each directory is followed by its sorted entries and the entries of its subdirectories
+        assertThat(walked.get(0).getPath()).isEqualTo(root);
+        assertThat(walked.get(1).getPath()).isEqualTo(root.resolve("bagit.txt"));
+        assertThat(walked.get(2).getPath()).isEqualTo(data);
+        assertThat(walked.get(3).getPath()).isEqualTo(data.resolve("file-000"));
+        final int nestedIdx = walked.indexOf(walked.stream().filter(file -> file.getPath().equals(nested))
+                                                   .findFirst().orElseThrow());
+        assertThat(walked.get(nestedIdx - 1).getPath()).isEqualTo(data.resolve("file-500"));
+        assertThat(walked.get(nestedIdx + 1).getPath()).isEqualTo(nested.resolve("nested.txt"));
+        assertThat(walked.get(nestedIdx + 2).getPath()).isEqualTo(data.resolve("file-501"));
+
+        for (BagTreeWalker.WalkedFile file : walked) {
+            assertThat(file.getAttributes().isDirectory()).isEqualTo(Files.isDirectory(file.getPath()));
+            if (file.getAttributes().isRegularFile()) {
+                assertThat(file.getAttributes().size()).isEqualTo(Files.size(file.getPath()));
+            }
+        }
+    }
+
+    @Test
+    public void testSymbolicLinkNotFollowed() throws IOException {
+        final Path target = Files.createDirectories(root.resolve("target"));
+        Files.writeString(target.resolve("file.txt"), "content");
+        final Path bag = Files.createDirectories(root.resolve("bag"));
+        Files.createSymbolicLink(bag.resolve("link"), target);
+
+        final List<BagTreeWalker.WalkedFile> walked = new BagTreeWalker(2).walk(bag);
+
+        assertThat(walked).extracting(BagTreeWalker.WalkedFile::getPath).containsExactly(bag, bag.resolve("link"));
+        // the attributes are of the directory which is linked to
+        assertThat(walked.get(1).getAttributes().isDirectory()).isTrue();
+    }
+
+    @Test
+    public void testMissingRoot() {
+        final BagTreeWalker walker = new BagTreeWalker(2);
+        assertThrows(NoSuchFileException.class, () -> walker.walk(root.resolve("missing")));
+        assertThrows(IllegalArgumentException.class, () -> new BagTreeWalker(0));
+    }
+
+}
@@ -9,22 +9,31 @@ import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -219,6 +228,455 @@ public class BagWriterTest {
         validateBag();
     }
 
+    @Test
+    public void testAddPayload() throws Exception {
+        final BagItDigest sha1 = BagItDigest.SHA1;
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] content = "bagit-support payload".getBytes(StandardCharsets.UTF_8);
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha1, sha256), Sets.newHashSet(sha256));
+
+        // one payload from a stream, and one copied from a Path
+        final Map<BagItDigest, String> streamed =
+            writer.addPayload(new ByteArrayInputStream(content), "nested/" + filename);
+        final Path source = Files.write(Files.createTempFile("bag-writer", ".bin"), content);
+        final Map<BagItDigest, String> copied = writer.addPayload(source, filename);
+        Files.delete(source);
+
+        assertThat(streamed).containsOnlyKeys(sha1, sha256)
+                            .containsEntry(sha1, HexEncoder.toString(sha1.messageDigest().digest(content)))
+                            .containsEntry(sha256, HexEncoder.toString(sha256.messageDigest().digest(content)));
+        assertThat(copied).isEqualTo(streamed);
+        assertThat(bag.resolve("data").resolve("nested").resolve(filename)).hasBinaryContent(content);
+
+        final Map<String, String> bagInfoFields = bagInfo();
+        bagInfoFields.put(BagConfig.PAYLOAD_OXUM_KEY, (2 * content.length) + ".2");
+        writer.addTags(extraTagName, Maps.newHashMap("test-key", "test-value"));
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfoFields);
+        writer.write();
+
+        assertThat(Files.readAllLines(bag.resolve("manifest-sha1.txt")))
+            .containsExactlyInAnyOrder(streamed.get(sha1) + "  data/nested/" + filename,
+                                       streamed.get(sha1) + "  data/" + filename);
+        validateBag();
+    }
+
+    @Test
+    public void testRegisterPayloadFiles() throws Exception {
+        final BagItDigest md5 = BagItDigest.MD5;
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] content = "bagit-support payload".getBytes(StandardCharsets.UTF_8);
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(md5, sha256));
+        final Path data = bag.resolve("data");
+        final Path file = Files.write(data.resolve(filename), content);
+        final Path file2 = Files.write(data.resolve(filename + "2"), content);
+
+        try (BagItDigester digester = new BagItDigester(Sets.newHashSet(md5, sha256), 2)) {
+            writer.setDigester(digester);
+            writer.registerPayloadFiles(List.of(file, file2));
+        }
+
+        final Map<String, String> bagInfoFields = bagInfo();
+        bagInfoFields.put(BagConfig.PAYLOAD_OXUM_KEY, (2 * content.length) + ".2");
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfoFields);
+        writer.addTags(extraTagName, Maps.newHashMap("test-key", "test-value"));
+        writer.write();
+
+        final String md5Sum = HexEncoder.toString(md5.messageDigest().digest(content));
+        assertThat(Files.readAllLines(bag.resolve("manifest-md5.txt")))
+            .containsExactlyInAnyOrder(md5Sum + "  data/" + filename, md5Sum + "  data/" + filename + "2");
+        validateBag();
+    }
+
+    @Test
+    public void testRegisterPayloadDirectory() throws Exception {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] content = "bagit-support payload".getBytes(StandardCharsets.UTF_8);
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        final Path data = bag.resolve("data");
+        final Path nested = Files.createDirectories(data.resolve("nested"));
+        Files.write(data.resolve(filename), content);
+        Files.write(nested.resolve(filename), content);
+        writer.registerPayloadDirectory();
+
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfo());
+        writer.addTags(extraTagName, Maps.newHashMap("test-key", "test-value"));
+        writer.write();
+
+        final String checksum = HexEncoder.toString(sha256.messageDigest().digest(content));
+        assertThat(Files.readAllLines(bag.resolve("manifest-sha256.txt")))
+            .containsExactly(checksum + "  data/" + filename, checksum + "  data/nested/" + filename);
+        assertThat(Files.readAllLines(bag.resolve(BagConfig.BAG_INFO_KEY)))
+            .contains(BagConfig.PAYLOAD_OXUM_KEY + ": " + (2 * content.length) + ".2");
+        validateBag();
+    }
+
+    @Test
+    public void testManifestMemoryLimit() throws Exception {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final Path spill = Files.createTempDirectory("bag-writer-spill");
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        writer.setManifestMemoryLimit(1024);
+        writer.setSpillDirectory(spill);
+
+        long bytes = 0;
+        for (int i = 99; i >= 0; i--) {
+            final byte[] content = ("payload-" + i).getBytes(StandardCharsets.UTF_8);
+            writer.addPayload(new ByteArrayInputStream(content), String.format("file-%02d", i));
+            bytes += content.length;
+        }
+        try (Stream<Path> runs = Files.list(spill)) {
+            assertThat(runs).isNotEmpty();
+        }
+
+        final Map<String, String> bagInfoFields = bagInfo();
+        bagInfoFields.put(BagConfig.PAYLOAD_OXUM_KEY, bytes + ".100");
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfoFields);
+        writer.addTags(extraTagName, Maps.newHashMap("test-key", "test-value"));
+        writer.write();
+
+        // the merged manifest is complete and sorted, and the spilled runs are removed
+        final List<String> manifest = Files.readAllLines(bag.resolve("manifest-sha256.txt"));
+        assertThat(manifest).hasSize(100);
+        assertThat(manifest.get(0)).endsWith("  data/file-00");
+        assertThat(manifest.get(99)).endsWith("  data/file-99");
+        try (Stream<Path> runs = Files.list(spill)) {
+            assertThat(runs).isEmpty();
+        }
+        Files.delete(spill);
+
+        validateBag();
+    }
+
+    @Test
+    public void testManifestMemoryBudget() throws Exception {
+        final Path spill = Files.createTempDirectory("bag-writer-spill");
+
+        // each entry fits in the whole budget, but not in the share of the budget for each of the two manifests
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(BagItDigest.SHA256, BagItDigest.SHA512));
+        writer.setManifestMemoryLimit(600);
+        writer.setSpillDirectory(spill);
+        writer.addPayload(new ByteArrayInputStream("payload".getBytes(StandardCharsets.UTF_8)), "file");
+        try (Stream<Path> runs = Files.list(spill)) {
+            assertThat(runs).isNotEmpty();
+        }
+
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfo());
+        writer.write();
+        assertThat(Files.readAllLines(bag.resolve("manifest-sha512.txt"))).hasSize(1);
+        try (Stream<Path> runs = Files.list(spill)) {
+            assertThat(runs).isEmpty();
+        }
+        Files.delete(spill);
+    }
+
+    @Test
+    public void testResumeFromJournal() throws Exception {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] original = "original".getBytes(StandardCharsets.UTF_8);
+        final byte[] updated = "updated!".getBytes(StandardCharsets.UTF_8);
+
+        Files.createDirectories(bag);
+        final Path data = bag.resolve("data");
+        final BagWriter first = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        assertThat(first.enableJournal()).isZero();
+
+        final Path unchanged = Files.write(data.resolve(filename), original);
+        final Path rewritten = Files.write(data.resolve(filename + "2"), original);
+        final Path modified = Files.write(data.resolve(filename + "3"), original);
+        first.registerPayloadFiles(List.of(unchanged, rewritten, modified));
+        assertThat(bag.resolve(".bagwriter-journal")).exists();
+
+        // change the content of a file without changing its size or last modified time so that we can tell it was
+        // not digested again, and modify another so that it must be digested again
+        final FileTime lastModified = Files.getLastModifiedTime(rewritten);
+        Files.write(rewritten, updated);
+        Files.setLastModifiedTime(rewritten, lastModified);
+        Files.write(modified, "modified".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(modified, FileTime.fromMillis(lastModified.toMillis() - 60_000));
+
+        final BagWriter resumed = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        assertThat(resumed.enableJournal()).isEqualTo(2);
+        resumed.registerPayloadFiles(List.of(unchanged, rewritten, modified));
+
+        final Map<String, String> bagInfoFields = bagInfo();
+        bagInfoFields.put(BagConfig.PAYLOAD_OXUM_KEY, "24.3");
+        resumed.addTags(BagConfig.BAG_INFO_KEY, bagInfoFields);
+        resumed.write();
+
+        final String originalSum = HexEncoder.toString(sha256.messageDigest().digest(original));
+        final String modifiedSum =
+            HexEncoder.toString(sha256.messageDigest().digest("modified".getBytes(StandardCharsets.UTF_8)));
+        assertThat(Files.readAllLines(bag.resolve("manifest-sha256.txt")))
+            .containsExactly(originalSum + "  data/" + filename,
+                             originalSum + "  data/" + filename + "2",
+                             modifiedSum + "  data/" + filename + "3");
+        assertThat(bag.resolve(".bagwriter-journal")).doesNotExist();
+    }
+
+    @Test
+    public void testUpdateExistingBag() throws Exception {
+        final BagItDigest md5 = BagItDigest.MD5;
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        final byte[] replaced = "replaced".getBytes(StandardCharsets.UTF_8);
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(md5, sha256), Sets.newHashSet(sha256));
+        writer.addPayload(new ByteArrayInputStream(content), "keep");
+        writer.addPayload(new ByteArrayInputStream(content), "replace");
+        writer.addPayload(new ByteArrayInputStream(content), "remove");
+        final Map<String, String> bagInfoFields = bagInfo();
+        bagInfoFields.put(BagConfig.PAYLOAD_OXUM_KEY, (3 * content.length) + ".3");
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfoFields);
+        writer.addTags(extraTagName, Maps.newHashMap("test-key", "test-value"));
+        writer.write();
+        final String extraTagLine = Files.readAllLines(bag.resolve("tagmanifest-sha256.txt")).stream()
+                                         .filter(line -> line.endsWith(extraTagName))
+                                         .findFirst().orElseThrow();
+
+        // update the bag: add, replace, and remove payload files
+        final BagWriter update = BagWriter.open(bag.toFile());
+        assertThat(update.getTags(BagConfig.BAG_INFO_KEY))
+            .containsEntry(BagConfig.SOURCE_ORGANIZATION_KEY, "bagit-support-✓");
+        update.addPayload(new ByteArrayInputStream(content), "add");
+        update.addPayload(new ByteArrayInputStream(replaced), "replace");
+        assertThat(update.removePayload("remove")).isTrue();
+        update.addTags(BagConfig.BAG_INFO_KEY,
+                       Maps.newHashMap(BagConfig.PAYLOAD_OXUM_KEY, (3 * content.length + 1) + ".3"));
+        update.write();
+
+        final String contentSum = HexEncoder.toString(md5.messageDigest().digest(content));
+        final String replacedSum = HexEncoder.toString(md5.messageDigest().digest(replaced));
+        assertThat(Files.readAllLines(bag.resolve("manifest-md5.txt")))
+            .containsExactly(contentSum + "  data/add", contentSum + "  data/keep", replacedSum + "  data/replace");
+        assertThat(bag.resolve("data").resolve("remove")).doesNotExist();
+        assertThat(Files.readAllLines(bag.resolve("tagmanifest-sha256.txt"))).contains(extraTagLine);
+        assertThat(Files.readAllLines(bag.resolve(BagConfig.BAG_INFO_KEY)))
+            .contains(BagConfig.PAYLOAD_OXUM_KEY + ": " + (3 * content.length + 1) + ".3");
+
+        validateBag();
+    }
+
+    @Test
+    public void testGeneratedBagInfo() throws IOException {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        final byte[] replaced = "replaced".getBytes(StandardCharsets.UTF_8);
+
+        // a caller supplied Payload-Oxum and Bag-Size are replaced by the values counted from the payload
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        writer.addPayload(new ByteArrayInputStream(content), "keep");
+        writer.addPayload(new ByteArrayInputStream(content), "replace");
+        final Map<String, String> bagInfoFields = bagInfo();
+        bagInfoFields.put(BagConfig.PAYLOAD_OXUM_KEY, "1.0");
+        bagInfoFields.put(BagConfig.BAG_SIZE_KEY, "0 bytes");
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfoFields);
+        writer.write();
+        assertThat(Files.readAllLines(bag.resolve(BagConfig.BAG_INFO_KEY)))
+            .contains(BagConfig.PAYLOAD_OXUM_KEY + ": " + (2 * content.length) + ".2",
+                      BagConfig.BAG_SIZE_KEY + ": " + (2 * content.length) + " bytes");
+
+        // the values are regenerated when an existing bag is updated
+        final BagWriter update = BagWriter.open(bag.toFile());
+        update.addPayload(new ByteArrayInputStream(replaced), "replace");
+        update.write();
+        assertThat(Files.readAllLines(bag.resolve(BagConfig.BAG_INFO_KEY)))
+            .contains(BagConfig.PAYLOAD_OXUM_KEY + ": " + (2 * content.length + 1) + ".2",
+                      BagConfig.BAG_SIZE_KEY + ": " + (2 * content.length + 1) + " bytes");
+
+        validateBag();
+    }
+
+    @Test
+    public void testUpdateEncodedPaths() throws IOException {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        final String[] names = {"trailing space ", "100% done", "line\nfeed"};
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        for (String name : names) {
+            writer.addPayload(new ByteArrayInputStream(content), name);
+        }
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfo());
+        writer.write();
+
+        final Path manifest = bag.resolve("manifest-sha256.txt");
+        final String contentSum = HexEncoder.toString(sha256.messageDigest().digest(content));
+        final List<String> expected = List.of(contentSum + "  data/100%25 done", contentSum + "  data/line%0Afeed",
+                                              contentSum + "  data/trailing space ");
+        assertThat(Files.readAllLines(manifest)).containsExactlyElementsOf(expected);
+
+        // the existing entries are read back with the same paths, so only the new file is added
+        final BagWriter update = BagWriter.open(bag.toFile());
+        update.addPayload(new ByteArrayInputStream(content), "added");
+        update.write();
+
+        assertThat(Files.readAllLines(manifest))
+            .containsExactly(expected.get(0), contentSum + "  data/added", expected.get(1), expected.get(2));
+    }
+
+    @Test
+    public void testUpdateRepeatedTags() throws IOException {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        writer.addPayload(new ByteArrayInputStream(content), "keep");
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfo());
+        writer.write();
+
+        // repeat a label and continue a value on an indented line, which are allowed by the BagIt spec
+        final Path bagInfo = bag.resolve(BagConfig.BAG_INFO_KEY);
+        final List<String> fields = new ArrayList<>(Files.readAllLines(bagInfo));
+        fields.add(0, "Contact-Name: First Contact");
+        fields.add("Contact-Name: Second Contact");
+        fields.add("Internal-Sender-Description: A description which");
+        fields.add("  continues on another line");
+        Files.write(bagInfo, fields);
+
+        final BagWriter update = BagWriter.open(bag.toFile());
+        assertThat(update.getTagValues(BagConfig.BAG_INFO_KEY))
+            .containsEntry("Contact-Name", List.of("First Contact", "Second Contact"));
+        update.addPayload(new ByteArrayInputStream(content), "add");
+        update.write();
+
+        final List<String> updated = Files.readAllLines(bagInfo);
+        assertThat(updated.get(0)).isEqualTo("Contact-Name: First Contact");
+        assertThat(updated.get(1)).isEqualTo("Contact-Name: Second Contact");
+        assertThat(updated)
+            .contains("Internal-Sender-Description: A description which continues on another line",
+                      BagConfig.SOURCE_ORGANIZATION_KEY + ": bagit-support-✓");
+
+        validateBag();
+    }
+
+    @Test
+    public void testConcurrentAddPayload() throws Exception {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+        final int threads = 4;
+        final int filesPerThread = 25;
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < filesPerThread; i++) {
+                        final String name = "thread-" + thread + "/file-" + i;
+                        writer.addPayload(new ByteArrayInputStream(name.getBytes(StandardCharsets.UTF_8)), name);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfo());
+        writer.addTags(extraTagName, Maps.newHashMap("test-key", "test-value"));
+        writer.write();
+
+        assertThat(Files.readAllLines(bag.resolve("manifest-sha256.txt"))).hasSize(threads * filesPerThread);
+        validateBag();
+    }
+
+    @Test
+    public void testWriteAsync() throws Exception {
+        final BagItDigest md5 = BagItDigest.MD5;
+        final BagItDigest sha1 = BagItDigest.SHA1;
+        final BagItDigest sha256 = BagItDigest.SHA256;
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(md5, sha1, sha256),
+                                               Sets.newHashSet(md5, sha256));
+        for (int i = 0; i < 10; i++) {
+            writer.addPayload(new ByteArrayInputStream(("payload-" + i).getBytes(StandardCharsets.UTF_8)), "file-" + i);
+        }
+
+        writer.addTags(BagConfig.BAG_INFO_KEY, bagInfo());
+        writer.addTags(extraTagName, Maps.newHashMap("test-key", "test-value"));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            writer.writeAsync(executor).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        checkBagTagFiles(Sets.newHashSet(md5, sha1, sha256), Sets.newHashSet(md5, sha256));
+        validateBag();
+    }
+
+    @Test
+    public void testWriteAsyncFailure() throws IOException {
+        final BagItDigest sha256 = BagItDigest.SHA256;
+
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(sha256));
+        writer.addPayload(new ByteArrayInputStream(new byte[] {1}), "file");
+
+        // a directory in place of the manifest can not be written
+        Files.createDirectories(bag.resolve("manifest-sha256.txt"));
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                                                       () -> writer.writeAsync(Runnable::run).get());
+        assertThat(thrown).hasCauseInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    public void testOpenWithoutManifests() throws IOException {
+        Files.createDirectories(bag);
+        assertThrows(IllegalArgumentException.class, () -> BagWriter.open(bag.toFile()));
+    }
+
+    @Test
+    public void testSetDigesterMissingAlgorithm() throws IOException {
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(BagItDigest.SHA1));
+
+        try (BagItDigester digester = new BagItDigester(Sets.newHashSet(BagItDigest.MD5))) {
+            assertThrows(IllegalArgumentException.class, () -> writer.setDigester(digester));
+        }
+    }
+
+    @Test
+    public void testAddPayloadOutsideData() throws IOException {
+        Files.createDirectories(bag);
+        final BagWriter writer = new BagWriter(bag.toFile(), Sets.newHashSet(BagItDigest.SHA1));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> writer.addPayload(new ByteArrayInputStream(new byte[0]), "../bagit.txt"));
+    }
+
+    /**
+     * Create the bag-info.txt fields required by the profile, which a test can add to before writing a bag
+     *
+     * @return the bag-info.txt fields
+     */
+    private Map<String, String> bagInfo() {
+        final Map<String, String> bagInfoFields = new HashMap<>();
+        bagInfoFields.put(BagConfig.SOURCE_ORGANIZATION_KEY, "bagit-support-✓");
+        bagInfoFields.put(BagConfig.BAGGING_DATE_KEY, ISO_LOCAL_DATE.format(LocalDate.now()));
+        return bagInfoFields;
+    }
+
     private void validateBag() throws IOException {
         final BagReader reader = new BagReader();
         try (BagVerifier verifier = new BagVerifier()) {
@@ -261,6 +719,17 @@ public class BagWriterTest {
         }
     }
 
+    @Test
+    public void testFormatBagSize() {
+        assertThat(BagWriter.formatBagSize(0)).isEqualTo("0 bytes");
+        assertThat(BagWriter.formatBagSize(1023)).isEqualTo("1023 bytes");
+        assertThat(BagWriter.formatBagSize(1024)).isEqualTo("1.0 KB");
+        assertThat(BagWriter.formatBagSize(1536)).isEqualTo("1.5 KB");
+        // 1.99 GB is not truncated to 1 GB
+        assertThat(BagWriter.formatBagSize(2136746229L)).isEqualTo("2.0 GB");
+        assertThat(BagWriter.formatBagSize(1900L * 1024 * 1024)).isEqualTo("1.9 GB");
+    }
+
     @Test
     public void testAddInvalidAlgorithm() throws IOException {
         assertThrows(IllegalArgumentException.class,
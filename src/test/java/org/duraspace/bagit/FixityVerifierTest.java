@@ -0,0 +1,128 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.HexFormat;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.duraspace.bagit.exception.FixityException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link FixityVerifier}
+ *
+ * @since 2026-10-17
+ */
+public class FixityVerifierTest {
+
+    private static final String ALPHA = "alpha";
+    private static final String BETA = "beta";
+
+    @Test
+    public void testManifestFirst() throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(EnumSet.of(BagItDigest.SHA256));
+        verifier.addManifest(BagItDigest.SHA256, manifest(BagItDigest.SHA256, "data/a.txt", ALPHA,
+                                                          "data/b.txt", BETA));
+
+        read(verifier, "data/a.txt", ALPHA);
+        read(verifier, "data/b.txt", BETA);
+
+        final FixityResult result = verifier.getResult();
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.getFiles()).isEqualTo(2);
+    }
+
+    @Test
+    public void testManifestLast() throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(EnumSet.of(BagItDigest.MD5, BagItDigest.SHA256));
+        read(verifier, "data/a.txt", ALPHA);
+        read(verifier, "data/b.txt", "changed");
+        read(verifier, "data/c.txt", "unexpected");
+
+        // the md5 manifest never arrives, so its checksums are not reported
+        verifier.addManifest(BagItDigest.SHA256, manifest(BagItDigest.SHA256, "data/a.txt", ALPHA,
+                                                          "data/b.txt", BETA));
+
+        final FixityResult result = verifier.getResult();
+        assertThat(result.isValid()).isFalse();
+        assertThat(result.getFailures()).hasSize(2);
+        assertThat(result.getFailures()).anyMatch(failure -> failure.getPath().equals("data/b.txt") &&
+                                                             failure.getExpected().equals(hex(BagItDigest.SHA256,
+                                                                                              BETA)));
+        assertThat(result.getFailures()).anyMatch(failure -> failure.getPath().equals("data/c.txt") &&
+                                                             failure.isUnexpected());
+    }
+
+    @Test
+    public void testMissingFile() throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(EnumSet.of(BagItDigest.SHA1));
+        verifier.addManifest(BagItDigest.SHA1, manifest(BagItDigest.SHA1, "data/a.txt", ALPHA, "data/b.txt", BETA));
+        read(verifier, "data/a.txt", ALPHA);
+
+        final FixityResult result = verifier.getResult();
+        assertThat(result.getFailures()).hasSize(1);
+        assertThat(result.getFailures().get(0).isMissing()).isTrue();
+        assertThat(result.getFailures().get(0).getPath()).isEqualTo("data/b.txt");
+    }
+
+    @Test
+    public void testNoManifest() throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(EnumSet.of(BagItDigest.SHA512));
+        read(verifier, "data/a.txt", ALPHA);
+
+        final FixityResult result = verifier.getResult();
+        assertThat(result.isValid()).isFalse();
+        assertThat(result.getFailures()).allMatch(FixityResult.Failure::isUnexpected);
+    }
+
+    @Test
+    public void testFailFast() throws IOException {
+        final FixityVerifier verifier = new FixityVerifier(EnumSet.of(BagItDigest.SHA256));
+        verifier.setFailFast(true);
+        verifier.addManifest(BagItDigest.SHA256, manifest(BagItDigest.SHA256, "data/a.txt", ALPHA));
+
+        final FixityException failure = assertThrows(FixityException.class,
+                                                     () -> read(verifier, "data/a.txt", BETA));
+        assertThat(failure.getResult().getFailures()).hasSize(1);
+
+        // failures found once a late manifest is added are thrown from addManifest
+        final FixityVerifier late = new FixityVerifier(EnumSet.of(BagItDigest.SHA256));
+        late.setFailFast(true);
+        read(late, "data/b.txt", BETA);
+        assertThrows(FixityException.class, () -> late.addManifest(BagItDigest.SHA256,
+                                                                   manifest(BagItDigest.SHA256, "data/b.txt", ALPHA)));
+    }
+
+    private void read(final FixityVerifier verifier, final String path, final String content) throws IOException {
+        try (InputStream is = verifier.verify(path, new ByteArrayInputStream(bytes(content)))) {
+            is.transferTo(NullOutputStream.INSTANCE);
+        }
+    }
+
+    private InputStream manifest(final BagItDigest algorithm, final String... entries) {
+        final StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < entries.length; i += 2) {
+            manifest.append(hex(algorithm, entries[i + 1])).append("  ").append(entries[i]).append('\n');
+        }
+        return new ByteArrayInputStream(bytes(manifest.toString()));
+    }
+
+    private String hex(final BagItDigest algorithm, final String content) {
+        return HexFormat.of().formatHex(algorithm.messageDigest().digest(bytes(content)));
+    }
+
+    private byte[] bytes(final String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
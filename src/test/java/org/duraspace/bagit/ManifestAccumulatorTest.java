@@ -0,0 +1,169 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ManifestAccumulator}
+ *
+ * @since 2026-10-17
+ */
+public class ManifestAccumulatorTest {
+
+    private Path spillDirectory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        spillDirectory = Files.createTempDirectory("manifest-accumulator");
+    }
+
+    @AfterEach
+    public void teardown() {
+        FileUtils.deleteQuietly(spillDirectory.toFile());
+    }
+
+    @Test
+    public void testInMemory() throws IOException {
+        try (ManifestAccumulator accumulator = new ManifestAccumulator()) {
+            accumulator.put("data/b", "02");
+            accumulator.put("data/a", "01");
+            accumulator.put("data/c", "03");
+            accumulator.put("data/b", "22");
+            accumulator.remove("data/c");
+
+            assertThat(accumulator.isSpilled()).isFalse();
+            assertThat(entries(accumulator)).containsExactly("01  data/a", "22  data/b");
+        }
+        assertThat(spilledRuns()).isZero();
+    }
+
+    @Test
+    public void testSpilledMerge() throws IOException {
+        // a limit this small spills every entry into its own run
+        try (ManifestAccumulator accumulator = new ManifestAccumulator(1, spillDirectory)) {
+            accumulator.put("data/d", "04");
+            accumulator.put("data/b", "02");
+            accumulator.put("data/a", "01");
+            accumulator.put("data/c", "03");
+
+            // replace and remove entries which only exist on disk
+            accumulator.put("data/b", "22");
+            accumulator.remove("data/d");
+
+            assertThat(accumulator.isSpilled()).isTrue();
+            assertThat(spilledRuns()).isEqualTo(6);
+            assertThat(entries(accumulator)).containsExactly("01  data/a", "22  data/b", "03  data/c");
+
+            // re-adding a removed entry makes it visible again
+            accumulator.put("data/d", "44");
+            assertThat(entries(accumulator)).containsExactly("01  data/a", "22  data/b", "03  data/c", "44  data/d");
+        }
+
+        assertThat(spilledRuns()).isZero();
+    }
+
+    @Test
+    public void testBoundedMerge() throws IOException {
+        final List<String> expected = new ArrayList<>();
+        try (ManifestAccumulator accumulator = new ManifestAccumulator(16 * 1024, spillDirectory)) {
+            for (int i = 9999; i >= 0; i--) {
+                accumulator.put(String.format("data/file-%05d", i), Integer.toHexString(i));
+            }
+            for (int i = 0; i < 10000; i++) {
+                expected.add(Integer.toHexString(i) + "  " + String.format("data/file-%05d", i));
+            }
+
+            assertThat(accumulator.isSpilled()).isTrue();
+            assertThat(entries(accumulator)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void testBoundedFanIn() throws IOException {
+        final List<String> expected = new ArrayList<>();
+        // spill every entry so that runs are merged as they are written, and again before they are read
+        try (ManifestAccumulator accumulator = new ManifestAccumulator(1, spillDirectory, 3)) {
+            for (int i = 0; i < 100; i++) {
+                accumulator.put(String.format("data/file-%03d", i), Integer.toHexString(i));
+                assertThat(spilledRuns()).isLessThanOrEqualTo(12);
+            }
+            for (int i = 0; i < 100; i += 2) {
+                accumulator.remove(String.format("data/file-%03d", i));
+            }
+            accumulator.put("data/file-000", "ff");
+
+            expected.add("ff  data/file-000");
+            for (int i = 1; i < 100; i += 2) {
+                expected.add(Integer.toHexString(i) + "  " + String.format("data/file-%03d", i));
+            }
+            assertThat(entries(accumulator)).containsExactlyElementsOf(expected);
+            assertThat(spilledRuns()).isLessThan(3);
+        }
+        assertThat(spilledRuns()).isZero();
+    }
+
+    @Test
+    public void testSpilledLongPath() throws IOException {
+        // longer than the 65535 bytes DataOutputStream#writeUTF is limited to
+        final String path = "data/" + "ü".repeat(40_000);
+        try (ManifestAccumulator accumulator = new ManifestAccumulator(1, spillDirectory)) {
+            accumulator.put(path, "01");
+            assertThat(accumulator.isSpilled()).isTrue();
+            assertThat(entries(accumulator)).containsExactly("01  " + path);
+        }
+    }
+
+    @Test
+    public void testSplitMemoryLimit() {
+        assertThat(ManifestAccumulator.split(900, 3)).isEqualTo(300);
+        assertThat(ManifestAccumulator.split(900, 1)).isEqualTo(900);
+        assertThat(ManifestAccumulator.split(2, 3)).isEqualTo(1);
+        assertThat(ManifestAccumulator.split(ManifestAccumulator.UNBOUNDED, 3))
+            .isEqualTo(ManifestAccumulator.UNBOUNDED);
+    }
+
+    @Test
+    public void testClosed() {
+        final ManifestAccumulator accumulator = new ManifestAccumulator();
+        accumulator.close();
+
+        assertThrows(IllegalStateException.class, () -> accumulator.put("data/a", "01"));
+        assertThrows(IllegalStateException.class, () -> accumulator.forEach((path, checksum) -> { }));
+    }
+
+    @Test
+    public void testInvalidChecksum() {
+        try (ManifestAccumulator accumulator = new ManifestAccumulator()) {
+            assertThrows(IllegalArgumentException.class, () -> accumulator.put("data/a", ""));
+        }
+    }
+
+    private List<String> entries(final ManifestAccumulator accumulator) throws IOException {
+        final List<String> entries = new ArrayList<>();
+        accumulator.forEach((path, checksum) -> entries.add(checksum + "  " + path));
+        return entries;
+    }
+
+    private long spilledRuns() throws IOException {
+        try (Stream<Path> runs = Files.list(spillDirectory)) {
+            return runs.count();
+        }
+    }
+
+}
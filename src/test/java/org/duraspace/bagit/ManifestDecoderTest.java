@@ -0,0 +1,64 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ManifestDecoder}
+ *
+ * @since 2026-10-17
+ */
+public class ManifestDecoderTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final String[] paths = {"data/plain.txt", "data/ leading space", "data/trailing space ", "data/100%.txt",
+                                "data/%0A-literal", "data/line\nfeed", "data/carriage\rreturn", "data/café-✓.txt"};
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ManifestEncoder encoder = new ManifestEncoder(out)) {
+            for (String path : paths) {
+                encoder.writeManifestLine("ABCDEF", path);
+            }
+        }
+
+        final Map<String, String> entries = read(out.toString(UTF_8));
+        assertThat(entries).containsOnlyKeys(paths);
+        assertThat(entries).containsValue("abcdef");
+    }
+
+    @Test
+    public void testWhitespace() throws IOException {
+        final Map<String, String> entries = read("abc\tdata/tab\n" +
+                                                 "def    data/spaces  \n" +
+                                                 "\n" +
+                                                 "0123\n" +
+                                                 "4567   \n" +
+                                                 "  89ab  data/indented\n" +
+                                                 "cdef  data/lower%0d%0a%zz\n");
+
+        assertThat(entries).containsExactly(Map.entry("data/tab", "abc"),
+                                            Map.entry("data/spaces  ", "def"),
+                                            Map.entry("data/indented", "89ab"),
+                                            Map.entry("data/lower\r\n%zz", "cdef"));
+    }
+
+    private Map<String, String> read(final String manifest) throws IOException {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        ManifestDecoder.read(new ByteArrayInputStream(manifest.getBytes(UTF_8)), entries::put);
+        return entries;
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests for the {@link ManifestEncoder}
+ *
+ * @since 2026-10-17
+ */
+public class ManifestEncoderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManifestEncoderTest.class);
+
+    /**
+     * Paths which cover one, two, three, and four byte UTF-8 sequences, as well as an unpaired surrogate
+     */
+    private final String[] paths = {"data/ascii.txt", "data/café-✓.txt", "data/emoji-📦.bin",
+                                    "data/unpaired-\uD800.bin"};
+
+    @Test
+    public void testManifestLines() throws IOException {
+        final MessageDigest sha256 = BagItDigest.SHA256.messageDigest();
+
+        // a buffer this small forces a drain in the middle of every line
+        for (int bufferSize : new int[] {4, 7, ManifestEncoder.DEFAULT_BUFFER_SIZE}) {
+            final StringBuilder expected = new StringBuilder();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ManifestEncoder encoder = new ManifestEncoder(out, bufferSize)) {
+                for (String path : paths) {
+                    final byte[] digest = sha256.digest(path.getBytes(UTF_8));
+                    final String checksum = HexEncoder.toString(digest);
+                    encoder.writeManifestLine(checksum, path);
+                    encoder.writeManifestLine(digest, path);
+                    expected.append(checksum).append("  ").append(path).append("\n")
+                            .append(checksum).append("  ").append(path).append("\n");
+                }
+                assertThat(encoder.getLines()).isEqualTo(2 * paths.length);
+            }
+
+            assertThat(out.toByteArray()).isEqualTo(expected.toString().getBytes(UTF_8));
+        }
+    }
+
+    @Test
+    public void testTagLines() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ManifestEncoder encoder = new ManifestEncoder(out, 5)) {
+            encoder.writeTagLine("Source-Organization", "bagit-support-✓");
+            encoder.writeTagLine("External-Description", "📦");
+        }
+
+        assertThat(out.toString(UTF_8))
+            .isEqualTo("Source-Organization: bagit-support-✓\nExternal-Description: 📦\n");
+    }
+
+    @Test
+    public void testHexEncoder() {
+        final byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        final StringBuilder expected = new StringBuilder();
+        for (byte b : bytes) {
+            expected.append(String.format("%02x", b));
+        }
+        assertThat(HexEncoder.toString(bytes)).isEqualTo(expected.toString());
+    }
+
+    /**
+     * Compare the throughput of the {@link ManifestEncoder} with building a String for each line, both when writing
+     * to a stream which discards its input and when writing to a file through a tag manifest digest the way
+     * {@link BagWriter} does. Run with {@code mvn test -Dtest=ManifestEncoderTest -Dbagit.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "bagit.benchmark", matches = "true")
+    public void benchmarkManifestLines() throws IOException {
+        final int entries = 10_000_000;
+        final String checksum = HexEncoder.toString(BagItDigest.SHA256.messageDigest().digest());
+        final Path manifest = Files.createTempFile("manifest-encoder", ".txt");
+
+        try {
+            for (int round = 0; round < 3; round++) {
+                for (Path sink : new Path[] {null, manifest}) {
+                    final long concatenated = concatenateLines(sink(sink), checksum, entries);
+                    final long encoded = encodeLines(sink(sink), checksum, entries);
+                    logger.info("Round {} ({}): String concatenation {} lines/sec, ManifestEncoder {} lines/sec",
+                                round, sink == null ? "discarding" : "file", linesPerSecond(entries, concatenated),
+                                linesPerSecond(entries, encoded));
+                }
+            }
+        } finally {
+            Files.delete(manifest);
+        }
+    }
+
+    /**
+     * Write manifest lines the way {@link BagWriter} did before the {@link ManifestEncoder}
+     *
+     * @return the elapsed nanoseconds
+     */
+    private static long concatenateLines(final OutputStream out, final String checksum, final int entries)
+        throws IOException {
+        final long start = System.nanoTime();
+        try (out) {
+            for (int i = 0; i < entries; i++) {
+                final String line = checksum + "  " + "data/objects/file-" + i + ".bin";
+                out.write(line.getBytes(UTF_8));
+                out.write("\n".getBytes(UTF_8));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Write manifest lines with a {@link ManifestEncoder}
+     *
+     * @return the elapsed nanoseconds
+     */
+    private static long encodeLines(final OutputStream out, final String checksum, final int entries)
+        throws IOException {
+        final long start = System.nanoTime();
+        try (ManifestEncoder encoder = new ManifestEncoder(out)) {
+            for (int i = 0; i < entries; i++) {
+                encoder.writeManifestLine(checksum, "data/objects/file-" + i + ".bin");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static OutputStream sink(final Path file) throws IOException {
+        if (file == null) {
+            return NullOutputStream.INSTANCE;
+        }
+        return new DigestOutputStream(Files.newOutputStream(file), BagItDigest.SHA256.messageDigest());
+    }
+
+    private static long linesPerSecond(final long lines, final long nanos) {
+        return lines * 1_000_000_000L / nanos;
+    }
+
+}
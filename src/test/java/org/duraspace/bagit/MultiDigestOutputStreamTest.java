@@ -0,0 +1,73 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link MultiDigestOutputStream}
+ *
+ * @since 2026-10-17
+ */
+public class MultiDigestOutputStreamTest {
+
+    private final Set<BagItDigest> algorithms = EnumSet.of(BagItDigest.MD5, BagItDigest.SHA1, BagItDigest.SHA256);
+
+    @Test
+    public void testMixedWrites() throws IOException {
+        final byte[] content = new byte[3 * 1024 + 11];
+        new Random(content.length).nextBytes(content);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final MultiDigestOutputStream stream = new MultiDigestOutputStream(out, algorithms, 1024);
+
+        // single bytes, writes within a block, and writes larger than a block
+        int offset = 0;
+        for (int length : new int[] {1, 10, 1000, 1, 2048}) {
+            if (length == 1) {
+                stream.write(content[offset]);
+            } else {
+                stream.write(content, offset, length);
+            }
+            offset += length;
+        }
+        stream.write(content, offset, content.length - offset);
+        stream.close();
+
+        assertThat(out.toByteArray()).isEqualTo(content);
+        assertThat(stream.getDigests()).containsOnlyKeys(algorithms);
+        for (BagItDigest algorithm : algorithms) {
+            assertThat(stream.getDigests())
+                .containsEntry(algorithm, HexEncoder.toString(algorithm.messageDigest().digest(content)));
+        }
+    }
+
+    @Test
+    public void testDigestsBeforeClose() throws IOException {
+        try (MultiDigestOutputStream stream = new MultiDigestOutputStream(new ByteArrayOutputStream(), algorithms)) {
+            stream.write(1);
+            assertThrows(IllegalStateException.class, stream::getDigests);
+        }
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        final MultiDigestOutputStream stream = new MultiDigestOutputStream(new ByteArrayOutputStream(), algorithms);
+        stream.close();
+
+        assertThat(stream.getDigests()).containsEntry(BagItDigest.MD5, "d41d8cd98f00b204e9800998ecf8427e");
+        assertThrows(IOException.class, () -> stream.write(1));
+    }
+
+}
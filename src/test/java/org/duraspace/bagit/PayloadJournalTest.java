@@ -0,0 +1,88 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link PayloadJournal}
+ */
+public class PayloadJournalTest {
+
+    private static final String SHA1 = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+
+    @TempDir
+    private Path bag;
+
+    @Test
+    public void testReplay() throws IOException {
+        try (PayloadJournal journal = new PayloadJournal(bag)) {
+            journal.append(entry("data/a", SHA1));
+            journal.append(entry("data/b\twith\ttabs", SHA1));
+        }
+
+        assertThat(replay()).containsExactly("data/a", "data/b\twith\ttabs");
+    }
+
+    @Test
+    public void testTruncatedEntry() throws IOException {
+        try (PayloadJournal journal = new PayloadJournal(bag)) {
+            journal.append(entry("data/a", SHA1));
+        }
+
+        // a failure while appending leaves the last entry without its newline, and possibly with a partial checksum
+        appendRaw("data/b\t10\t1000\tsha1=" + SHA1);
+        assertThat(replay()).containsExactly("data/a");
+        appendRaw("\n");
+        assertThat(replay()).containsExactly("data/a", "data/b");
+
+        final Path journalFile = bag.resolve(PayloadJournal.FILENAME);
+        Files.write(journalFile, ("data/c\t10\t1000\tsha1=" + SHA1.substring(0, 12)).getBytes(StandardCharsets.UTF_8));
+
+        // entries appended after a partial entry are kept separate from it
+        try (PayloadJournal journal = new PayloadJournal(bag)) {
+            journal.append(entry("data/d", SHA1));
+        }
+        assertThat(replay()).containsExactly("data/d");
+    }
+
+    @Test
+    public void testInvalidChecksum() throws IOException {
+        appendRaw("data/short\t10\t1000\tsha1=" + SHA1.substring(0, 12) + "\n");
+        appendRaw("data/nonhex\t10\t1000\tsha1=" + SHA1.replace('a', 'z') + "\n");
+        appendRaw("data/wrong-algorithm\t10\t1000\tsha256=" + SHA1 + "\n");
+        appendRaw("data/valid\t10\t1000\tsha1=" + SHA1 + "\n");
+
+        assertThat(replay()).containsExactly("data/valid");
+    }
+
+    private PayloadJournal.Entry entry(final String path, final String checksum) {
+        return new PayloadJournal.Entry(path, 10, 1000, Map.of(BagItDigest.SHA1, checksum));
+    }
+
+    private void appendRaw(final String content) throws IOException {
+        Files.write(bag.resolve(PayloadJournal.FILENAME), content.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private List<String> replay() throws IOException {
+        final List<String> paths = new ArrayList<>();
+        new PayloadJournal(bag).replay(entry -> paths.add(entry.getPath()));
+        return paths;
+    }
+
+}
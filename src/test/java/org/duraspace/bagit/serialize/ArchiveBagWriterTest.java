@@ -0,0 +1,108 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import gov.loc.repository.bagit.domain.Bag;
+import gov.loc.repository.bagit.reader.BagReader;
+import gov.loc.repository.bagit.verify.BagVerifier;
+import org.apache.commons.io.FileUtils;
+import org.duraspace.bagit.BagConfig;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.profile.BagProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for the {@link ArchiveBagWriter}
+ *
+ * @since 2026-10-17
+ */
+public class ArchiveBagWriterTest {
+
+    private final String bagName = "archive-bag";
+    private final Set<BagItDigest> algorithms = Set.of(BagItDigest.MD5, BagItDigest.SHA256);
+
+    private Path workDir;
+    private BagProfile profile;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("archive-bag-writer");
+        profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+    }
+
+    @AfterEach
+    public void teardown() {
+        FileUtils.deleteQuietly(workDir.toFile());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"tar, .tar", "tgz, .tar.gz", "zip, .zip"})
+    public void testWriteArchive(final String contentType, final String extension) throws Exception {
+        final byte[] content = "archive-bag payload".getBytes(StandardCharsets.UTF_8);
+        final Path source = Files.write(workDir.resolve("source.bin"), content);
+        final Path archive = workDir.resolve(bagName + extension);
+
+        try (OutputStream out = Files.newOutputStream(archive);
+             ArchiveBagWriter writer = new ArchiveBagWriter(out, contentType, bagName, algorithms)) {
+            writer.addPayload("from-path.bin", source);
+            writer.addPayload("nested/known-size.bin", new ByteArrayInputStream(content), content.length);
+            writer.addPayload("nested/unknown-size.bin", new ByteArrayInputStream(content), -1);
+
+            final Map<String, String> bagInfoFields = new HashMap<>();
+            bagInfoFields.put(BagConfig.SOURCE_ORGANIZATION_KEY, "bagit-support");
+            bagInfoFields.put(BagConfig.BAGGING_DATE_KEY, ISO_LOCAL_DATE.format(LocalDate.now()));
+            writer.addTags(BagConfig.BAG_INFO_KEY, bagInfoFields);
+            writer.addTags("extra-tag.txt", Map.of("test-key", "test-value"));
+        }
+
+        final Path extracted = SerializationSupport.deserializerFor(archive, profile).deserialize(archive);
+        assertThat(extracted).isEqualTo(workDir.resolve(bagName));
+        assertThat(extracted.resolve("data/nested/unknown-size.bin")).hasBinaryContent(content);
+        assertThat(Files.readAllLines(extracted.resolve(BagConfig.BAG_INFO_KEY)))
+            .contains(BagConfig.PAYLOAD_OXUM_KEY + ": " + (3 * content.length) + ".3");
+
+        final Bag bag = new BagReader().read(extracted);
+        profile.validateBag(bag);
+        try (BagVerifier verifier = new BagVerifier()) {
+            verifier.isValid(bag, false);
+        }
+    }
+
+    @Test
+    public void testPayloadOutsideData() throws IOException {
+        try (ArchiveBagWriter writer = new ArchiveBagWriter(OutputStream.nullOutputStream(), "zip", bagName,
+                                                            algorithms)) {
+            assertThrows(IllegalArgumentException.class,
+                         () -> writer.addPayload("../escape.bin", new ByteArrayInputStream(new byte[0]), 0));
+        }
+    }
+
+    @Test
+    public void testUnsupportedContentType() {
+        assertThrows(UnsupportedOperationException.class,
+                     () -> new ArchiveBagWriter(OutputStream.nullOutputStream(), "application/x-7z-compressed",
+                                                bagName, algorithms));
+    }
+
+}
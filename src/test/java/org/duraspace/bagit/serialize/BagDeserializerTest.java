@@ -4,24 +4,45 @@
  */
 package org.duraspace.bagit.serialize;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityResult;
 import org.duraspace.bagit.profile.BagProfile;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 /**
  * Test that zip, tar, and tar+gz extraction works as expected
@@ -75,4 +96,222 @@ public class BagDeserializerTest {
         assertTrue(Files.isDirectory(bag.resolve(DATA_DIR)));
     }
 
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testExtractStream(final String archive, final String expectedDir, @TempDir final Path parent)
+        throws IOException {
+        final Path path = target.resolve(group).resolve(archive);
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+
+        // a stream which does not support mark is buffered so its content type can be detected
+        final Path fromStream = parent.resolve("stream");
+        try (InputStream is = Files.newInputStream(path)) {
+            final Path bag = SerializationSupport.deserialize(is, fromStream, profile);
+            assertEquals(fromStream.resolve(expectedDir), bag);
+            assertExtracted(bag);
+        }
+
+        final Path fromChannel = parent.resolve("channel");
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(path));
+             FileChannel channel = FileChannel.open(path)) {
+            final BagDeserializer deserializer = SerializationSupport.deserializerFor(is, profile);
+            final Path bag = deserializer.deserialize(channel, fromChannel);
+            assertEquals(fromChannel.resolve(expectedDir), bag);
+            assertExtracted(bag);
+            assertTrue(channel.isOpen());
+        }
+    }
+
+    @Test
+    public void testExtractStreamRequiresMark() throws IOException {
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+        try (InputStream is = Files.newInputStream(target.resolve(group).resolve("bag-zip.zip"))) {
+            assertThrows(IllegalArgumentException.class, () -> SerializationSupport.deserializerFor(is, profile));
+        }
+    }
+
+    @Test
+    public void testExtractEntryOutsideParent(@TempDir final Path parent) throws IOException {
+        final ByteArrayOutputStream tarball = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(tarball)) {
+            final byte[] content = "escaped".getBytes(StandardCharsets.UTF_8);
+            final TarArchiveEntry entry = new TarArchiveEntry("bag/../../escaped.txt", true);
+            entry.setSize(content.length);
+            tar.putArchiveEntry(entry);
+            tar.write(content);
+            tar.closeArchiveEntry();
+        }
+
+        final Path extract = parent.resolve("extract");
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+        assertThrows(IOException.class, () -> SerializationSupport.deserialize(
+            new ByteArrayInputStream(tarball.toByteArray()), extract, profile));
+        assertThat(parent.resolve("escaped.txt")).doesNotExist();
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testExtractVerified(final String archive, final String expectedDir, @TempDir final Path parent)
+        throws IOException {
+        final Path path = Files.copy(target.resolve(group).resolve(archive), parent.resolve(archive));
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+        final BagDeserializer deserializer = SerializationSupport.deserializerFor(path, profile);
+
+        // the zip archives list their manifests after the payload, the tar archives before it
+        final DeserializationResult result = deserializer.deserialize(path, EnumSet.of(BagItDigest.SHA256));
+        assertEquals(parent.resolve(expectedDir), result.getPath());
+        assertExtracted(result.getPath());
+        assertTrue(result.isValid(), () -> result.getFixity().toString());
+        assertEquals(4, result.getFixity().getFiles());
+    }
+
+    @Test
+    public void testExtractVerifiedFailures(@TempDir final Path parent) throws IOException {
+        final String expected = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+        final ByteArrayOutputStream tarball = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(tarball)) {
+            putEntry(tar, "bag/data/changed.txt", "not empty");
+            putEntry(tar, "bag/data/unexpected.txt", "");
+            putEntry(tar, "bag/manifest-sha256.txt", expected + "  data/changed.txt\n" +
+                                                     expected + "  data/missing.txt\n");
+        }
+
+        final BagDeserializer deserializer = new TarBagDeserializer();
+        final DeserializationResult result = deserializer.deserialize(new ByteArrayInputStream(tarball.toByteArray()),
+                                                                      parent, EnumSet.of(BagItDigest.SHA256));
+        assertThat(result.getPath()).isEqualTo(parent.resolve("bag"));
+        assertThat(result.getPath().resolve("data/changed.txt")).hasContent("not empty");
+        assertThat(result.isValid()).isFalse();
+
+        final List<FixityResult.Failure> failures = result.getFixity().getFailures();
+        assertThat(failures).hasSize(3);
+        assertThat(failures).anySatisfy(failure -> {
+            assertThat(failure.getPath()).isEqualTo("data/changed.txt");
+            assertThat(failure.getExpected()).isEqualTo(expected);
+        });
+        assertThat(failures).anySatisfy(failure -> {
+            assertThat(failure.getPath()).isEqualTo("data/unexpected.txt");
+            assertThat(failure.isUnexpected()).isTrue();
+        });
+        assertThat(failures).anySatisfy(failure -> {
+            assertThat(failure.getPath()).isEqualTo("data/missing.txt");
+            assertThat(failure.isMissing()).isTrue();
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "./"})
+    public void testExtractVerifiedFlat(final String prefix, @TempDir final Path parent) throws IOException {
+        // an archive without a top level directory, e.g. from tar -C bag ., has the bag at its root
+        final String checksum = "3a6eb0790f39ac87c94f3856b2dd2c5d110e6811602261a9a923d3bb23adc8b7";
+        final Path archive = parent.resolve("flat-bag.tar");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(Files.newOutputStream(archive))) {
+            putEntry(tar, prefix + "data/file.txt", "data");
+            putEntry(tar, prefix + "manifest-sha256.txt", checksum + "  data/file.txt\n");
+            putEntry(tar, prefix + "bagit.txt", "BagIt-Version: 1.0\n");
+        }
+
+        final DeserializationResult result = new TarBagDeserializer().deserialize(archive,
+                                                                                  EnumSet.of(BagItDigest.SHA256));
+        assertThat(result.getPath()).isEqualTo(parent.resolve("flat-bag"));
+        assertThat(parent.resolve("data/file.txt")).hasContent("data");
+        assertTrue(result.isValid(), () -> result.getFixity().toString());
+        assertEquals(1, result.getFixity().getFiles());
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testExtractFiltered(final String archive, final String expectedDir, @TempDir final Path parent)
+        throws IOException {
+        final Path path = Files.copy(target.resolve(group).resolve(archive), parent.resolve(archive));
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+        final BagDeserializer deserializer = SerializationSupport.deserializerFor(path, profile);
+
+        final Path bag = deserializer.deserialize(path, EntryFilter.tagFiles()
+                                                                   .or(EntryFilter.glob("data/**/image0.binary")));
+        assertEquals(parent.resolve(expectedDir), bag);
+        assertThat(extractedFiles(bag)).containsExactlyInAnyOrder(
+            "bagit.txt", BAG_INFO_TXT, "manifest-sha1.txt", "manifest-sha256.txt", "data/fcrepo/rest/image0.binary");
+    }
+
+    @Test
+    public void testExtractFilteredFlat(@TempDir final Path parent) throws IOException {
+        final Path archive = parent.resolve("flat-bag.tar");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(Files.newOutputStream(archive))) {
+            putEntry(tar, "./", "");
+            putEntry(tar, "./data/bagit.txt", "payload");
+            putEntry(tar, "./data/sub/file.txt", "payload");
+            putEntry(tar, "./bagit.txt", "BagIt-Version: 1.0\n");
+            putEntry(tar, "./manifest-sha256.txt", "");
+        }
+
+        // the filters are tested against the paths relative to the bag at the root of the archive
+        final Path tags = parent.resolve("tags");
+        Files.createDirectories(tags);
+        new TarBagDeserializer().deserialize(Files.copy(archive, tags.resolve("flat-bag.tar")),
+                                             EntryFilter.tagFiles());
+        assertThat(extractedFiles(tags)).containsExactlyInAnyOrder("flat-bag.tar", "bagit.txt",
+                                                                   "manifest-sha256.txt");
+
+        final Path payload = parent.resolve("payload");
+        Files.createDirectories(payload);
+        new TarBagDeserializer().deserialize(Files.copy(archive, payload.resolve("flat-bag.tar")),
+                                             EntryFilter.glob("data/**"));
+        assertThat(extractedFiles(payload)).containsExactlyInAnyOrder("flat-bag.tar", "data/bagit.txt",
+                                                                      "data/sub/file.txt");
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testExtractStreamFiltered(final String archive, final String expectedDir, @TempDir final Path parent)
+        throws IOException {
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(target.resolve(group).resolve(archive)))) {
+            final Path bag = SerializationSupport.deserializerFor(is, profile)
+                                                 .deserialize(is, parent, EntryFilter.glob("data/**.ttl"));
+            assertEquals(parent.resolve(expectedDir), bag);
+            assertThat(extractedFiles(bag)).containsExactlyInAnyOrder(
+                "data/fcrepo/rest/testBagImport.ttl", "data/fcrepo/rest/testBagBtRImport.ttl",
+                "data/fcrepo/rest/image0/fcr%3Ametadata.ttl");
+        }
+    }
+
+    @Test
+    public void testExtractFlatGzip(@TempDir final Path parent) throws IOException {
+        // an archive without a top level directory is named after the archive
+        final Path archive = parent.resolve("flat-bag.tar.gz");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                 new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+            putEntry(tar, "bagit.txt", "BagIt-Version: 1.0\n");
+        }
+
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+        final BagDeserializer deserializer = SerializationSupport.deserializerFor(archive, profile);
+        assertEquals(parent.resolve("flat-bag"), deserializer.deserialize(archive));
+        assertThat(parent.resolve("bagit.txt")).exists();
+    }
+
+    private List<String> extractedFiles(final Path bag) throws IOException {
+        try (Stream<Path> files = Files.walk(bag)) {
+            return files.filter(Files::isRegularFile)
+                        .map(file -> bag.relativize(file).toString().replace(File.separator, "/"))
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private void putEntry(final TarArchiveOutputStream tar, final String name, final String content)
+        throws IOException {
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+    }
+
+    private void assertExtracted(final Path bag) {
+        assertTrue(Files.exists(bag.resolve(BAG_INFO_TXT)));
+        assertTrue(Files.isDirectory(bag.resolve(DATA_DIR)));
+    }
+
 }
@@ -5,24 +5,49 @@
 package org.duraspace.bagit.serialize;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.FixityResult;
+import org.duraspace.bagit.exception.FixityException;
 import org.duraspace.bagit.profile.BagProfile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 /**
  * Tests for {@link BagSerializer} and implementing classes
@@ -108,4 +133,360 @@ public class BagSerializerTest {
         Files.delete(writtenBag);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testParallelZipSerializer(@TempDir final Path target) throws Exception {
+        final ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        new ZipBagSerializer(Deflater.BEST_SPEED, 1).serialize(bag, serial);
+
+        // a spool limit of 0 compresses the payload while it is written, alongside the entries compressed in parallel
+        final ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        new ZipBagSerializer(Deflater.BEST_SPEED, 4).serialize(bag, parallel);
+        final ByteArrayOutputStream mixed = new ByteArrayOutputStream();
+        new ZipBagSerializer(Deflater.BEST_SPEED, 2, 0).serialize(bag, mixed);
+        final ByteArrayOutputStream again = new ByteArrayOutputStream();
+        new ZipBagSerializer(Deflater.BEST_SPEED, 3).serialize(bag, again);
+
+        // the archive does not depend on the number of threads
+        assertThat(again.toByteArray()).isEqualTo(parallel.toByteArray());
+        assertThat(entries("zip", parallel.toByteArray())).containsExactlyInAnyOrderElementsOf(bagFiles);
+        assertThat(entries("zip", mixed.toByteArray())).containsExactlyInAnyOrderElementsOf(bagFiles);
+
+        // the content matches the archive compressed on a single thread
+        final Path parallelZip = Files.write(target.resolve("parallel.zip"), parallel.toByteArray());
+        final Path serialZip = Files.write(target.resolve("serial.zip"), serial.toByteArray());
+        try (ZipFile parallelFile = ZipFile.builder().setPath(parallelZip).get();
+             ZipFile serialFile = ZipFile.builder().setPath(serialZip).get()) {
+            for (ZipArchiveEntry entry : Collections.list(serialFile.getEntries())) {
+                final ZipArchiveEntry parallelEntry = parallelFile.getEntry(entry.getName());
+                assertThat(parallelEntry.getCrc()).isEqualTo(entry.getCrc());
+                try (InputStream expected = serialFile.getInputStream(entry);
+                     InputStream actual = parallelFile.getInputStream(parallelEntry)) {
+                    assertThat(actual).hasSameContentAs(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTarTransfer(@TempDir final Path target) throws Exception {
+        final Path transferBag = Files.createDirectories(target.resolve("transfer-bag"));
+        final Path nested = Files.createDirectories(transferBag.resolve("data/" + "nested-directory/".repeat(8)));
+        final byte[] random = new byte[70_000];
+        new Random(5).nextBytes(random);
+        Files.write(nested.resolve("file-with-a-name-long-enough-to-need-a-pax-header.bin"), random);
+        Files.writeString(transferBag.resolve("data/ünïcödé.txt"), "unicode");
+        Files.createFile(transferBag.resolve("data/empty.txt"));
+        Files.writeString(transferBag.resolve("bagit.txt"), "BagIt-Version: 1.0\n");
+
+        final TarBagSerializer serializer = new TarBagSerializer();
+        final Path tarball = serializer.serialize(transferBag);
+        final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        serializer.serialize(transferBag, streamed);
+
+        // the archive is padded to a full block
+        assertThat(Files.size(tarball) % 10240).isZero();
+
+        // every entry has the same name and content as the archive written by the TarArchiveOutputStream
+        final byte[] transferred = Files.readAllBytes(tarball);
+        try (TarArchiveInputStream expected = new TarArchiveInputStream(
+                 new ByteArrayInputStream(streamed.toByteArray()));
+             TarArchiveInputStream actual = new TarArchiveInputStream(new ByteArrayInputStream(transferred))) {
+            TarArchiveEntry entry;
+            int count = 0;
+            while ((entry = expected.getNextEntry()) != null) {
+                final TarArchiveEntry transferredEntry = actual.getNextEntry();
+                assertThat(transferredEntry.getName()).isEqualTo(entry.getName());
+                assertThat(transferredEntry.getSize()).isEqualTo(entry.getSize());
+                assertThat(transferredEntry.getMode()).isEqualTo(entry.getMode());
+                // only the stream writes pax headers for sub-second times
+                assertThat(transferredEntry.getModTime().getTime() / 1000)
+                    .isEqualTo(entry.getModTime().getTime() / 1000);
+                assertThat(actual.readAllBytes()).isEqualTo(expected.readAllBytes());
+                count++;
+            }
+            assertThat(actual.getNextEntry()).isNull();
+            assertThat(count).isEqualTo(14);
+        }
+    }
+
+    @Test
+    public void testTarTransferStalled(@TempDir final Path target) throws Exception {
+        final Path stalledBag = incompressibleBag(target);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new TarBagSerializer().serialize(stalledBag, Channels.newChannel(expected));
+
+        // a channel which stops accepting transfers for a while has the rest of the file copied to it
+        final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+        new TarBagSerializer().serialize(stalledBag, new StallingChannel(copied, 20));
+        assertThat(copied.toByteArray()).isEqualTo(expected.toByteArray());
+
+        // a channel which never accepts writes fails instead of spinning
+        final StallingChannel stalled = new StallingChannel(new ByteArrayOutputStream(), Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> new TarBagSerializer().serialize(stalledBag, stalled));
+    }
+
+    /**
+     * A channel which accepts nothing for a number of writes once its first write has succeeded, like a non-blocking
+     * channel whose buffer is full
+     */
+    private static class StallingChannel implements WritableByteChannel {
+        private final WritableByteChannel delegate;
+        private int stalls;
+        private boolean started;
+
+        StallingChannel(final ByteArrayOutputStream out, final int stalls) {
+            this.delegate = Channels.newChannel(out);
+            this.stalls = stalls;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            if (started && stalls > 0) {
+                stalls--;
+                return 0;
+            }
+            started = true;
+            return delegate.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    public void testZipCompressionPolicy(final int threads, @TempDir final Path target) throws Exception {
+        final Path policyBag = incompressibleBag(target);
+        Files.writeString(policyBag.resolve("data/text.txt"), "compressible ".repeat(10_000));
+
+        final ZipBagSerializer serializer = new ZipBagSerializer(Deflater.DEFAULT_COMPRESSION, threads);
+        serializer.setCompressionPolicy(CompressionPolicy.detect(Deflater.BEST_SPEED));
+        final Path zip = serializer.serialize(policyBag);
+
+        try (ZipFile zipFile = ZipFile.builder().setPath(zip).get()) {
+            final ZipArchiveEntry random = zipFile.getEntry("policy-bag/data/random.bin");
+            final ZipArchiveEntry text = zipFile.getEntry("policy-bag/data/text.txt");
+            assertThat(random.getMethod()).isEqualTo(ZipArchiveEntry.STORED);
+            assertThat(text.getMethod()).isEqualTo(ZipArchiveEntry.DEFLATED);
+            assertThat(text.getCompressedSize()).isLessThan(text.getSize());
+
+            try (InputStream is = zipFile.getInputStream(random)) {
+                assertThat(is).hasSameContentAs(Files.newInputStream(policyBag.resolve("data/random.bin")));
+            }
+        }
+    }
+
+    @Test
+    public void testZipSpoolDirectory(@TempDir final Path target) throws Exception {
+        final Path policyBag = incompressibleBag(target);
+        final byte[] large = new byte[ZipBagSerializer.IN_MEMORY_THRESHOLD * 2];
+        new Random(13).nextBytes(large);
+        Files.write(policyBag.resolve("data/large.bin"), large);
+        Files.writeString(policyBag.resolve("data/large.txt"), "compressible ".repeat(200_000));
+        final Path spool = Files.createDirectory(target.resolve("spool"));
+
+        // both the stored and the deflated entries grow past the threshold and are spooled to disk
+        final ZipBagSerializer serializer = new ZipBagSerializer(Deflater.DEFAULT_COMPRESSION, 3);
+        serializer.setCompressionPolicy(CompressionPolicy.detect(Deflater.BEST_SPEED));
+        serializer.setSpoolDirectory(spool);
+        final Path zip = serializer.serialize(policyBag);
+
+        try (ZipFile zipFile = ZipFile.builder().setPath(zip).get();
+             InputStream is = zipFile.getInputStream(zipFile.getEntry("policy-bag/data/large.bin"))) {
+            assertThat(zipFile.getEntry("policy-bag/data/large.bin").getMethod()).isEqualTo(ZipArchiveEntry.STORED);
+            assertThat(is.readAllBytes()).isEqualTo(large);
+        }
+        try (Stream<Path> spooled = Files.list(spool)) {
+            assertThat(spooled).isEmpty();
+        }
+    }
+
+    @Test
+    public void testZipStoredSpooled(@TempDir final Path target) throws Exception {
+        final Path policyBag = incompressibleBag(target);
+        final byte[] large = new byte[ZipBagSerializer.IN_MEMORY_THRESHOLD * 2];
+        new Random(17).nextBytes(large);
+        Files.write(policyBag.resolve("data/large.bin"), large);
+        final Path spool = target.resolve("spool");
+
+        // a stored entry written on a single thread is spooled while its crc is computed, so a missing spool
+        // directory fails the write
+        final ZipBagSerializer serializer = new ZipBagSerializer();
+        serializer.setCompressionPolicy(CompressionPolicy.detect(Deflater.BEST_SPEED));
+        serializer.setSpoolDirectory(spool);
+        assertThrows(IOException.class, () -> serializer.serialize(policyBag));
+
+        Files.createDirectory(spool);
+        final Path zip = serializer.serialize(policyBag);
+        try (ZipFile zipFile = ZipFile.builder().setPath(zip).get();
+             InputStream is = zipFile.getInputStream(zipFile.getEntry("policy-bag/data/large.bin"))) {
+            assertThat(zipFile.getEntry("policy-bag/data/large.bin").getMethod()).isEqualTo(ZipArchiveEntry.STORED);
+            assertThat(is.readAllBytes()).isEqualTo(large);
+        }
+        try (Stream<Path> spooled = Files.list(spool)) {
+            assertThat(spooled).isEmpty();
+        }
+    }
+
+    @Test
+    public void testTarGzCompressionPolicy(@TempDir final Path target) throws Exception {
+        final Path policyBag = incompressibleBag(target);
+        final long payloadSize = Files.size(policyBag.resolve("data/random.bin"));
+
+        final TarGzBagSerializer serializer = new TarGzBagSerializer(Deflater.BEST_COMPRESSION, 2);
+        serializer.setCompressionPolicy(CompressionPolicy.detect(Deflater.BEST_COMPRESSION));
+        assertThat(serializer.levelFor(policyBag)).isEqualTo(Deflater.NO_COMPRESSION);
+        assertThat(serializer.levelFor(bag)).isEqualTo(Deflater.BEST_COMPRESSION);
+        final Path tarball = serializer.serialize(policyBag);
+
+        // the payload is stored, so the archive is larger than the payload but still a valid tar+gzip
+        assertThat(Files.size(tarball)).isGreaterThan(payloadSize);
+        try (InputStream is = Files.newInputStream(tarball)) {
+            assertThat(entries("tgz", is.readAllBytes())).contains(Paths.get("policy-bag/data/random.bin"));
+        }
+    }
+
+    private Path incompressibleBag(final Path target) throws IOException {
+        final Path policyBag = Files.createDirectories(target.resolve("policy-bag").resolve("data"));
+        final byte[] random = new byte[256 * 1024];
+        new Random(11).nextBytes(random);
+        Files.write(policyBag.resolve("random.bin"), random);
+        Files.writeString(policyBag.resolveSibling("bagit.txt"), "BagIt-Version: 1.0\n");
+        return policyBag.getParent();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"zip", "tar", "tgz"})
+    public void testSerializeToStream(final String contentType) throws Exception {
+        final BagSerializer serializer = SerializationSupport.serializerFor(contentType, profile);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(bag, out);
+        assertThat(entries(contentType, out.toByteArray())).containsExactlyInAnyOrderElementsOf(bagFiles);
+
+        // the channel is left open so that more can be written after the archive
+        final ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(channelOut)) {
+            serializer.serialize(bag, channel);
+            assertThat(channel.isOpen()).isTrue();
+        }
+        assertThat(channelOut.toByteArray()).isNotEmpty();
+        assertThat(entries(contentType, channelOut.toByteArray())).containsExactlyInAnyOrderElementsOf(bagFiles);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"zip", "tar", "tgz"})
+    public void testSerializationResult(final String contentType) throws Exception {
+        final BagSerializer serializer = SerializationSupport.serializerFor(contentType, profile);
+        final SerializationResult result = serializer.serialize(bag, EnumSet.of(BagItDigest.MD5,
+                                                                                BagItDigest.SHA256));
+        final Path writtenBag = result.getPath();
+
+        try {
+            assertThat(writtenBag).isRegularFile();
+            assertThat(result.getBytes()).isEqualTo(Files.size(writtenBag));
+            assertThat(result.getEntries()).isEqualTo(bagFiles.size());
+            assertThat(result.getElapsed().isNegative()).isFalse();
+            assertThat(result.getChecksums()).containsOnlyKeys(BagItDigest.MD5, BagItDigest.SHA256);
+
+            final byte[] archive = Files.readAllBytes(writtenBag);
+            for (BagItDigest algorithm : result.getChecksums().keySet()) {
+                final String expected = HexFormat.of().formatHex(algorithm.messageDigest().digest(archive));
+                assertThat(result.getChecksum(algorithm)).isEqualTo(expected);
+            }
+            assertThat(entries(contentType, archive)).containsExactlyInAnyOrderElementsOf(bagFiles);
+        } finally {
+            Files.delete(writtenBag);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"zip", "tar", "tgz"})
+    public void testFixityVerified(final String contentType, @TempDir final Path target) throws Exception {
+        final Path copy = target.resolve("bag");
+        FileUtils.copyDirectory(bag.toFile(), copy.toFile());
+
+        final BagSerializer serializer = fixitySerializer(contentType, FixityMode.FAIL);
+        final SerializationResult result = serializer.serialize(copy, EnumSet.of(BagItDigest.SHA256));
+        assertThat(result.getFixity().isValid()).isTrue();
+        assertThat(result.getFixity().getFiles()).isEqualTo(1);
+        assertThat(entries(contentType, Files.readAllBytes(result.getPath())))
+            .containsExactlyInAnyOrderElementsOf(bagFiles);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"zip", "tar", "tgz"})
+    public void testFixityFailure(final String contentType, @TempDir final Path target) throws Exception {
+        final Path copy = target.resolve("bag");
+        FileUtils.copyDirectory(bag.toFile(), copy.toFile());
+        Files.writeString(copy.resolve("data/image0.binary"), "changed after validation");
+
+        final BagSerializer failing = fixitySerializer(contentType, FixityMode.FAIL);
+        final FixityException failure = assertThrows(FixityException.class, () -> failing.serialize(copy));
+        assertThat(failure.getResult().getFailures()).extracting(FixityResult.Failure::getPath)
+                                                     .containsOnly("data/image0.binary");
+        try (Stream<Path> files = Files.list(target)) {
+            assertThat(files).containsExactly(copy);
+        }
+
+        final BagSerializer reporting = fixitySerializer(contentType, FixityMode.REPORT);
+        final SerializationResult result = reporting.serialize(copy, Collections.emptySet());
+        assertThat(result.getPath()).isRegularFile();
+        assertThat(result.getFixity().isValid()).isFalse();
+        assertThat(result.getFixity().getFailures())
+            .extracting(FixityResult.Failure::getAlgorithm)
+            .containsExactlyInAnyOrder(BagItDigest.SHA1, BagItDigest.SHA256);
+    }
+
+    @Test
+    public void testFixityMissingFile(@TempDir final Path target) throws Exception {
+        final Path copy = target.resolve("bag");
+        FileUtils.copyDirectory(bag.toFile(), copy.toFile());
+        Files.delete(copy.resolve("data/image0.binary"));
+
+        final ZipBagSerializer serializer = new ZipBagSerializer();
+        serializer.setFixityMode(FixityMode.FAIL);
+        final FixityException failure = assertThrows(FixityException.class, () -> serializer.serialize(copy));
+        assertThat(failure.getResult().getFailures()).allMatch(FixityResult.Failure::isMissing).hasSize(2);
+    }
+
+    private BagSerializer fixitySerializer(final String contentType, final FixityMode fixityMode) {
+        if ("zip".equals(contentType)) {
+            final ZipBagSerializer serializer = new ZipBagSerializer(Deflater.DEFAULT_COMPRESSION, 2);
+            serializer.setFixityMode(fixityMode);
+            return serializer;
+        } else if ("tar".equals(contentType)) {
+            final TarBagSerializer serializer = new TarBagSerializer();
+            serializer.setFixityMode(fixityMode);
+            return serializer;
+        }
+        final TarGzBagSerializer serializer = new TarGzBagSerializer();
+        serializer.setFixityMode(fixityMode);
+        return serializer;
+    }
+
+    private Set<Path> entries(final String contentType, final byte[] archive) throws IOException {
+        final Set<Path> entries = new HashSet<>();
+        InputStream in = new ByteArrayInputStream(archive);
+        if ("tgz".equals(contentType)) {
+            in = new GZIPInputStream(in);
+        }
+
+        try (ArchiveInputStream<?> archiveIn = "zip".equals(contentType) ? new ZipArchiveInputStream(in)
+                                                                          : new TarArchiveInputStream(in)) {
+            ArchiveEntry entry;
+            while ((entry = archiveIn.getNextEntry()) != null) {
+                entries.add(Paths.get(entry.getName()));
+            }
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link ContentCompressionPolicy}
+ *
+ * @since 2026-10-17
+ */
+public class ContentCompressionPolicyTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testExtension() throws IOException {
+        final CompressionPolicy policy = CompressionPolicy.detect(Deflater.BEST_SPEED);
+        final Path text = Files.writeString(directory.resolve("image.JP2"), "not really a jpeg 2000");
+
+        assertThat(policy.levelFor(text)).isEqualTo(CompressionPolicy.STORED);
+    }
+
+    @Test
+    public void testMagic() throws IOException {
+        final CompressionPolicy policy = new ContentCompressionPolicy(Deflater.BEST_SPEED, 0, 1.0);
+        final byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        final byte[] mp4 = {0x00, 0x00, 0x00, 0x20, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'};
+
+        assertThat(policy.levelFor(Files.write(directory.resolve("image.bin"), png)))
+            .isEqualTo(CompressionPolicy.STORED);
+        assertThat(policy.levelFor(Files.write(directory.resolve("video.bin"), mp4)))
+            .isEqualTo(CompressionPolicy.STORED);
+    }
+
+    @Test
+    public void testSample() throws IOException {
+        final CompressionPolicy policy = CompressionPolicy.detect(Deflater.BEST_COMPRESSION);
+        final byte[] random = new byte[100_000];
+        new Random(17).nextBytes(random);
+        final Path incompressible = Files.write(directory.resolve("random.bin"), random);
+        final Path compressible = Files.writeString(directory.resolve("text.txt"),
+                                                    "Payload-Oxum: 100.1\n".repeat(5000), StandardCharsets.UTF_8);
+        final Path empty = Files.createFile(directory.resolve("empty"));
+
+        assertThat(policy.levelFor(incompressible)).isEqualTo(CompressionPolicy.STORED);
+        assertThat(policy.levelFor(compressible)).isEqualTo(Deflater.BEST_COMPRESSION);
+        assertThat(policy.levelFor(empty)).isEqualTo(Deflater.BEST_COMPRESSION);
+    }
+
+}
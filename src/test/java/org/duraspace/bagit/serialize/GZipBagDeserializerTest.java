@@ -7,16 +7,19 @@ package org.duraspace.bagit.serialize;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.stream.Stream;
 
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.duraspace.bagit.exception.BagProfileException;
 import org.duraspace.bagit.profile.BagProfile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Test the GZipBagDeserializer in the event the compressed archive which has been extracted from a gzip file is not
@@ -54,4 +57,25 @@ public class GZipBagDeserializerTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNoIntermediateArchive(@TempDir final Path parent) throws Exception {
+        final URL sample = this.getClass().getClassLoader().getResource("sample/compress/bag-gzip.tar.gz");
+        final Path archive = parent.resolve("bag-gzip.tar.gz");
+        Files.copy(Paths.get(sample.toURI()), archive);
+
+        final BagProfile profile = new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY);
+        final Path bag = SerializationSupport.deserializerFor(archive, profile).deserialize(archive);
+
+        assertThat(bag).isEqualTo(parent.resolve("bag-gzip"));
+        assertThat(bag.resolve("bag-info.txt")).exists();
+        // the tarball is extracted as it is inflated, so only the archive and the bag should exist
+        assertThat(list(parent)).containsExactlyInAnyOrder(archive, bag);
+    }
+
+    private Stream<Path> list(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList().stream();
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for the {@link ParallelGzipOutputStream}
+ *
+ * @since 2026-10-17
+ */
+public class ParallelGzipOutputStreamTest {
+
+    @ParameterizedTest
+    @CsvSource({"-1, 1, 1024", "-1, 4, 1024", "0, 2, 1024", "1, 3, 40000", "9, 4, 131072"})
+    public void testRoundTrip(final int level, final int threads, final int blockSize) throws IOException {
+        final byte[] input = sample(300_000);
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, level, threads, blockSize)) {
+            // mix single byte and array writes which cross block boundaries
+            gzip.write(input[0]);
+            gzip.write(input, 1, 5000);
+            gzip.flush();
+            gzip.write(input, 5001, input.length - 5001);
+        }
+
+        assertThat(gunzip(compressed.toByteArray())).isEqualTo(input);
+
+        // the output is a single gzip member, so a decompressor which stops after the first member reads everything
+        try (InputStream is = new GzipCompressorInputStream(new ByteArrayInputStream(compressed.toByteArray()),
+                                                            false)) {
+            assertThat(is.readAllBytes()).isEqualTo(input);
+        }
+    }
+
+    @Test
+    public void testCompressionRatio() throws IOException {
+        final byte[] input = sample(1_000_000);
+
+        final ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(parallel, Deflater.DEFAULT_COMPRESSION, 4)) {
+            gzip.write(input);
+        }
+
+        final ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(serial)) {
+            gzip.write(input);
+        }
+
+        // priming each block with the end of the previous block keeps the output close to a single deflater
+        assertThat((double) parallel.size()).isLessThan(serial.size() * 1.05);
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(compressed, Deflater.BEST_SPEED, 2).close();
+
+        assertThat(gunzip(compressed.toByteArray())).isEmpty();
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> new ParallelGzipOutputStream(out, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelGzipOutputStream(out, 1, 0));
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(new ByteArrayOutputStream());
+        gzip.close();
+        assertThrows(IOException.class, () -> gzip.write(1));
+    }
+
+    /**
+     * Generate input which is somewhat compressible, with lines of text interrupted by random bytes
+     */
+    private byte[] sample(final int size) {
+        final Random random = new Random(size);
+        final ByteArrayOutputStream sample = new ByteArrayOutputStream(size);
+        int line = 0;
+        while (sample.size() < size) {
+            sample.writeBytes(String.format("%08x  data/file-%d.txt\n", random.nextInt(), line++)
+                                    .getBytes(StandardCharsets.UTF_8));
+            if (line % 100 == 0) {
+                final byte[] noise = new byte[random.nextInt(2048)];
+                random.nextBytes(noise);
+                sample.writeBytes(noise);
+            }
+        }
+        return sample.toByteArray();
+    }
+
+    private byte[] gunzip(final byte[] compressed) throws IOException {
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return is.readAllBytes();
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.duraspace.bagit.BagItDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for the {@link SerializedBagReader}
+ *
+ * @since 2026-10-17
+ */
+public class SerializedBagReaderTest {
+
+    private final String bagName = "indexed-bag";
+    private final String payload = "data/payload.txt";
+
+    @TempDir
+    private Path workDir;
+    private byte[] content;
+
+    @BeforeEach
+    public void setup() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            builder.append("line ").append(i).append('\n');
+        }
+        content = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"tar, .tar", "zip, .zip"})
+    public void testReadEntries(final String contentType, final String extension) throws Exception {
+        final Path archive = writeArchive(contentType, extension);
+        final Path index = archive.resolveSibling(archive.getFileName() + SerializedBagReader.INDEX_SUFFIX);
+
+        try (SerializedBagReader reader = SerializedBagReader.open(archive)) {
+            assertThat(index).exists();
+            assertThat(reader.getBagName()).isEqualTo(bagName);
+            assertThat(reader.getFiles()).contains(payload, "bagit.txt", "manifest-sha256.txt");
+            assertThat(reader.getSize(payload)).isEqualTo(content.length);
+            assertThat(reader.getChecksums(payload)).containsEntry(BagItDigest.SHA256, sha256(content));
+
+            try (SerializedBagReader.EntryInputStream is = reader.getInputStream(payload)) {
+                assertThat(is.size()).isEqualTo(content.length);
+                assertThat(is.readAllBytes()).isEqualTo(content);
+                assertThat(is.position()).isEqualTo(content.length);
+
+                // seek backward, forward, then backward again
+                is.seek(100);
+                assertThat(is.readNBytes(50)).isEqualTo(Arrays.copyOfRange(content, 100, 150));
+                is.seek(content.length - 10);
+                assertThat(is.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, content.length - 10,
+                                                                           content.length));
+                is.seek(5);
+                assertThat(is.position()).isEqualTo(5);
+                assertThat(is.read()).isEqualTo(content[5] & 0xff);
+                assertThrows(IOException.class, () -> is.seek(content.length + 1));
+            }
+
+            assertThrows(NoSuchFileException.class, () -> reader.getInputStream("data/missing.txt"));
+        }
+    }
+
+    @Test
+    public void testIndexReused() throws IOException {
+        final Path archive = writeArchive("zip", ".zip");
+        final Path index = archive.resolveSibling(archive.getFileName() + SerializedBagReader.INDEX_SUFFIX);
+        try (SerializedBagReader reader = SerializedBagReader.open(archive)) {
+            assertThat(reader.contains(payload)).isTrue();
+        }
+
+        // an index which is up to date is not rebuilt
+        final FileTime built = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(index, built);
+        try (SerializedBagReader reader = SerializedBagReader.open(archive)) {
+            assertThat(reader.contains(payload)).isTrue();
+        }
+        assertThat(Files.getLastModifiedTime(index)).isEqualTo(built);
+
+        // an index for an older version of the archive is rebuilt
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        try (SerializedBagReader reader = SerializedBagReader.open(archive);
+             SerializedBagReader.EntryInputStream is = reader.getInputStream(payload)) {
+            assertThat(is.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(Files.getLastModifiedTime(index)).isNotEqualTo(built);
+    }
+
+    @Test
+    public void testTruncatedIndexRebuilt() throws IOException {
+        final Path archive = writeArchive("tar", ".tar");
+        final Path index = archive.resolveSibling(archive.getFileName() + SerializedBagReader.INDEX_SUFFIX);
+        try (SerializedBagReader reader = SerializedBagReader.open(archive)) {
+            assertThat(reader.contains(payload)).isTrue();
+        }
+        try (Stream<Path> files = Files.list(workDir)) {
+            assertThat(files).containsExactlyInAnyOrder(archive, index);
+        }
+
+        // an index cut short, e.g. by a failure while it was written, is not used
+        final List<String> lines = Files.readAllLines(index);
+        final List<String> truncated = lines.subList(0, lines.size() - 2);
+        Files.write(index, truncated);
+        try (SerializedBagReader reader = SerializedBagReader.open(archive)) {
+            assertThat(reader.getFiles()).hasSize(lines.size() - 2);
+            assertThat(reader.contains(payload)).isTrue();
+        }
+        assertThat(Files.readAllLines(index)).isEqualTo(lines);
+    }
+
+    @Test
+    public void testFlatArchive() throws Exception {
+        // an archive without a top level directory has the bag at its root, and is named after the archive
+        final Path archive = workDir.resolve("flat-bag.tar");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(Files.newOutputStream(archive))) {
+            putEntry(tar, payload, content);
+            putEntry(tar, "manifest-sha256.txt", (sha256(content) + "  " + payload + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+            putEntry(tar, "bagit.txt", "BagIt-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (SerializedBagReader reader = SerializedBagReader.open(archive)) {
+            assertThat(reader.getBagName()).isEqualTo("flat-bag");
+            assertThat(reader.getFiles()).containsExactly(payload, "manifest-sha256.txt", "bagit.txt");
+            assertThat(reader.getChecksums(payload)).containsEntry(BagItDigest.SHA256, sha256(content));
+            try (InputStream is = reader.getInputStream(payload)) {
+                assertThat(is.readAllBytes()).isEqualTo(content);
+            }
+        }
+    }
+
+    @Test
+    public void testGzipUnsupported() throws IOException {
+        final Path archive = writeArchive("tgz", ".tar.gz");
+        assertThrows(UnsupportedOperationException.class, () -> SerializedBagReader.open(archive));
+    }
+
+    private Path writeArchive(final String contentType, final String extension) throws IOException {
+        final Path archive = workDir.resolve(bagName + extension);
+        try (OutputStream out = Files.newOutputStream(archive);
+             ArchiveBagWriter writer = new ArchiveBagWriter(out, contentType, bagName, Set.of(BagItDigest.SHA256))) {
+            writer.addPayload("payload.txt", new ByteArrayInputStream(content), content.length);
+        }
+        return archive;
+    }
+
+    private void putEntry(final TarArchiveOutputStream tar, final String name, final byte[] bytes)
+        throws IOException {
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        tar.putArchiveEntry(entry);
+        tar.write(bytes);
+        tar.closeArchiveEntry();
+    }
+
+    private String sha256(final byte[] bytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * The contents of this file are subject to the license and copyright detailed
+ * in the LICENSE and NOTICE files at the root of the source tree.
+ */
+package org.duraspace.bagit.serialize;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.duraspace.bagit.BagConfig;
+import org.duraspace.bagit.BagItDigest;
+import org.duraspace.bagit.BagWriter;
+import org.duraspace.bagit.profile.BagProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for the {@link SerializedBagValidator}
+ *
+ * @since 2026-10-17
+ */
+public class SerializedBagValidatorTest {
+
+    private final String bagName = "validated-bag";
+    private final Set<BagItDigest> algorithms = Set.of(BagItDigest.SHA256);
+
+    @TempDir
+    private Path workDir;
+    private SerializedBagValidator validator;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        validator = new SerializedBagValidator(new BagProfile(BagProfile.BuiltIn.BEYOND_THE_REPOSITORY));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"tar, .tar", "tgz, .tar.gz", "zip, .zip"})
+    public void testValidArchive(final String contentType, final String extension) throws IOException {
+        final Map<String, String> bagInfo = new HashMap<>();
+        bagInfo.put(BagConfig.SOURCE_ORGANIZATION_KEY, "bagit-support");
+        bagInfo.put(BagConfig.BAGGING_DATE_KEY, ISO_LOCAL_DATE.format(LocalDate.now()));
+
+        final Path archive = writeArchive(contentType, extension, bagInfo, Map.of("extra-tag.txt", "test-value"));
+        validator.validate(archive);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"tar, .tar", "tgz, .tar.gz", "zip, .zip"})
+    public void testInvalidArchive(final String contentType, final String extension) throws IOException {
+        final Map<String, String> bagInfo = new HashMap<>();
+        bagInfo.put(BagConfig.BAGGING_DATE_KEY, ISO_LOCAL_DATE.format(LocalDate.now()));
+
+        final Path archive = writeArchive(contentType, extension, bagInfo, Map.of("fetch.txt", "http://example.org"));
+        final RuntimeException failure = assertThrows(RuntimeException.class, () -> validator.validate(archive));
+        assertThat(failure.getMessage())
+            .contains("\"Source-Organization\" is a required field")
+            .contains("Profile does not allow a fetch.txt");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "./"})
+    public void testFlatArchive(final String prefix) throws IOException {
+        // a bag serialized without a top level directory, e.g. with tar -C bag .
+        final Path bag = workDir.resolve(bagName);
+        final BagWriter bagWriter = new BagWriter(bag.toFile(), algorithms);
+        final byte[] content = "validated payload".getBytes(StandardCharsets.UTF_8);
+        bagWriter.addPayload(new ByteArrayInputStream(content), "payload.bin");
+        bagWriter.addTags(BagConfig.BAG_INFO_KEY,
+                          Map.of(BagConfig.SOURCE_ORGANIZATION_KEY, "bagit-support",
+                                 BagConfig.BAGGING_DATE_KEY, ISO_LOCAL_DATE.format(LocalDate.now())));
+        bagWriter.write();
+
+        final Path archive = workDir.resolve("flat-bag.tar");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(Files.newOutputStream(archive));
+             Stream<Path> files = Files.walk(bag)) {
+            for (Path file : files.sorted().collect(Collectors.toList())) {
+                final String name = bag.relativize(file).toString().replace(File.separatorChar, '/');
+                final boolean directory = Files.isDirectory(file);
+                if (name.isEmpty() && prefix.isEmpty()) {
+                    continue;
+                }
+                tar.putArchiveEntry(new TarArchiveEntry(file, directory ? prefix + name + "/" : prefix + name));
+                if (!directory) {
+                    Files.copy(file, tar);
+                }
+                tar.closeArchiveEntry();
+            }
+        }
+
+        validator.validate(archive);
+    }
+
+    private Path writeArchive(final String contentType, final String extension, final Map<String, String> bagInfo,
+                              final Map<String, String> tagFiles) throws IOException {
+        final byte[] content = "validated payload".getBytes(StandardCharsets.UTF_8);
+        final Path archive = workDir.resolve(bagName + extension);
+        try (OutputStream out = Files.newOutputStream(archive);
+             ArchiveBagWriter writer = new ArchiveBagWriter(out, contentType, bagName, algorithms)) {
+            writer.addPayload("payload.bin", new ByteArrayInputStream(content), content.length);
+            writer.addTags(BagConfig.BAG_INFO_KEY, bagInfo);
+            for (Map.Entry<String, String> tagFile : tagFiles.entrySet()) {
+                writer.addTags(tagFile.getKey(), Map.of("test-key", tagFile.getValue()));
+            }
+        }
+        return archive;
+    }
+
+}